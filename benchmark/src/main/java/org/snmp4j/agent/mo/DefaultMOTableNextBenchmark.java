@@ -0,0 +1,229 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - DefaultMOTableNextBenchmark.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.snmp4j.agent.DefaultMOScope;
+import org.snmp4j.agent.ManagedObject;
+import org.snmp4j.agent.MOQuery;
+import org.snmp4j.agent.MOScope;
+import org.snmp4j.agent.request.*;
+import org.snmp4j.smi.*;
+
+/**
+ * Measures {@link DefaultMOTable#next} for tables of 1k, 100k, and 1M rows.
+ * Run it with the GC profiler (<code>-prof gc</code>) to get the bytes
+ * allocated per <code>next</code> call, which are reported as
+ * <code>gc.alloc.rate.norm</code>.
+ * <p>
+ * <code>walk</code> continues a walk at the cell returned by the previous
+ * call, as successive GETNEXT requests of a manager do.
+ * <code>randomNext</code> starts each call at a random cell and thus always
+ * searches the table model. The sub-request is reused and is not attached
+ * to a {@link Request}, so only the allocations of the table are measured.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class DefaultMOTableNextBenchmark {
+
+  private static final OID TABLE_OID = new OID("1.3.6.1.4.1.4976.99.1.1");
+  private static final int COLUMNS = 3;
+  private static final int RANDOM_STARTS = 4096;
+
+  @Param({ "1000", "100000", "1000000" })
+  public int rows;
+
+  private DefaultMOTable table;
+  private BenchmarkSubRequest walkRequest;
+  private BenchmarkSubRequest randomRequest;
+  private OID[] randomStarts;
+  private int randomPos;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    MOTableIndex indexDef = new MOTableIndex(new MOTableSubIndex[] {
+        new MOTableSubIndex(SMIConstants.SYNTAX_INTEGER) });
+    MOColumn[] columns = new MOColumn[COLUMNS];
+    for (int i=0; i<COLUMNS; i++) {
+      columns[i] = new MOColumn(i+2, SMIConstants.SYNTAX_INTEGER,
+                                MOAccessImpl.ACCESS_READ_ONLY);
+    }
+    DefaultMOMutableTableModel model = new DefaultMOMutableTableModel();
+    table = new DefaultMOTable(TABLE_OID, indexDef, columns, model);
+    // the rows share their values to keep the 1M rows table small
+    Variable[] values = new Variable[COLUMNS];
+    for (int i=0; i<COLUMNS; i++) {
+      values[i] = new Integer32(i);
+    }
+    for (int r=1; r<=rows; r++) {
+      model.addRow(new DefaultMOTableRow(new OID(new int[] { r }), values));
+    }
+    walkRequest = new BenchmarkSubRequest(TABLE_OID);
+    randomRequest = new BenchmarkSubRequest(TABLE_OID);
+    Random random = new Random(1);
+    randomStarts = new OID[RANDOM_STARTS];
+    for (int i=0; i<RANDOM_STARTS; i++) {
+      randomStarts[i] =
+          table.getCellOID(new OID(new int[] { random.nextInt(rows)+1 }),
+                           random.nextInt(COLUMNS));
+    }
+  }
+
+  @Benchmark
+  public VariableBinding walk() {
+    BenchmarkSubRequest request = walkRequest;
+    if (!request.next(table)) {
+      // end of table reached: start the next walk
+      request.restart(TABLE_OID);
+    }
+    return request.getVariableBinding();
+  }
+
+  @Benchmark
+  public VariableBinding randomNext() {
+    BenchmarkSubRequest request = randomRequest;
+    request.restart(randomStarts[randomPos++ & (RANDOM_STARTS-1)]);
+    request.next(table);
+    return request.getVariableBinding();
+  }
+
+  /**
+   * A reusable GETNEXT sub-request that continues at the OID returned by
+   * the previous call.
+   */
+  static class BenchmarkSubRequest implements SubRequest {
+
+    private final DefaultMOScope scope;
+    private final VariableBinding vb = new VariableBinding();
+    private final RequestStatus status = new RequestStatus();
+    private boolean complete;
+    private Object undoValue;
+    private Object userObject;
+    private ManagedObject targetMO;
+    private MOQuery query;
+
+    BenchmarkSubRequest(OID start) {
+      scope = new DefaultMOScope(start, false, null, false);
+    }
+
+    boolean next(DefaultMOTable table) {
+      complete = false;
+      boolean found = table.next(this);
+      if (found) {
+        scope.setLowerBound(vb.getOid());
+      }
+      return found;
+    }
+
+    void restart(OID start) {
+      scope.setLowerBound(start);
+    }
+
+    public boolean hasError() {
+      return false;
+    }
+
+    public void setErrorStatus(int errorStatus) {
+    }
+
+    public int getErrorStatus() {
+      return 0;
+    }
+
+    public RequestStatus getStatus() {
+      return status;
+    }
+
+    public MOScope getScope() {
+      return scope;
+    }
+
+    public VariableBinding getVariableBinding() {
+      return vb;
+    }
+
+    public Request getRequest() {
+      return null;
+    }
+
+    public Object getUndoValue() {
+      return undoValue;
+    }
+
+    public void setUndoValue(Object undoInformation) {
+      this.undoValue = undoInformation;
+    }
+
+    public void completed() {
+      complete = true;
+    }
+
+    public boolean isComplete() {
+      return complete;
+    }
+
+    public void setTargetMO(ManagedObject managedObject) {
+      this.targetMO = managedObject;
+    }
+
+    public ManagedObject getTargetMO() {
+      return targetMO;
+    }
+
+    public int getIndex() {
+      return 0;
+    }
+
+    public void setQuery(MOQuery query) {
+      this.query = query;
+    }
+
+    public MOQuery getQuery() {
+      return query;
+    }
+
+    public SubRequestIterator repetitions() {
+      return null;
+    }
+
+    public void updateNextRepetition() {
+    }
+
+    public Object getUserObject() {
+      return userObject;
+    }
+
+    public void setUserObject(Object userObject) {
+      this.userObject = userObject;
+    }
+  }
+}
@@ -420,6 +420,14 @@ public class AgentConfigManager implements Runnable {
       logger.warn("Failed to close SNMP session: "+ex.getMessage());
     }
     saveState();
+    if (persistenceProvider instanceof GroupCommitChangeLog) {
+      try {
+        ((GroupCommitChangeLog) persistenceProvider).close();
+      }
+      catch (IOException ex) {
+        logger.error("Failed to close change log: "+ex.getMessage(), ex);
+      }
+    }
     if (tableSizeLimit != null) {
       for (int i=0; i<servers.length; i++) {
         DefaultMOServer.unregisterTableRowListener(servers[i], tableSizeLimit);
@@ -762,6 +770,9 @@ public class AgentConfigManager implements Runnable {
     }
     agent = createCommandProcessor(engineID);
     agent.setWorkerPool(workerPool);
+    if (persistenceProvider instanceof MOChangeLog) {
+      agent.setChangeLog((MOChangeLog) persistenceProvider);
+    }
     initSecurityModels(engineBootsProvider);
     initMessageDispatcherWithMPs(dispatcher);
     initMandatoryMIBs();
@@ -800,17 +811,7 @@ public class AgentConfigManager implements Runnable {
    * @since 1.4
    */
   public void setTableSizeLimits(Properties sizeLimits) {
-    if ((tableSizeLimit != null) && (servers != null)) {
-      for (int i=0; i<servers.length; i++) {
-        DefaultMOServer.unregisterTableRowListener(servers[i], tableSizeLimit);
-      }
-    }
-    tableSizeLimit = new MOTableSizeLimit(sizeLimits);
-    if (getState() == STATE_RUNNING) {
-      for (int i=0; i<servers.length; i++) {
-        DefaultMOServer.registerTableRowListener(servers[i], tableSizeLimit);
-      }
-    }
+    setTableSizeLimit(new MOTableSizeLimit(sizeLimits));
   }
 
   /**
@@ -822,13 +823,28 @@ public class AgentConfigManager implements Runnable {
    * @since 1.4
    */
   public void setTableSizeLimit(int sizeLimit) {
-    if ((tableSizeLimit != null) && (servers != null)) {
+    setTableSizeLimit(new MOTableSizeLimit(sizeLimit));
+  }
+
+  /**
+   * Sets the table size limit listener for the tables in this agent, for
+   * example an {@link org.snmp4j.agent.mo.util.EvictingMOTableSizeLimit}.
+   * If this method is called while the agent's registration is being
+   * changed, a <code>ConcurrentModificationException</code> might be thrown.
+   * @param tableSizeLimit
+   *    a <code>MOTableSizeLimit</code> instance or <code>null</code> to
+   *    remove the table size limit.
+   * @since 1.4.4
+   */
+  public void setTableSizeLimit(MOTableSizeLimit tableSizeLimit) {
+    if ((this.tableSizeLimit != null) && (servers != null)) {
       for (int i=0; i<servers.length; i++) {
-        DefaultMOServer.unregisterTableRowListener(servers[i], tableSizeLimit);
+        DefaultMOServer.unregisterTableRowListener(servers[i],
+                                                   this.tableSizeLimit);
       }
     }
-    tableSizeLimit = new MOTableSizeLimit(sizeLimit);
-    if (getState() == STATE_RUNNING) {
+    this.tableSizeLimit = tableSizeLimit;
+    if ((tableSizeLimit != null) && (getState() == STATE_RUNNING)) {
       for (int i=0; i<servers.length; i++) {
         DefaultMOServer.registerTableRowListener(servers[i], tableSizeLimit);
       }
@@ -0,0 +1,85 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - BulkManagedObject.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent;
+
+import org.snmp4j.agent.request.SubRequest;
+
+/**
+ * The <code>BulkManagedObject</code> interface extends the
+ * {@link ManagedObject} interface by a cursor like GETNEXT operation that
+ * processes several consecutive repetitions of a GETBULK repeater at once.
+ * Managed objects with many instances, like tables, can then return the
+ * successor instances by a single ordered iteration instead of searching
+ * each successor separately.
+ * <p>
+ * In addition, the repeaters of a single GETBULK repetition that refer to the
+ * same row of a table, but to different columns, can be processed by a single
+ * row lookup.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public interface BulkManagedObject extends ManagedObject {
+
+  /**
+   * Finds the successor instances for a sequence of repetitions of the same
+   * GETBULK repeater. The first repetition is processed like
+   * {@link #next(SubRequest)} based on its scope. Each following repetition
+   * receives the successor of the instance returned for its predecessor in
+   * the array. Processing stops at the first repetition for which this
+   * managed object cannot provide a successor instance.
+   * <p>
+   * Repetitions processed by this method have to be marked as completed.
+   * The scope and query of the repetitions after the first one are not
+   * evaluated and need not to be updated by this method.
+   *
+   * @param repetitions
+   *    the consecutive repetitions of a repeater in ascending order.
+   * @return
+   *    the number <code>n</code> of repetitions that have been processed
+   *    successfully. These are the elements with an array index less than
+   *    <code>n</code>. If <code>0</code> is returned, this managed object
+   *    has no successor instance for the first repetition.
+   */
+  int nextBatch(SubRequest[] repetitions);
+
+  /**
+   * Finds the successor instances for the repeaters of a single GETBULK
+   * repetition whose search ranges start in the same conceptual row of this
+   * managed object. The row is determined by the first sub-request this
+   * managed object can process. The successor row is then looked up once
+   * and each sub-request starting in that row is filled with the successor
+   * instance in its own column.
+   * <p>
+   * Sub-requests that start in another row or whose successor instance is
+   * not provided by the successor row are left untouched for regular
+   * processing. Sub-requests processed by this method have to be marked as
+   * completed.
+   *
+   * @param repeaters
+   *    uncompleted sub-requests of the same repetition in ascending order.
+   * @return
+   *    the number of sub-requests that have been processed.
+   */
+  int nextRow(SubRequest[] repeaters);
+
+}
@@ -0,0 +1,71 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - ChangeLoggingManagedObject.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent;
+
+import org.snmp4j.agent.io.MOChangeLog;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+
+/**
+ * The <code>ChangeLoggingManagedObject</code> interface extends the
+ * {@link SerializableManagedObject} interface by incremental persistence.
+ * Instead of saving the whole content of the managed object, the persistent
+ * state of a single instance (e.g., a table row) is written to a
+ * {@link MOChangeLog} after a SET request has changed it. On restore, the
+ * logged changes are applied on top of the last saved content.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public interface ChangeLoggingManagedObject extends SerializableManagedObject {
+
+  /**
+   * Logs the persistent state of the instance identified by the supplied OID
+   * after a SET request on that instance has been committed successfully.
+   * Instances that are not persistent (e.g., rows with a volatile storage
+   * type) are not logged, unless the SET changed them from persistent to
+   * volatile. In that case they are logged as removed.
+   *
+   * @param context
+   *    the context of the SET request (<code>null</code> for the default
+   *    context).
+   * @param oid
+   *    the instance OID of the committed variable binding.
+   * @param changeLog
+   *    the <code>MOChangeLog</code> to write the change to.
+   */
+  void logChange(OctetString context, OID oid, MOChangeLog changeLog);
+
+  /**
+   * Applies a change previously logged by this managed object through
+   * {@link MOChangeLog#logChange}.
+   *
+   * @param index
+   *    the index of the changed instance (e.g., the row index) or
+   *    <code>null</code> if the managed object has a single instance only.
+   * @param values
+   *    the persistent values of the instance or <code>null</code> if the
+   *    instance has been removed.
+   */
+  void applyChange(OID index, Variable[] values);
+}
@@ -0,0 +1,192 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - CoalescingUpdateStrategy.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.snmp4j.log.LogAdapter;
+import org.snmp4j.log.LogFactory;
+
+/**
+ * The <code>CoalescingUpdateStrategy</code> updates each
+ * {@link UpdatableManagedObject} at most once per minimum update interval
+ * and coalesces concurrent update needs for the same managed object into a
+ * single update:
+ * <ul>
+ * <li>An object that has been updated within the minimum update interval is
+ * not updated again.</li>
+ * <li>Otherwise, the first request thread needing an update calls
+ * {@link UpdatableManagedObject#update} while other threads needing an
+ * update of the same object either wait for that update to finish or, if
+ * the data of the previous update is not older than the maximum staleness,
+ * are served the previous data immediately.</li>
+ * </ul>
+ * Because one update serves all waiting queries, objects are updated with a
+ * <code>null</code> update scope, which requests an update of the whole
+ * object. The age of the data is measured from the start of the update that
+ * provided it. If an update fails with an exception, the data is not
+ * considered updated and the next request needing the object updates it.
+ * <p>
+ * To be effective, this strategy has to be set as update strategy of a
+ * {@link DefaultMOServer}, which then uses it as {@link UpdateExecutor}.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class CoalescingUpdateStrategy implements UpdateStrategy,
+    UpdateExecutor {
+
+  private static final LogAdapter logger =
+      LogFactory.getLogger(CoalescingUpdateStrategy.class);
+
+  private volatile long minUpdateInterval;
+  private volatile long maxStaleness;
+  private Map updateStates = new WeakHashMap();
+
+  /**
+   * Creates a coalescing update strategy.
+   *
+   * @param minUpdateInterval
+   *    the minimum number of milliseconds between the start of two updates
+   *    of the same managed object.
+   * @param maxStaleness
+   *    the maximum age in milliseconds of data that is served while the
+   *    object is being updated by another thread. Zero lets all threads
+   *    wait for the running update.
+   */
+  public CoalescingUpdateStrategy(long minUpdateInterval, long maxStaleness) {
+    this.minUpdateInterval = minUpdateInterval;
+    this.maxStaleness = maxStaleness;
+  }
+
+  public boolean isUpdateNeeded(MOServer server,
+                                UpdatableManagedObject mo, MOQuery query) {
+    UpdateState state = getUpdateState(mo);
+    synchronized (state) {
+      return !state.isFresh(System.currentTimeMillis());
+    }
+  }
+
+  public void executeUpdate(MOServer server,
+                            UpdatableManagedObject mo, MOQuery query) {
+    UpdateState state = getUpdateState(mo);
+    long start;
+    synchronized (state) {
+      for (;;) {
+        start = System.currentTimeMillis();
+        if (state.isFresh(start)) {
+          return;
+        }
+        if (!state.updating) {
+          state.updating = true;
+          break;
+        }
+        if ((state.lastUpdate > 0) &&
+            (start - state.lastUpdate <= maxStaleness)) {
+          // serve the previous data while another thread updates it
+          return;
+        }
+        long previousUpdate = state.lastUpdate;
+        try {
+          while (state.updating) {
+            state.wait();
+          }
+        }
+        catch (InterruptedException iex) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        if (state.lastUpdate != previousUpdate) {
+          // the update waited for has succeeded
+          return;
+        }
+      }
+    }
+    boolean updated = false;
+    try {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Updating "+mo+" on behalf of query "+query);
+      }
+      mo.update(null);
+      updated = true;
+    }
+    finally {
+      synchronized (state) {
+        if (updated) {
+          state.lastUpdate = start;
+        }
+        state.updating = false;
+        state.notifyAll();
+      }
+    }
+  }
+
+  private UpdateState getUpdateState(UpdatableManagedObject mo) {
+    synchronized (updateStates) {
+      UpdateState state = (UpdateState) updateStates.get(mo);
+      if (state == null) {
+        state = new UpdateState();
+        updateStates.put(mo, state);
+      }
+      return state;
+    }
+  }
+
+  /**
+   * Forgets the time of the last update of the supplied managed object, so
+   * that the next query updates it.
+   * @param mo
+   *    an <code>UpdatableManagedObject</code>.
+   */
+  public void invalidate(UpdatableManagedObject mo) {
+    UpdateState state = getUpdateState(mo);
+    synchronized (state) {
+      state.lastUpdate = 0;
+    }
+  }
+
+  public void setMinUpdateInterval(long minUpdateInterval) {
+    this.minUpdateInterval = minUpdateInterval;
+  }
+
+  public long getMinUpdateInterval() {
+    return minUpdateInterval;
+  }
+
+  public void setMaxStaleness(long maxStaleness) {
+    this.maxStaleness = maxStaleness;
+  }
+
+  public long getMaxStaleness() {
+    return maxStaleness;
+  }
+
+  private class UpdateState {
+    private long lastUpdate;
+    private boolean updating;
+
+    boolean isFresh(long now) {
+      return (lastUpdate > 0) && (now - lastUpdate < minUpdateInterval);
+    }
+  }
+}
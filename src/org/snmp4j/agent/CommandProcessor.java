@@ -23,6 +23,8 @@ package org.snmp4j.agent;
 import java.util.*;
 
 import org.snmp4j.*;
+import org.snmp4j.agent.io.GroupCommitChangeLog;
+import org.snmp4j.agent.io.MOChangeLog;
 import org.snmp4j.agent.request.*;
 import org.snmp4j.agent.security.*;
 import org.snmp4j.event.*;
@@ -67,6 +69,10 @@ public class CommandProcessor
   protected ProxyMap proxyForwarder;
   protected CoexistenceInfoProvider coexistenceProvider;
 
+  private int maxBulkBatchSize = 16;
+  private volatile WalkCache walkCache = new WalkCache(256);
+  private MOChangeLog changeLog;
+
   private transient Vector counterListeners;
 
   public CommandProcessor(OctetString contextEngineID) {
@@ -102,6 +108,123 @@ public class CommandProcessor
     return requestList.getTimeout();
   }
 
+  /**
+   * Sets the maximum number of GETBULK repetitions that are processed at once
+   * by a {@link BulkManagedObject}. Larger values reduce the number of
+   * separate lookups for walks on large tables, but may process more
+   * repetitions than fit into the response PDU.
+   *
+   * @param maxBulkBatchSize
+   *    the maximum number of repetitions per batch. A value less than two
+   *    disables batch processing of GETBULK repetitions, including the
+   *    row-at-once processing of repeaters referring to the same table.
+   * @since 1.4.4
+   */
+  public void setMaxBulkBatchSize(int maxBulkBatchSize) {
+    this.maxBulkBatchSize = maxBulkBatchSize;
+  }
+
+  /**
+   * Gets the maximum number of GETBULK repetitions processed at once by a
+   * {@link BulkManagedObject}.
+   * @return
+   *    the maximum batch size (default is 16).
+   * @since 1.4.4
+   */
+  public int getMaxBulkBatchSize() {
+    return maxBulkBatchSize;
+  }
+
+  /**
+   * Sets the maximum number of walk positions remembered across GETNEXT and
+   * GETBULK requests. A walk position associates the peer, the context, and
+   * the last returned instance OID of a request with the managed object that
+   * returned that instance. When a subsequent request of the same peer
+   * continues the walk at that OID, the managed object is reused instead of
+   * searching the registry of a {@link DefaultMOServer}.
+   *
+   * @param walkCacheSize
+   *    the maximum number of cached walk positions. A value of zero or less
+   *    disables the walk cache.
+   * @since 1.4.4
+   */
+  public void setWalkCacheSize(int walkCacheSize) {
+    walkCache = (walkCacheSize > 0) ? new WalkCache(walkCacheSize) : null;
+  }
+
+  /**
+   * Gets the maximum number of walk positions remembered across GETNEXT and
+   * GETBULK requests.
+   * @return
+   *    the maximum number of cached walk positions (default is 256) or zero if
+   *    the walk cache is disabled.
+   * @since 1.4.4
+   */
+  public int getWalkCacheSize() {
+    WalkCache cache = walkCache;
+    return (cache == null) ? 0 : cache.getMaxSize();
+  }
+
+  /**
+   * Sets the change log that records the changes of successfully committed
+   * SET requests on non-volatile {@link ChangeLoggingManagedObject}s.
+   *
+   * @param changeLog
+   *    a <code>MOChangeLog</code> (e.g., a {@link GroupCommitChangeLog}) or
+   *    <code>null</code> to disable change logging (default).
+   * @since 1.4.4
+   */
+  public void setChangeLog(MOChangeLog changeLog) {
+    this.changeLog = changeLog;
+  }
+
+  /**
+   * Gets the change log for committed SET requests.
+   * @return
+   *    the <code>MOChangeLog</code> or <code>null</code> if changes are not
+   *    logged.
+   * @since 1.4.4
+   */
+  public MOChangeLog getChangeLog() {
+    return changeLog;
+  }
+
+  /**
+   * Sets whether the default request factory creates thread confined
+   * requests. A confined request is processed by one thread at a time and
+   * therefore does not synchronize access to its sub-requests. Instead, the
+   * request's monitor is held while the request is processed and finalized
+   * by {@link #processRequest(CommandResponderEvent, CoexistenceInfo,
+   * RequestHandler)} and while it is reprocessed by
+   * {@link #reprocessRequest}. Thus, a thread completing a sub-request
+   * asynchronously, even before <code>processPdu</code> has returned, sees
+   * the state left by the thread that processed the request before.
+   * <p>
+   * This setting has no effect if a custom {@link RequestFactory} is used.
+   *
+   * @param confinedRequests
+   *    <code>true</code> to create thread confined requests,
+   *    <code>false</code> (default) otherwise.
+   * @since 1.4.4
+   */
+  public void setConfinedRequests(boolean confinedRequests) {
+    if (requestFactory instanceof DefaultRequestFactory) {
+      ((DefaultRequestFactory)requestFactory).setConfined(confinedRequests);
+    }
+  }
+
+  /**
+   * Indicates whether the default request factory creates thread confined
+   * requests.
+   * @return
+   *    <code>true</code> if requests are confined to a single thread at a time.
+   * @since 1.4.4
+   */
+  public boolean isConfinedRequests() {
+    return ((requestFactory instanceof DefaultRequestFactory) &&
+            ((DefaultRequestFactory)requestFactory).isConfined());
+  }
+
   public void processPdu(CommandResponderEvent event) {
     if (event.getPDU() != null) {
       CoexistenceInfo cinfo = null;
@@ -375,18 +498,48 @@ public class CommandProcessor
     else {
       req.setViewName(viewName);
       server = getServer(context);
+    }
+    if (isConfined(req)) {
+      synchronized (req) {
+        processAndFinalizeRequest(command, handler, req, server);
+      }
+    }
+    else {
+      processAndFinalizeRequest(command, handler, req, server);
+    }
+  }
+
+  private void processAndFinalizeRequest(CommandResponderEvent command,
+                                         RequestHandler handler,
+                                         Request req, MOServer server) {
+    if (req.getViewName() != null) {
       processRequest(server, handler, req);
     }
     finalizeRequest(command, req, server);
   }
 
+  private static boolean isConfined(Request req) {
+    return ((req instanceof AbstractRequest) &&
+            ((AbstractRequest)req).isConfined());
+  }
+
   protected void reprocessRequest(MOServer server, SnmpRequest req) {
     RequestHandler handler =
         getHandler(req.getInitiatingEvent().getPDU().getType());
     if (handler != null) {
-      req.resetProcessedStatus();
-      req.incReprocessCounter();
-      processRequest(server, handler, req);
+      if (req.isConfined()) {
+        // wait until the processing thread has released the request
+        synchronized (req) {
+          req.resetProcessedStatus();
+          req.incReprocessCounter();
+          processRequest(server, handler, req);
+        }
+      }
+      else {
+        req.resetProcessedStatus();
+        req.incReprocessCounter();
+        processRequest(server, handler, req);
+      }
     }
     else {
       sendUnknownPDUHandlersReport(req.getInitiatingEvent());
@@ -629,6 +782,33 @@ public class CommandProcessor
                                        SubRequest sreq)
       throws NoSuchElementException
   {
+    processNext(request, server, context, sreq);
+  }
+
+  /**
+   * Processes a GETNEXT sub-request like
+   * {@link #processNextSubRequest(Request, MOServer, OctetString, SubRequest)}
+   * and returns the managed object that provided the successor instance.
+   *
+   * @param request
+   *    the request.
+   * @param server
+   *    the <code>MOServer</code> to lookup managed objects.
+   * @param context
+   *    the context of the request.
+   * @param sreq
+   *    the sub-request to process.
+   * @return
+   *    the <code>ManagedObject</code> that returned the successor instance or
+   *    <code>null</code> if the sub-request has been answered otherwise.
+   * @since 1.4.4
+   */
+  protected ManagedObject processNext(Request request, MOServer server,
+                                      OctetString context,
+                                      SubRequest sreq)
+      throws NoSuchElementException
+  {
+    ManagedObject successor = null;
     // We can be sure to have a default context scope here because
     // the inner class SnmpSubRequest creates it!
     DefaultMOContextScope scope = (DefaultMOContextScope) sreq.getScope();
@@ -642,8 +822,33 @@ public class CommandProcessor
                             request.getViewName());
       sreq.setQuery(query);
     }
+    WalkCache cache = walkCache;
+    DefaultMOServer defaultServer = null;
+    WalkPosition position = null;
+    if ((cache != null) && (server instanceof DefaultMOServer)) {
+      defaultServer = (DefaultMOServer) server;
+      if (!scope.isLowerIncluded()) {
+        position = cache.remove(new WalkKey(getPeerAddress(request), context,
+                                            scope.getLowerBound()));
+      }
+    }
     while (!sreq.getStatus().isProcessed()) {
-      ManagedObject mo = server.lookup(query);
+      ManagedObject mo;
+      int registrationCounter = 0;
+      if (defaultServer != null) {
+        registrationCounter = defaultServer.getRegistrationCounter();
+        if (position != null) {
+          mo = defaultServer.lookup(query, position.getManagedObject(),
+                                    position.getRegistrationCounter());
+          position = null;
+        }
+        else {
+          mo = defaultServer.lookup(query);
+        }
+      }
+      else {
+        mo = server.lookup(query);
+      }
       if (mo == null) {
         if (logger.isDebugEnabled()) {
           logger.debug("EndOfMibView at scope="+scope+" and query "+query);
@@ -652,6 +857,13 @@ public class CommandProcessor
         sreq.getStatus().setPhaseComplete(true);
         continue;
       }
+      OID queryLowerBound = query.getScope().getLowerBound();
+      if ((queryLowerBound != null) && (scope.getLowerBound() != null) &&
+          (queryLowerBound.compareTo(scope.getLowerBound()) > 0)) {
+        // the query skipped instances that are not in view
+        scope.lowerBound = queryLowerBound;
+        scope.lowerIncluded = query.getScope().isLowerIncluded();
+      }
       try {
         if (logger.isDebugEnabled()) {
           logger.debug("Processing NEXT query "+query+" with "+mo+
@@ -674,6 +886,31 @@ public class CommandProcessor
             query.substractScope(mo.getScope());
           }
         }
+        else if ((query instanceof VACMQuery) &&
+                 (!((VACMQuery)query).isAccessAllowed(
+                     sreq.getVariableBinding().getOid()))) {
+          // next instance returned by the managed object is not in view
+          OID oid = sreq.getVariableBinding().getOid();
+          sreq.getVariableBinding().setVariable(Null.instance);
+          sreq.getStatus().setPhaseComplete(false);
+          sreq.getStatus().setProcessed(false);
+          if (((VACMQuery)query).skipNotInView(oid)) {
+            scope.lowerBound = query.getScope().getLowerBound();
+            scope.lowerIncluded = query.getScope().isLowerIncluded();
+          }
+          else {
+            sreq.getVariableBinding().setVariable(Null.endOfMibView);
+            sreq.getStatus().setPhaseComplete(true);
+          }
+        }
+        else {
+          successor = mo;
+          if (defaultServer != null) {
+            cache.put(new WalkKey(getPeerAddress(request), context,
+                                  sreq.getVariableBinding().getOid()),
+                      new WalkPosition(mo, registrationCounter));
+          }
+        }
       }
       catch (Exception moex) {
         if (logger.isDebugEnabled()) {
@@ -689,6 +926,156 @@ public class CommandProcessor
         }
       }
     }
+    return successor;
+  }
+
+  private static Address getPeerAddress(Request request) {
+    Object source = request.getSource();
+    if (source instanceof CommandResponderEvent) {
+      return ((CommandResponderEvent)source).getPeerAddress();
+    }
+    return null;
+  }
+
+  private ManagedObject processRepetition(Request request, MOServer server,
+                                          OctetString context,
+                                          SubRequest sreq) {
+    ManagedObject mo = processNext(request, server, context, sreq);
+    sreq.updateNextRepetition();
+    if (mo instanceof BulkManagedObject) {
+      processBulkRepetitions(request, (BulkManagedObject)mo, sreq);
+    }
+    return mo;
+  }
+
+  /**
+   * Processes the supplied repeaters of a single GETBULK repetition by the
+   * {@link BulkManagedObject} that processed the preceding repeater of that
+   * repetition. Repeaters starting in the same table row are thus resolved
+   * by a single row lookup. Each instance returned by the managed object is
+   * checked against the view of the request. Repeaters that could not be
+   * processed or that are not in the view are left for regular processing.
+   *
+   * @param request
+   *    the GETBULK request.
+   * @param mo
+   *    the <code>BulkManagedObject</code> that returned the successor of the
+   *    repeater preceding <code>repeaters</code> in the same repetition.
+   * @param repeaters
+   *    a list of uncompleted <code>SubRequest</code>s of the same repetition
+   *    in ascending order.
+   * @since 1.4.4
+   */
+  protected void processBulkRow(Request request, BulkManagedObject mo,
+                                List repeaters) {
+    if (repeaters.isEmpty()) {
+      return;
+    }
+    SubRequest[] row =
+        (SubRequest[]) repeaters.toArray(new SubRequest[repeaters.size()]);
+    int processed = 0;
+    try {
+      processed = mo.nextRow(row);
+    }
+    catch (Exception moex) {
+      logger.error("Exception occurred while executing bulk NEXT query: "+
+                   moex.getMessage(), moex);
+      if (SNMP4JSettings.isFowardRuntimeExceptions()) {
+        throw new RuntimeException(moex);
+      }
+    }
+    if (processed == 0) {
+      return;
+    }
+    for (int i=0; i<row.length; i++) {
+      if ((row[i].isComplete()) &&
+          (vacm.isAccessAllowed(request.getViewName(),
+                                row[i].getVariableBinding().getOid())
+           != VACM.VACM_OK)) {
+        // leave repeater to regular processing
+        row[i].getVariableBinding().setVariable(Null.instance);
+        row[i].getStatus().setPhaseComplete(false);
+        row[i].getStatus().setProcessed(false);
+      }
+    }
+  }
+
+  /**
+   * Processes the repetitions following the supplied (already processed)
+   * GETBULK repetition by the supplied {@link BulkManagedObject} in batches of
+   * up to {@link #getMaxBulkBatchSize()} repetitions. Each instance returned
+   * by the managed object is checked against the view of the request.
+   * Repetitions that could not be processed or that are not in the view
+   * are left for regular processing.
+   *
+   * @param request
+   *    the GETBULK request.
+   * @param mo
+   *    the <code>BulkManagedObject</code> that returned the instance for
+   *    <code>sreq</code>.
+   * @param sreq
+   *    a processed repetition.
+   * @since 1.4.4
+   */
+  protected void processBulkRepetitions(Request request, BulkManagedObject mo,
+                                        SubRequest sreq) {
+    if ((maxBulkBatchSize < 2) || (sreq.hasError()) ||
+        (sreq.getVariableBinding().isException())) {
+      return;
+    }
+    SubRequestIterator repetitions = sreq.repetitions();
+    // skip the already processed repetition
+    repetitions.next();
+    SubRequest last = sreq;
+    List batch = new ArrayList(maxBulkBatchSize);
+    boolean complete = false;
+    while ((!complete) && (repetitions.hasNext())) {
+      batch.clear();
+      while ((batch.size() < maxBulkBatchSize) && (repetitions.hasNext())) {
+        SubRequest repetition = repetitions.nextSubRequest();
+        if (repetition.isComplete()) {
+          complete = true;
+          break;
+        }
+        batch.add(repetition);
+      }
+      if (batch.isEmpty()) {
+        break;
+      }
+      SubRequest[] reps =
+          (SubRequest[]) batch.toArray(new SubRequest[batch.size()]);
+      int processed = 0;
+      try {
+        processed = mo.nextBatch(reps);
+      }
+      catch (Exception moex) {
+        logger.error("Exception occurred while executing bulk NEXT query: "+
+                     moex.getMessage(), moex);
+        if (SNMP4JSettings.isFowardRuntimeExceptions()) {
+          throw new RuntimeException(moex);
+        }
+      }
+      int accepted = 0;
+      while ((accepted < processed) &&
+             (vacm.isAccessAllowed(request.getViewName(),
+                                   reps[accepted].getVariableBinding().getOid())
+              == VACM.VACM_OK)) {
+        accepted++;
+      }
+      for (int i=accepted; i<reps.length; i++) {
+        // leave remaining repetitions to regular processing
+        reps[i].getVariableBinding().setVariable(Null.instance);
+        reps[i].getStatus().setPhaseComplete(false);
+        reps[i].getStatus().setProcessed(false);
+      }
+      if (accepted > 0) {
+        last = reps[accepted-1];
+      }
+      last.updateNextRepetition();
+      if (accepted < reps.length) {
+        break;
+      }
+    }
   }
 
   public synchronized void addCounterListener(CounterListener l) {
@@ -776,40 +1163,38 @@ public class CommandProcessor
             sreq.getStatus().setErrorStatus(PDU.noAccess);
           }
           else {
-            ManagedObject mo = server.lookup(query);
+            ManagedObject mo = sreq.getTargetMO();
             if (mo == null) {
-              if ((query instanceof VACMQuery) &&
-                  (!((VACMQuery)query).isAccessAllowed(scope.getLowerBound()))){
-                sreq.getStatus().setErrorStatus(PDU.noAccess);
-              }
-              else {
-                sreq.getStatus().setErrorStatus(PDU.noCreation);
-              }
-              break;
-            }
-            sreq.setTargetMO(mo);
-            if (server.lock(sreq.getRequest(), mo, requestList.getTimeout())) {
-              try {
-                mo.prepare(sreq);
-              }
-              catch (Exception moex) {
-                logger.error("Set request " + request +
-                             " failed with exception",
-                             moex);
+              // resolve and lock the target once for all phases
+              mo = lookupTarget(server, query, sreq);
+              if (mo == null) {
                 if (sreq.getStatus().getErrorStatus() == PDU.noError) {
-                  sreq.getStatus().setErrorStatus(PDU.genErr);
-                }
-                if (SNMP4JSettings.isFowardRuntimeExceptions()) {
-                  throw new RuntimeException(moex);
+                  if ((query instanceof VACMQuery) &&
+                      (!((VACMQuery)query).isAccessAllowed(
+                          scope.getLowerBound()))) {
+                    sreq.getStatus().setErrorStatus(PDU.noAccess);
+                  }
+                  else {
+                    sreq.getStatus().setErrorStatus(PDU.noCreation);
+                  }
+                  break;
                 }
+                continue;
               }
             }
-            else {
-              logger.warn("Set request " + request +
-                           " failed because "+mo+" could not be locked");
+            try {
+              mo.prepare(sreq);
+            }
+            catch (Exception moex) {
+              logger.error("Set request " + request +
+                           " failed with exception",
+                           moex);
               if (sreq.getStatus().getErrorStatus() == PDU.noError) {
                 sreq.getStatus().setErrorStatus(PDU.genErr);
               }
+              if (SNMP4JSettings.isFowardRuntimeExceptions()) {
+                throw new RuntimeException(moex);
+              }
             }
           }
         }
@@ -823,6 +1208,55 @@ public class CommandProcessor
       }
     }
 
+    /**
+     * Looks up the target managed object of a SET sub-request and locks it
+     * for the request. The locked target is then used by all subsequent
+     * phases of the request and is kept registered until it is unlocked
+     * during the cleanup phase.
+     *
+     * @param server
+     *    the <code>MOServer</code> to lookup and lock the target.
+     * @param query
+     *    the query for the target.
+     * @param sreq
+     *    the SET sub-request.
+     * @return
+     *    the locked target or <code>null</code> if no target has been found
+     *    or if it could not be locked. In the latter case the error status
+     *    of the sub-request has been set.
+     */
+    private ManagedObject lookupTarget(MOServer server, MOQuery query,
+                                       SubRequest sreq) {
+      int registrationCounter = 0;
+      if (server instanceof DefaultMOServer) {
+        registrationCounter =
+            ((DefaultMOServer)server).getRegistrationCounter();
+      }
+      ManagedObject mo = server.lookup(query);
+      if (mo == null) {
+        return null;
+      }
+      if (!server.lock(sreq.getRequest(), mo, requestList.getTimeout())) {
+        logger.warn("Set request " + sreq.getRequest() +
+                    " failed because "+mo+" could not be locked");
+        sreq.getStatus().setErrorStatus(PDU.genErr);
+        return null;
+      }
+      if ((server instanceof DefaultMOServer) &&
+          (registrationCounter !=
+           ((DefaultMOServer)server).getRegistrationCounter()) &&
+          (server.lookup(query) != mo)) {
+        // registration changed before the target has been locked
+        server.unlock(sreq.getRequest(), mo);
+        logger.warn("Set request " + sreq.getRequest() +
+                    " failed because "+mo+" has been unregistered");
+        sreq.getStatus().setErrorStatus(PDU.genErr);
+        return null;
+      }
+      sreq.setTargetMO(mo);
+      return mo;
+    }
+
     public void processPdu(Request request, MOServer server) {
       OctetString context = request.getContext();
       try {
@@ -874,14 +1308,9 @@ public class CommandProcessor
           if (sreq.isComplete()) {
             continue;
           }
-          OID oid = sreq.getVariableBinding().getOid();
           ManagedObject mo = sreq.getTargetMO();
           if (mo == null) {
-            DefaultMOContextScope scope =
-                new DefaultMOContextScope(context, oid, true, oid, true);
-            mo = server.lookup(new DefaultMOQuery(scope, true, request));
-          }
-          if (mo == null) {
+            // sub-request has not been prepared
             sreq.getStatus().setErrorStatus(PDU.undoFailed);
             continue;
           }
@@ -920,14 +1349,9 @@ public class CommandProcessor
           if (sreq.isComplete()) {
             continue;
           }
-          OID oid = sreq.getVariableBinding().getOid();
           ManagedObject mo = sreq.getTargetMO();
           if (mo == null) {
-            DefaultMOContextScope scope =
-                new DefaultMOContextScope(context, oid, true, oid, true);
-            mo = server.lookup(new DefaultMOQuery(scope, true, request));
-          }
-          if (mo == null) {
+            // sub-request has not been prepared
             sreq.getStatus().setErrorStatus(PDU.commitFailed);
             continue;
           }
@@ -966,21 +1390,23 @@ public class CommandProcessor
           if (sreq.isComplete()) {
             continue;
           }
-          OID oid = sreq.getVariableBinding().getOid();
           ManagedObject mo = sreq.getTargetMO();
           if (mo == null) {
-            DefaultMOContextScope scope =
-                new DefaultMOContextScope(context, oid, true, oid, true);
-            mo = server.lookup(new DefaultMOQuery(scope));
-          }
-          if (mo == null) {
+            // sub-request has not been prepared
             sreq.completed();
             continue;
           }
-          server.unlock(sreq.getRequest(), mo);
           try {
             mo.cleanup(sreq);
             sreq.getStatus().setPhaseComplete(true);
+            if ((changeLog != null) &&
+                (request.getErrorStatus() == PDU.noError) &&
+                (mo instanceof ChangeLoggingManagedObject) &&
+                (!((ChangeLoggingManagedObject)mo).isVolatile())) {
+              // log committed change while the target is still locked
+              ((ChangeLoggingManagedObject)mo).logChange(context,
+                  sreq.getVariableBinding().getOid(), changeLog);
+            }
           }
           catch (Exception moex) {
             if (logger.isDebugEnabled()) {
@@ -991,6 +1417,10 @@ public class CommandProcessor
               throw new RuntimeException(moex);
             }
           }
+          finally {
+            sreq.setTargetMO(null);
+            server.unlock(sreq.getRequest(), mo);
+          }
         }
       }
       catch (NoSuchElementException nsex) {
@@ -1092,11 +1522,36 @@ public class CommandProcessor
           }
         }
         // repetitions
+        int repeaters = req.getRepeaterCount();
         for (; it.hasNext(); i++) {
           SubRequest sreq =  it.nextSubRequest();
           if (!sreq.isComplete()) {
-            processNextSubRequest(request, server, context, sreq);
-            sreq.updateNextRepetition();
+            ManagedObject mo = processRepetition(request, server, context, sreq);
+            int remaining =
+                repeaters - 1 - ((sreq.getIndex() - nonRep) % repeaters);
+            if ((mo instanceof BulkManagedObject) &&
+                (maxBulkBatchSize >= 2) && (remaining > 0)) {
+              // process the other repeaters of this repetition row-at-once
+              List row = new ArrayList(remaining);
+              for (; (remaining > 0) && it.hasNext(); remaining--, i++) {
+                SubRequest repeater = it.nextSubRequest();
+                if (!repeater.isComplete()) {
+                  row.add(repeater);
+                }
+              }
+              processBulkRow(request, (BulkManagedObject)mo, row);
+              for (Iterator rit = row.iterator(); rit.hasNext(); ) {
+                SubRequest repeater = (SubRequest) rit.next();
+                if (repeater.isComplete()) {
+                  repeater.updateNextRepetition();
+                  processBulkRepetitions(request, (BulkManagedObject)mo,
+                                         repeater);
+                }
+                else {
+                  processRepetition(request, server, context, repeater);
+                }
+              }
+            }
           }
         }
       }
@@ -1111,6 +1566,7 @@ public class CommandProcessor
   class VACMQuery extends DefaultMOQuery {
 
     private OctetString viewName;
+    private boolean skipped;
 
     /**
      * Creates a VACMQuery for read-only access.
@@ -1179,19 +1635,41 @@ public class CommandProcessor
     }
 
     public boolean isSearchQuery() {
+      if (skipped) {
+        return true;
+      }
       MOContextScope scope = getScope();
       return ((!scope.isLowerIncluded()) &&
               ((scope.getUpperBound() == null) ||
                (!scope.getUpperBound().equals(scope.getLowerBound()))));
     }
 
+    /**
+     * Checks whether the supplied managed object has an instance within the
+     * scope of this query that is in the view of this query. For search
+     * queries, instances not in the view are skipped by moving the lower
+     * bound of the scope of this query beyond them. If the VACM implements
+     * {@link NavigableVACM}, the lower bound is moved beyond the whole
+     * excluded subtree.
+     *
+     * @param managedObject
+     *    a <code>ManagedObject</code>.
+     * @return
+     *    <code>true</code> if the managed object has an instance in scope
+     *    that is in view.
+     */
     public boolean matchesQuery(ManagedObject managedObject) {
       OID oid;
       if (isSearchQuery()) {
-         oid = managedObject.find(getScope());
-         if (oid == null) {
-           return false;
-         }
+        while ((oid = managedObject.find(getScope())) != null) {
+          if (vacm.isAccessAllowed(viewName, oid) == VACM.VACM_OK) {
+            return true;
+          }
+          if (!skipNotInView(oid)) {
+            return false;
+          }
+        }
+        return false;
       }
       else {
         oid = getScope().getLowerBound();
@@ -1199,6 +1677,36 @@ public class CommandProcessor
       return (vacm.isAccessAllowed(viewName, oid) == VACM.VACM_OK);
     }
 
+    /**
+     * Moves the lower bound of the scope of this query beyond the supplied
+     * instance OID, which is not in the view of this query.
+     *
+     * @param oid
+     *    an instance OID not in view.
+     * @return
+     *    <code>true</code> if the scope has been updated, <code>false</code>
+     *    if there is no OID greater than <code>oid</code> in the view.
+     * @since 1.4.4
+     */
+    public boolean skipNotInView(OID oid) {
+      DefaultMOContextScope scope = (DefaultMOContextScope) getScope();
+      if (vacm instanceof NavigableVACM) {
+        OID boundary =
+            ((NavigableVACM)vacm).getNextViewBoundary(viewName, oid);
+        if (boundary == null) {
+          return false;
+        }
+        scope.setLowerBound(boundary);
+        scope.setLowerIncluded(true);
+      }
+      else {
+        scope.setLowerBound(oid);
+        scope.setLowerIncluded(false);
+      }
+      skipped = true;
+      return true;
+    }
+
     public boolean isAccessAllowed(OID oid) {
       return (vacm.isAccessAllowed(viewName, oid) == VACM.VACM_OK);
     }
@@ -1210,10 +1718,109 @@ public class CommandProcessor
 
   }
 
+  /**
+   * The <code>WalkCache</code> is a bounded map of walk positions with least
+   * recently used eviction. Positions are removed when they are used, thus
+   * each position is continued by one request only.
+   */
+  static class WalkCache {
+
+    private int maxSize;
+    private LinkedHashMap positions;
+
+    WalkCache(final int maxSize) {
+      this.maxSize = maxSize;
+      this.positions = new LinkedHashMap(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+          return size() > maxSize;
+        }
+      };
+    }
+
+    int getMaxSize() {
+      return maxSize;
+    }
+
+    synchronized WalkPosition remove(WalkKey key) {
+      return (WalkPosition) positions.remove(key);
+    }
+
+    synchronized void put(WalkKey key, WalkPosition position) {
+      positions.put(key, position);
+    }
+  }
+
+  static class WalkKey {
+
+    private Address peerAddress;
+    private OctetString context;
+    private OID oid;
+
+    WalkKey(Address peerAddress, OctetString context, OID oid) {
+      this.peerAddress = peerAddress;
+      this.context = context;
+      this.oid = oid;
+    }
+
+    public boolean equals(Object obj) {
+      if (obj instanceof WalkKey) {
+        WalkKey other = (WalkKey)obj;
+        return (oid.equals(other.oid) &&
+                ((context == null) ? (other.context == null) :
+                 context.equals(other.context)) &&
+                ((peerAddress == null) ? (other.peerAddress == null) :
+                 peerAddress.equals(other.peerAddress)));
+      }
+      return false;
+    }
+
+    public int hashCode() {
+      int hash = oid.hashCode();
+      if (context != null) {
+        hash = 31 * hash + context.hashCode();
+      }
+      if (peerAddress != null) {
+        hash = 31 * hash + peerAddress.hashCode();
+      }
+      return hash;
+    }
+  }
+
+  static class WalkPosition {
+
+    private ManagedObject managedObject;
+    private int registrationCounter;
+
+    WalkPosition(ManagedObject managedObject, int registrationCounter) {
+      this.managedObject = managedObject;
+      this.registrationCounter = registrationCounter;
+    }
+
+    ManagedObject getManagedObject() {
+      return managedObject;
+    }
+
+    int getRegistrationCounter() {
+      return registrationCounter;
+    }
+  }
+
   static class DefaultRequestFactory implements RequestFactory {
+
+    private boolean confined;
+
     public Request createRequest(EventObject initiatingEvent,
                                  CoexistenceInfo cinfo) {
-      return new SnmpRequest((CommandResponderEvent)initiatingEvent, cinfo);
+      return new SnmpRequest((CommandResponderEvent)initiatingEvent, cinfo,
+                             confined);
+    }
+
+    public boolean isConfined() {
+      return confined;
+    }
+
+    public void setConfined(boolean confined) {
+      this.confined = confined;
     }
 
   }
@@ -25,6 +25,7 @@ import java.util.Map.Entry;
 
 import org.snmp4j.log.*;
 import org.snmp4j.smi.*;
+import org.snmp4j.agent.request.Request;
 import org.snmp4j.agent.request.SnmpRequest;
 import org.snmp4j.agent.mo.MOTableRowListener;
 import org.snmp4j.agent.mo.MOTable;
@@ -44,10 +45,11 @@ public class DefaultMOServer implements MOServer {
   private Set contexts;
   private SortedMap registry;
   private Map lockList;
+  private Map pendingUnregistrations;
   private Map lookupListener;
   private transient Vector contextListeners;
   private UpdateStrategy updateStrategy;
-
+  private volatile int registrationCounter;
 
   public DefaultMOServer() {
     this.registry =
@@ -78,16 +80,8 @@ public class DefaultMOServer implements MOServer {
       Object o = entry.getValue();
       if (o instanceof ManagedObject) {
         ManagedObject mo = (ManagedObject) o;
-        MOScope moScope = mo.getScope();
-        if (query.getScope().isOverlapping(moScope)) {
-          fireQueryEvent(mo, query);
-          if (mo instanceof UpdatableManagedObject) {
-            checkForUpdate((UpdatableManagedObject)mo, query);
-          }
-          if (query.matchesQuery(mo)) {
-            fireLookupEvent(mo, query);
-            return mo;
-          }
+        if (isMatching(mo, query)) {
+          return mo;
         }
       }
       else if (logger.isWarnEnabled()) {
@@ -97,11 +91,86 @@ public class DefaultMOServer implements MOServer {
     return null;
   }
 
+  private boolean isMatching(ManagedObject mo, MOQuery query) {
+    MOScope moScope = mo.getScope();
+    if (query.getScope().isOverlapping(moScope)) {
+      fireQueryEvent(mo, query);
+      if (mo instanceof UpdatableManagedObject) {
+        checkForUpdate((UpdatableManagedObject)mo, query);
+      }
+      if (query.matchesQuery(mo)) {
+        fireLookupEvent(mo, query);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Looks up the first <code>ManagedObject</code> matching the supplied query
+   * like {@link #lookup(MOQuery query)} but tries the supplied candidate
+   * first. A candidate is typically the object that returned the lower bound
+   * of the query scope in a preceding GETNEXT or GETBULK request of the
+   * same walk. It is only used when the registry has not been modified
+   * since the candidate has been looked up and when its scope covers the
+   * lower bound of the query. Since registrations do not overlap, no other
+   * object can then precede the candidate in lookup order. If the candidate
+   * does not match the query, a regular lookup is performed.
+   *
+   * @param query
+   *    a <code>MOQuery</code> instance.
+   * @param candidate
+   *    the <code>ManagedObject</code> to try first or <code>null</code>.
+   * @param registrationCounter
+   *    the value returned by {@link #getRegistrationCounter()} before the
+   *    candidate has been looked up.
+   * @return
+   *    the <code>ManagedObject</code> matching the query or <code>null</code>
+   *    if no such object exists.
+   * @since 1.4.4
+   */
+  public ManagedObject lookup(MOQuery query, ManagedObject candidate,
+                              int registrationCounter) {
+    if ((candidate != null) &&
+        (registrationCounter == this.registrationCounter)) {
+      OID lowerBound = query.getScope().getLowerBound();
+      if ((lowerBound != null) &&
+          DefaultMOScope.covers(candidate.getScope(),
+                                new DefaultMOScope(lowerBound, true,
+                                                   lowerBound, true)) &&
+          isMatching(candidate, query)) {
+        return candidate;
+      }
+    }
+    return lookup(query);
+  }
+
+  /**
+   * Returns a counter that is incremented whenever a managed object is
+   * registered or unregistered with this server. The counter is used to
+   * validate candidates for {@link #lookup(MOQuery, ManagedObject, int)}.
+   *
+   * @return
+   *    the current registration counter.
+   * @since 1.4.4
+   */
+  public int getRegistrationCounter() {
+    return registrationCounter;
+  }
+
+  private void incrementRegistrationCounter() {
+    synchronized (registry) {
+      registrationCounter++;
+    }
+  }
+
   /**
    * Checks {@link #updateStrategy} whether the queried managed object needs
    * to be updated. This method is called on behalf of
    * {@link #lookup(MOQuery query)} after {@link #fireQueryEvent} and before
    * {@link #fireLookupEvent} is being called.
+   * If the update strategy is also an {@link UpdateExecutor}, the update is
+   * performed by the strategy.
    *
    * @param mo
    *    an UpdatableManagedObject instance.
@@ -116,7 +185,12 @@ public class DefaultMOServer implements MOServer {
           logger.debug("Updating UpdatableManagedObject "+mo+
                        " on behalf of query "+query);
         }
-        mo.update(query);
+        if (updateStrategy instanceof UpdateExecutor) {
+          ((UpdateExecutor)updateStrategy).executeUpdate(this, mo, query);
+        }
+        else {
+          mo.update(query);
+        }
       }
     }
   }
@@ -279,9 +353,32 @@ public class DefaultMOServer implements MOServer {
     this.updateStrategy = updateStrategy;
   }
 
+  /**
+   * Registers a managed object. If the same managed object has been
+   * unregistered for the same context while it was locked by a request and
+   * that unregistration is still pending, the unregistration is canceled
+   * and the existing registration is kept.
+   *
+   * @param mo
+   *    a <code>ManagedObject</code> instance.
+   * @param context
+   *    the context name for which to register the <code>mo</code> or
+   *    <code>null</code> if the managed oject is to be registered for all
+   *    contexts (including the default context).
+   * @throws DuplicateRegistrationException
+   *    if the registration conflicts (i.e. overlaps) with an already existing
+   *    registration.
+   */
   public void register(ManagedObject mo, OctetString context)
       throws DuplicateRegistrationException
   {
+    if (cancelPendingUnregistration(mo, context)) {
+      if (logger.isInfoEnabled()) {
+        logger.info("Canceled pending unregistration of MO "+mo+
+                    " in context '"+context+"'");
+      }
+      return;
+    }
     if (context == null) {
       MOContextScope contextScope =
           new DefaultMOContextScope(null, mo.getScope());
@@ -291,6 +388,7 @@ public class DefaultMOServer implements MOServer {
                                                  other.getScope());
       }
       registry.put(mo.getScope(), mo);
+      incrementRegistrationCounter();
       if (logger.isInfoEnabled()) {
         logger.info("Registered MO "+mo+" in default context with scope "+
                      mo.getScope());
@@ -304,6 +402,7 @@ public class DefaultMOServer implements MOServer {
         throw new DuplicateRegistrationException(contextScope, other.getScope());
       }
       registry.put(contextScope, mo);
+      incrementRegistrationCounter();
       if (logger.isInfoEnabled()) {
         logger.info("Registered MO "+mo+" in context "+context+" with scope "+
                      contextScope);
@@ -311,7 +410,84 @@ public class DefaultMOServer implements MOServer {
     }
   }
 
+  /**
+   * Unregisters a managed object. If the managed object is currently locked
+   * by a {@link Request}, that is by a SET request, the registration is
+   * removed when the last lock on it is released. Thus, a managed object
+   * cannot be unregistered while a SET request is processing it. Use
+   * {@link #isUnregistrationPending} to check whether the removal has been
+   * deferred. Locks held by other owners do not defer the removal.
+   *
+   * @param mo
+   *    the <code>ManagedObject</code> to remove from the server.
+   * @param context
+   *    the context name for which to unregister the <code>mo</code> or
+   *    <code>null</code> if the managed oject is to be unregistered for all
+   *    contexts.
+   */
   public void unregister(ManagedObject mo, OctetString context) {
+    synchronized (this) {
+      Lock lock = (Lock) lockList.get(mo);
+      if ((lock != null) && (lock.getOwner() instanceof Request)) {
+        if (pendingUnregistrations == null) {
+          pendingUnregistrations = new IdentityHashMap(4);
+        }
+        List contexts = (List) pendingUnregistrations.get(mo);
+        if (contexts == null) {
+          contexts = new ArrayList(1);
+          pendingUnregistrations.put(mo, contexts);
+        }
+        contexts.add(context);
+        if (logger.isInfoEnabled()) {
+          logger.info("Deferred unregistration of locked MO " + mo +
+                      " in context '" + context + "'");
+        }
+        return;
+      }
+    }
+    removeRegistration(mo, context);
+  }
+
+  /**
+   * Checks whether the removal of a registration by {@link #unregister} has
+   * been deferred until a SET request releases its lock on the managed
+   * object.
+   *
+   * @param mo
+   *    a <code>ManagedObject</code>.
+   * @param context
+   *    the context name given to {@link #unregister}.
+   * @return
+   *    <code>true</code> if the registration of <code>mo</code> for
+   *    <code>context</code> is still present and will be removed when the
+   *    managed object is unlocked.
+   * @since 1.4.4
+   */
+  public synchronized boolean isUnregistrationPending(ManagedObject mo,
+                                                      OctetString context) {
+    if (pendingUnregistrations == null) {
+      return false;
+    }
+    List contexts = (List) pendingUnregistrations.get(mo);
+    return ((contexts != null) && contexts.contains(context));
+  }
+
+  private synchronized boolean cancelPendingUnregistration(ManagedObject mo,
+      OctetString context) {
+    if (pendingUnregistrations == null) {
+      return false;
+    }
+    List contexts = (List) pendingUnregistrations.get(mo);
+    if ((contexts != null) && contexts.remove(context)) {
+      if (contexts.isEmpty()) {
+        pendingUnregistrations.remove(mo);
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private void removeRegistration(ManagedObject mo, OctetString context) {
     MOScope key;
     if (context == null) {
       key = mo.getScope();
@@ -338,6 +514,9 @@ public class DefaultMOServer implements MOServer {
         }
       }
     }
+    if (r != null) {
+      incrementRegistrationCounter();
+    }
     if (logger.isInfoEnabled()) {
       if (r != null) {
         logger.info("Removed registration " + r + " for " + mo +
@@ -362,8 +541,8 @@ public class DefaultMOServer implements MOServer {
     return lock(owner, managedObject, 0);
   }
 
-  public boolean lock(Object owner, ManagedObject managedObject,
-                      long timeoutMillis) {
+  public synchronized boolean lock(Object owner, ManagedObject managedObject,
+                                   long timeoutMillis) {
     Lock lock;
     long start = System.currentTimeMillis();
     do {
@@ -385,8 +564,11 @@ public class DefaultMOServer implements MOServer {
               wait();
             }
             else {
-              wait(Math.max(timeoutMillis -
-                            (System.currentTimeMillis() - start), 1));
+              long wait = timeoutMillis - (System.currentTimeMillis() - start);
+              if (wait <= 0) {
+                return false;
+              }
+              wait(wait);
             }
           }
         }
@@ -426,7 +608,15 @@ public class DefaultMOServer implements MOServer {
       if (logger.isDebugEnabled()) {
         logger.debug("Removed lock on "+managedObject+ " by "+owner);
       }
-      notify();
+      notifyAll();
+      if (pendingUnregistrations != null) {
+        List contexts = (List) pendingUnregistrations.remove(managedObject);
+        if (contexts != null) {
+          for (Iterator it = contexts.iterator(); it.hasNext(); ) {
+            removeRegistration(managedObject, (OctetString) it.next());
+          }
+        }
+      }
     }
   }
 
@@ -595,11 +785,11 @@ public class DefaultMOServer implements MOServer {
   static class Lock {
     private Object owner;
     private long creationTime;
-    private int count = 0;
+    private int count;
 
     private Lock() {
       this.creationTime = System.currentTimeMillis();
-      this.count = 0;
+      this.count = 1;
     }
 
     Lock(Object owner) {
@@ -86,6 +86,14 @@ public interface MOServer {
   /**
    * Removes the registration of the supplied managed object for the specified
    * context.
+   * <p>
+   * Implementations may defer the removal while the managed object is locked
+   * by a SET request, so that the object does not vanish in the middle of
+   * the transaction. The {@link DefaultMOServer} does so; until the lock is
+   * released, the registration remains visible to lookups and a new
+   * registration of another managed object with an overlapping scope fails
+   * with a {@link DuplicateRegistrationException}. See
+   * {@link DefaultMOServer#isUnregistrationPending}.
    * @param mo
    *    a <code>ManagedObject</code> instance.
    * @param context
@@ -58,6 +58,11 @@ public interface UpdatableManagedObject extends ManagedObject {
   /**
    * Update the content of the managed object that is covered by the supplied
    * scope.
+   * <p>
+   * Since 1.4.4, update strategies that serve several queries with a single
+   * update, like the {@link CoalescingUpdateStrategy}, call this method with
+   * a <code>null</code> update scope. Implementations therefore have to
+   * support a <code>null</code> scope by updating the whole managed object.
    *
    * @param updateScope
    *    the query that triggered the update and thus defining the update scope.
@@ -0,0 +1,54 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - UpdateExecutor.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent;
+
+/**
+ * An <code>UpdateExecutor</code> performs the updates of
+ * {@link UpdatableManagedObject}s that an {@link UpdateStrategy} found
+ * necessary. If the update strategy of a {@link DefaultMOServer} also
+ * implements this interface, the server calls {@link #executeUpdate} instead
+ * of calling {@link UpdatableManagedObject#update} directly.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public interface UpdateExecutor {
+
+  /**
+   * Updates the supplied managed object on behalf of a query. When this
+   * method returns, <code>mo</code> has to contain data that is recent
+   * enough to serve the query. An executor that serves several queries with
+   * one update has to call {@link UpdatableManagedObject#update} with a
+   * <code>null</code> scope, which requests an update of the whole object.
+   *
+   * @param server
+   *    the MOServer trying to access the <code>mo</code> (can be
+   *    <code>null</code> if no such server is known).
+   * @param mo
+   *    the accessed updatable managed object.
+   * @param query
+   *    the query accessing the <code>mo</code>.
+   */
+  void executeUpdate(MOServer server,
+                     UpdatableManagedObject mo, MOQuery query);
+
+}
@@ -0,0 +1,563 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - GroupCommitChangeLog.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.io;
+
+import java.io.*;
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+
+import org.snmp4j.agent.ChangeLoggingManagedObject;
+import org.snmp4j.agent.MOContextScope;
+import org.snmp4j.agent.MOScope;
+import org.snmp4j.agent.MOServer;
+import org.snmp4j.agent.ManagedObject;
+import org.snmp4j.log.LogAdapter;
+import org.snmp4j.log.LogFactory;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+
+/**
+ * The <code>GroupCommitChangeLog</code> is a {@link MOPersistenceProvider}
+ * that extends another persistence provider (e.g., a
+ * {@link DefaultMOPersistenceProvider}) by a durable change log file.
+ * Changes logged through {@link #logChange} are collected in memory and
+ * appended to the log file in groups by a background thread, either when
+ * the configured number of changes has been collected or when the flush
+ * interval elapsed. Thus, committing a SET request does not wait for the
+ * change being synchronized with the storage device.
+ * <p>
+ * Several changes of the same instance within a group are written once only.
+ * A successful {@link #store} operation to the default URI of the
+ * underlying provider discards the changes it contains from the log. A
+ * {@link #restore} from the default URI applies the logged changes after
+ * the underlying provider restored the saved state.
+ * <p>
+ * To log the changes of SET requests, the change log has to be set with
+ * {@link org.snmp4j.agent.CommandProcessor#setChangeLog}. Changes that are
+ * still in memory when the agent terminates without calling {@link #close}
+ * or {@link #store} are lost.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class GroupCommitChangeLog
+    implements MOChangeLog, MOPersistenceProvider, Runnable {
+
+  private static final LogAdapter logger =
+      LogFactory.getLogger(GroupCommitChangeLog.class);
+
+  public static final int DEFAULT_MAX_CHANGES = 100;
+  public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+  private MOPersistenceProvider persistenceProvider;
+  private MOServer[] servers;
+  private File logFile;
+  private int maxChanges;
+  private long flushInterval;
+
+  private LinkedHashMap pendingChanges = new LinkedHashMap();
+  private Thread flusher;
+  private final Object writeLock = new Object();
+  private RandomAccessFile log;
+
+  /**
+   * Creates a change log for the supplied servers with default group commit
+   * parameters.
+   *
+   * @param persistenceProvider
+   *    the <code>MOPersistenceProvider</code> that saves and restores the
+   *    complete state of the managed objects.
+   * @param servers
+   *    the <code>MOServer</code> instances whose managed objects are restored
+   *    from the change log.
+   * @param logFileName
+   *    the path of the change log file.
+   */
+  public GroupCommitChangeLog(MOPersistenceProvider persistenceProvider,
+                              MOServer[] servers, String logFileName) {
+    this(persistenceProvider, servers, logFileName,
+         DEFAULT_MAX_CHANGES, DEFAULT_FLUSH_INTERVAL);
+  }
+
+  /**
+   * Creates a change log for the supplied servers.
+   *
+   * @param persistenceProvider
+   *    the <code>MOPersistenceProvider</code> that saves and restores the
+   *    complete state of the managed objects.
+   * @param servers
+   *    the <code>MOServer</code> instances whose managed objects are restored
+   *    from the change log.
+   * @param logFileName
+   *    the path of the change log file.
+   * @param maxChanges
+   *    the number of pending changes that causes an immediate group commit.
+   * @param flushInterval
+   *    the maximum time in milliseconds a change is kept in memory before it
+   *    is written to the log file.
+   */
+  public GroupCommitChangeLog(MOPersistenceProvider persistenceProvider,
+                              MOServer[] servers, String logFileName,
+                              int maxChanges, long flushInterval) {
+    this.persistenceProvider = persistenceProvider;
+    this.servers = servers;
+    this.logFile = new File(logFileName);
+    this.maxChanges = Math.max(1, maxChanges);
+    this.flushInterval = Math.max(1, flushInterval);
+  }
+
+  public void logChange(OctetString context, OID id, OID index,
+                        Variable[] values) {
+    Change change = new Change(context, id, index, values);
+    synchronized (this) {
+      // keep the order of the last change of an instance
+      pendingChanges.remove(change);
+      pendingChanges.put(change, change);
+      if (flusher == null) {
+        flusher = new Thread(this, "GroupCommitChangeLog");
+        flusher.setDaemon(true);
+        flusher.start();
+      }
+      else if (pendingChanges.size() >= maxChanges) {
+        notify();
+      }
+    }
+  }
+
+  /**
+   * Writes the pending changes to the change log file until {@link #close}
+   * is called.
+   */
+  public void run() {
+    while (true) {
+      synchronized (this) {
+        if (flusher != Thread.currentThread()) {
+          break;
+        }
+        if (pendingChanges.size() < maxChanges) {
+          try {
+            wait(flushInterval);
+          }
+          catch (InterruptedException ex) {
+            logger.warn("Change log flusher interrupted");
+            flusher = null;
+            break;
+          }
+        }
+      }
+      try {
+        flush();
+      }
+      catch (IOException iox) {
+        logger.error("Failed to write change log '"+logFile+"': "+
+                     iox.getMessage(), iox);
+      }
+    }
+  }
+
+  /**
+   * Writes the pending changes to the change log file and waits until they
+   * have been synchronized with the storage device.
+   *
+   * @throws IOException
+   *    if the changes could not be written. The changes are kept in memory
+   *    then and will be written again on the next flush.
+   */
+  public void flush() throws IOException {
+    synchronized (writeLock) {
+      List changes;
+      synchronized (this) {
+        if (pendingChanges.isEmpty()) {
+          return;
+        }
+        changes = new ArrayList(pendingChanges.values());
+        pendingChanges.clear();
+      }
+      long length = -1;
+      try {
+        byte[] group = encode(changes);
+        CRC32 crc = new CRC32();
+        crc.update(group);
+        RandomAccessFile f = getLog();
+        length = f.length();
+        f.seek(length);
+        f.writeInt(group.length);
+        f.writeLong(crc.getValue());
+        f.write(group);
+        f.getFD().sync();
+        if (logger.isDebugEnabled()) {
+          logger.debug("Committed "+changes.size()+" changes to change log '"+
+                       logFile+"'");
+        }
+      }
+      catch (IOException iox) {
+        if ((length >= 0) && (log != null)) {
+          try {
+            log.setLength(length);
+          }
+          catch (IOException ex) {
+            closeLog();
+          }
+        }
+        synchronized (this) {
+          // retry failed changes unless they have been changed again
+          LinkedHashMap retry = new LinkedHashMap();
+          for (Iterator it = changes.iterator(); it.hasNext(); ) {
+            Object change = it.next();
+            if (!pendingChanges.containsKey(change)) {
+              retry.put(change, change);
+            }
+          }
+          retry.putAll(pendingChanges);
+          pendingChanges = retry;
+        }
+        throw iox;
+      }
+    }
+  }
+
+  /**
+   * Writes the pending changes to the change log file and stops the
+   * background thread. The change log is started again by the next logged
+   * change.
+   *
+   * @throws IOException
+   *    if the pending changes could not be written.
+   */
+  public void close() throws IOException {
+    synchronized (this) {
+      flusher = null;
+      notify();
+    }
+    synchronized (writeLock) {
+      try {
+        flush();
+      }
+      finally {
+        closeLog();
+      }
+    }
+  }
+
+  private RandomAccessFile getLog() throws IOException {
+    if (log == null) {
+      log = new RandomAccessFile(logFile, "rw");
+    }
+    return log;
+  }
+
+  private void closeLog() {
+    if (log != null) {
+      try {
+        log.close();
+      }
+      catch (IOException iox) {
+        logger.warn("Failed to close change log '"+logFile+"': "+
+                    iox.getMessage());
+      }
+      log = null;
+    }
+  }
+
+  private static byte[] encode(List changes) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(bytes);
+    DefaultMOOutput os = new DefaultMOOutput(oos);
+    os.writeSequence(new Sequence(changes.size()));
+    for (Iterator it = changes.iterator(); it.hasNext(); ) {
+      Change change = (Change) it.next();
+      os.writeContextBegin(new Context(change.context));
+      os.writeManagedObjectBegin(new MOInfo(change.id));
+      os.writeIndexedVariables(new IndexedVariables(change.index,
+                                                    change.values));
+    }
+    os.close();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Stores the state of the managed objects with the underlying persistence
+   * provider. If stored to the default URI, the changes contained in the
+   * stored state are removed from the change log.
+   *
+   * @param uri
+   *    the URI to store the state to, or <code>null</code> for the default
+   *    URI of the underlying provider.
+   * @throws IOException
+   *    if the store operation fails.
+   */
+  public void store(String uri) throws IOException {
+    if (!isDefaultURI(uri)) {
+      persistenceProvider.store(uri);
+      return;
+    }
+    long mark;
+    synchronized (writeLock) {
+      flush();
+      mark = (logFile.exists()) ? getLog().length() : 0;
+    }
+    persistenceProvider.store(uri);
+    if (mark > 0) {
+      discard(mark);
+    }
+  }
+
+  /**
+   * Removes the first <code>length</code> bytes from the change log file.
+   * The remaining groups are written to a temporary file that then replaces
+   * the change log file.
+   *
+   * @param length
+   *    the length of the log that is covered by a stored state.
+   * @throws IOException
+   *    if the log file could not be rewritten.
+   */
+  private void discard(long length) throws IOException {
+    synchronized (writeLock) {
+      RandomAccessFile f = getLog();
+      byte[] tail = new byte[(int)(f.length() - length)];
+      f.seek(length);
+      f.readFully(tail);
+      closeLog();
+      File tmp = new File(logFile.getPath()+".tmp");
+      FileOutputStream os = new FileOutputStream(tmp);
+      try {
+        os.write(tail);
+        os.getFD().sync();
+      }
+      finally {
+        os.close();
+      }
+      if (!tmp.renameTo(logFile)) {
+        logFile.delete();
+        if (!tmp.renameTo(logFile)) {
+          throw new IOException("Failed to replace change log '"+logFile+
+                                "' by '"+tmp+"'");
+        }
+      }
+      if (logger.isDebugEnabled()) {
+        logger.debug("Discarded "+length+" bytes of stored changes from '"+
+                     logFile+"'");
+      }
+    }
+  }
+
+  /**
+   * Restores the state of the managed objects with the underlying
+   * persistence provider. If restored from the default URI, the changes in
+   * the change log are applied afterwards - even if the underlying provider
+   * failed to restore a saved state.
+   *
+   * @param uri
+   *    the URI to restore the state from, or <code>null</code> for the
+   *    default URI of the underlying provider.
+   * @param importMode
+   *    specifies how the agent's current state should be update while
+   *    restoring a previous state.
+   * @throws IOException
+   *    if the restore operation fails.
+   */
+  public void restore(String uri, int importMode) throws IOException {
+    if (!isDefaultURI(uri)) {
+      persistenceProvider.restore(uri, importMode);
+      return;
+    }
+    try {
+      persistenceProvider.restore(uri, importMode);
+    }
+    finally {
+      replay();
+    }
+  }
+
+  /**
+   * Applies all changes in the change log file to the managed objects of the
+   * associated servers. A group that has not been written completely is
+   * ignored together with all following groups.
+   *
+   * @return
+   *    the number of applied changes.
+   * @throws IOException
+   *    if the change log file cannot be read.
+   */
+  public int replay() throws IOException {
+    synchronized (writeLock) {
+      if (!logFile.exists()) {
+        return 0;
+      }
+      Map objects = buildCache();
+      RandomAccessFile f = getLog();
+      long length = f.length();
+      long pos = 0;
+      int count = 0;
+      f.seek(0);
+      while (pos + 12 <= length) {
+        int size = f.readInt();
+        long checksum = f.readLong();
+        if ((size < 0) || (pos + 12 + size > length)) {
+          break;
+        }
+        byte[] group = new byte[size];
+        f.readFully(group);
+        CRC32 crc = new CRC32();
+        crc.update(group);
+        if (crc.getValue() != checksum) {
+          break;
+        }
+        count += apply(objects, group);
+        pos += 12 + size;
+      }
+      if (pos < length) {
+        logger.warn("Ignoring "+(length-pos)+
+                    " bytes of incomplete changes at the end of '"+
+                    logFile+"'");
+        f.setLength(pos);
+      }
+      if (logger.isInfoEnabled()) {
+        logger.info("Applied "+count+" changes from change log '"+
+                    logFile+"'");
+      }
+      return count;
+    }
+  }
+
+  private static int apply(Map objects, byte[] group) throws IOException {
+    DefaultMOInput is =
+        new DefaultMOInput(new ObjectInputStream(
+            new ByteArrayInputStream(group)));
+    Sequence seq = is.readSequence();
+    int count = 0;
+    for (int i=0; i<seq.getSize(); i++) {
+      Context context = is.readContext();
+      MOInfo mo = is.readManagedObject();
+      IndexedVariables change = is.readIndexedVariables();
+      Map mos = (Map) objects.get(context.getContext());
+      ChangeLoggingManagedObject target = null;
+      if (mos != null) {
+        target = (ChangeLoggingManagedObject) mos.get(mo.getOID());
+      }
+      if ((target == null) && (context.getContext() != null)) {
+        // object may be registered for all contexts
+        mos = (Map) objects.get(null);
+        if (mos != null) {
+          target = (ChangeLoggingManagedObject) mos.get(mo.getOID());
+        }
+      }
+      if (target == null) {
+        logger.warn("Ignoring logged change for "+mo.getOID()+
+                    " in context '"+context.getContext()+
+                    "' because object is not registered");
+        continue;
+      }
+      target.applyChange(change.getIndex(), change.getValues());
+      count++;
+    }
+    return count;
+  }
+
+  private Map buildCache() {
+    Map objects = new HashMap();
+    for (int i=0; i<servers.length; i++) {
+      for (Iterator it = servers[i].iterator(); it.hasNext(); ) {
+        Entry entry = (Entry) it.next();
+        MOScope scope = (MOScope) entry.getKey();
+        ManagedObject value = (ManagedObject) entry.getValue();
+        if (value instanceof ChangeLoggingManagedObject) {
+          OctetString context = null;
+          if (scope instanceof MOContextScope) {
+            context = ((MOContextScope) scope).getContext();
+          }
+          Map mos = (Map) objects.get(context);
+          if (mos == null) {
+            mos = new HashMap();
+            objects.put(context, mos);
+          }
+          mos.put(((ChangeLoggingManagedObject) value).getID(), value);
+        }
+      }
+    }
+    return objects;
+  }
+
+  private boolean isDefaultURI(String uri) {
+    return (uri == null) || uri.equals(persistenceProvider.getDefaultURI());
+  }
+
+  public boolean isValidPersistenceURI(String uri) {
+    return persistenceProvider.isValidPersistenceURI(uri);
+  }
+
+  public String getPersistenceProviderID() {
+    return persistenceProvider.getPersistenceProviderID();
+  }
+
+  public String getDefaultURI() {
+    return persistenceProvider.getDefaultURI();
+  }
+
+  public int getMaxChanges() {
+    return maxChanges;
+  }
+
+  public long getFlushInterval() {
+    return flushInterval;
+  }
+
+  /**
+   * A logged change that is equal to another change of the same instance.
+   */
+  private static class Change {
+    private OctetString context;
+    private OID id;
+    private OID index;
+    private Variable[] values;
+
+    Change(OctetString context, OID id, OID index, Variable[] values) {
+      this.context = context;
+      this.id = id;
+      this.index = index;
+      this.values = values;
+    }
+
+    public boolean equals(Object obj) {
+      if (obj instanceof Change) {
+        Change other = (Change) obj;
+        return id.equals(other.id) &&
+            ((context == null) ? (other.context == null) :
+             context.equals(other.context)) &&
+            ((index == null) ? (other.index == null) :
+             index.equals(other.index));
+      }
+      return false;
+    }
+
+    public int hashCode() {
+      int hash = id.hashCode();
+      if (index != null) {
+        hash = hash * 31 + index.hashCode();
+      }
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - MOChangeLog.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.io;
+
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+
+/**
+ * A <code>MOChangeLog</code> records the persistent state of managed object
+ * instances changed by SET requests, so that the changes survive a restart
+ * of the agent without saving the whole agent state.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ * @see org.snmp4j.agent.ChangeLoggingManagedObject
+ */
+public interface MOChangeLog {
+
+  /**
+   * Logs the persistent state of a changed managed object instance.
+   * Implementations should not block the caller until the change has been
+   * written to persistent storage, because this method is called while
+   * the changed managed object is locked by the SET request.
+   *
+   * @param context
+   *    the context of the managed object (<code>null</code> for the default
+   *    context).
+   * @param id
+   *    the ID of the managed object as returned by
+   *    {@link org.snmp4j.agent.RegisteredManagedObject#getID()}.
+   * @param index
+   *    the index of the changed instance (e.g., the row index) or
+   *    <code>null</code> if the managed object has a single instance only.
+   * @param values
+   *    the persistent values of the instance or <code>null</code> if the
+   *    instance has been removed.
+   */
+  void logChange(OctetString context, OID id, OID index, Variable[] values);
+
+}
@@ -0,0 +1,257 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - CachedMOScalar.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import org.snmp4j.agent.MOAccess;
+import org.snmp4j.log.LogAdapter;
+import org.snmp4j.log.LogFactory;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.util.WorkerPool;
+import org.snmp4j.util.WorkerTask;
+
+/**
+ * The <code>CachedMOScalar</code> is a scalar whose value is computed by a
+ * {@link MOValueSupplier} and then cached for a time to live. Requests
+ * received within the time to live are answered with the cached value
+ * without calling the supplier again.
+ * <p>
+ * When the cached value has expired, only one thread calls the supplier.
+ * Other threads requesting the value at the same time wait for that
+ * computation and then return its result. If serving stale values is
+ * enabled, these threads return the expired value immediately instead of
+ * waiting. With a <code>WorkerPool</code> set, the computation then runs in
+ * the background and even the thread detecting the expiry does not wait.
+ * <p>
+ * Until a value has been computed successfully, and if the supplier returns
+ * <code>null</code> or throws an exception, the initial value given to the
+ * constructor is returned.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class CachedMOScalar extends MOScalar {
+
+  private static LogAdapter logger =
+      LogFactory.getLogger(CachedMOScalar.class);
+
+  private MOValueSupplier supplier;
+  private long timeToLive;
+  private boolean staleWhileRefresh;
+  private WorkerPool refreshPool;
+
+  private Variable cachedValue;
+  private long validUntil;
+  private boolean refreshing;
+
+  /**
+   * Creates a cached scalar that waits for the refresh of an expired value.
+   *
+   * @param id
+   *    the instance OID of the scalar instance.
+   * @param access
+   *    the maximum access level supported by this instance.
+   * @param initialValue
+   *    the value returned before a value has been computed.
+   * @param supplier
+   *    the <code>MOValueSupplier</code> computing the value.
+   * @param timeToLive
+   *    the number of milliseconds a computed value is returned without
+   *    computing it again.
+   */
+  public CachedMOScalar(OID id, MOAccess access, Variable initialValue,
+                        MOValueSupplier supplier, long timeToLive) {
+    this(id, access, initialValue, supplier, timeToLive, false);
+  }
+
+  /**
+   * Creates a cached scalar.
+   *
+   * @param id
+   *    the instance OID of the scalar instance.
+   * @param access
+   *    the maximum access level supported by this instance.
+   * @param initialValue
+   *    the value returned before a value has been computed.
+   * @param supplier
+   *    the <code>MOValueSupplier</code> computing the value.
+   * @param timeToLive
+   *    the number of milliseconds a computed value is returned without
+   *    computing it again.
+   * @param staleWhileRefresh
+   *    if <code>true</code>, an expired value is returned while it is being
+   *    refreshed by another thread.
+   */
+  public CachedMOScalar(OID id, MOAccess access, Variable initialValue,
+                        MOValueSupplier supplier, long timeToLive,
+                        boolean staleWhileRefresh) {
+    super(id, access, initialValue);
+    if (supplier == null) {
+      throw new NullPointerException();
+    }
+    this.supplier = supplier;
+    this.timeToLive = timeToLive;
+    this.staleWhileRefresh = staleWhileRefresh;
+    setVolatile(true);
+  }
+
+  /**
+   * Returns the cached value or computes it if it has expired.
+   * @return
+   *    the computed value or the initial value if no value could be
+   *    computed yet.
+   */
+  public Variable getValue() {
+    synchronized (this) {
+      for (;;) {
+        if ((cachedValue != null) &&
+            (System.currentTimeMillis() < validUntil)) {
+          return cachedValue;
+        }
+        if (!refreshing) {
+          refreshing = true;
+          if (staleWhileRefresh && (cachedValue != null) &&
+              (refreshPool != null) &&
+              refreshPool.tryToExecute(new RefreshTask())) {
+            return cachedValue;
+          }
+          break;
+        }
+        if (staleWhileRefresh && (cachedValue != null)) {
+          return cachedValue;
+        }
+        try {
+          while (refreshing) {
+            wait();
+          }
+        }
+        catch (InterruptedException iex) {
+          Thread.currentThread().interrupt();
+          return getCachedValue();
+        }
+        if (cachedValue != null) {
+          // result of the computation (or the previous value if it failed)
+          return cachedValue;
+        }
+      }
+    }
+    refresh();
+    return getCachedValue();
+  }
+
+  /**
+   * Computes the value by calling the supplier and updates the cache. The
+   * caller must have set the <code>refreshing</code> flag.
+   */
+  private void refresh() {
+    Variable value = null;
+    try {
+      value = supplier.computeValue(getOid());
+    }
+    catch (RuntimeException rex) {
+      logger.error("Failed to compute value of '"+getOid()+"': "+
+                   rex.getMessage(), rex);
+    }
+    finally {
+      synchronized (this) {
+        if (value != null) {
+          cachedValue = value;
+          validUntil = System.currentTimeMillis() + timeToLive;
+        }
+        refreshing = false;
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Returns the cached value without checking whether it has expired.
+   * @return
+   *    the last computed value or the initial value if no value has been
+   *    computed yet.
+   */
+  public synchronized Variable getCachedValue() {
+    if (cachedValue == null) {
+      return super.getValue();
+    }
+    return cachedValue;
+  }
+
+  /**
+   * Marks the cached value as expired, so that the next request computes
+   * the value again.
+   */
+  public synchronized void invalidate() {
+    validUntil = 0;
+  }
+
+  public synchronized void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  public synchronized long getTimeToLive() {
+    return timeToLive;
+  }
+
+  public synchronized void setStaleWhileRefresh(boolean staleWhileRefresh) {
+    this.staleWhileRefresh = staleWhileRefresh;
+  }
+
+  public synchronized boolean isStaleWhileRefresh() {
+    return staleWhileRefresh;
+  }
+
+  /**
+   * Sets the worker pool used to refresh expired values in the background
+   * when stale values are served. If no pool is set or the pool has no
+   * idle worker, the thread detecting the expiry computes the value.
+   * @param refreshPool
+   *    a <code>WorkerPool</code> or <code>null</code>.
+   */
+  public synchronized void setRefreshPool(WorkerPool refreshPool) {
+    this.refreshPool = refreshPool;
+  }
+
+  public synchronized WorkerPool getRefreshPool() {
+    return refreshPool;
+  }
+
+  public MOValueSupplier getSupplier() {
+    return supplier;
+  }
+
+  class RefreshTask implements WorkerTask {
+
+    public void run() {
+      refresh();
+    }
+
+    public void terminate() {
+    }
+
+    public void join() throws InterruptedException {
+    }
+
+    public void interrupt() {
+    }
+  }
+}
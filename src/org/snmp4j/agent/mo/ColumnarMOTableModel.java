@@ -0,0 +1,681 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - ColumnarMOTableModel.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import org.snmp4j.smi.*;
+
+/**
+ * The <code>ColumnarMOTableModel</code> is a mutable table model for very
+ * large tables that stores the values of each column in a typed direct
+ * (off-heap) <code>ByteBuffer</code> instead of holding row objects with
+ * <code>Variable</code> instances on the heap. Like the
+ * {@link NumericIndexMOTableModel}, it supports indexes of one or two
+ * sub-identifiers only, which are stored as a packed sorted array of
+ * primitive <code>long</code> keys.
+ * <p>
+ * Each row occupies a slot in the column buffers. The sorted key array
+ * refers to the slots, so that adding or removing a row moves index entries
+ * only, but never column data. Slots of removed rows are reused.
+ * <p>
+ * The rows returned by this model are views that are created on demand and
+ * decode their values from the column buffers when accessed. Setting a value
+ * of a view writes it to the column buffer. A view of a removed row returns
+ * <code>null</code> values and ignores value changes. Rows added through
+ * {@link #addRow} are copied into the column buffers.
+ * <p>
+ * The following column syntaxes are supported: <code>Integer32</code>,
+ * <code>Counter32</code>, <code>Gauge32</code>, <code>TimeTicks</code>,
+ * <code>Counter64</code>, <code>IpAddress</code> (IPv4), and
+ * <code>OCTET STRING</code> with a maximum length. Values of another type are
+ * rejected with an <code>IllegalArgumentException</code>.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class ColumnarMOTableModel implements MOMutableTableModel {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private int indexLength;
+  private int[] syntax;
+  private int[] maxLength;
+  private int[] width;
+
+  private long[] keys;
+  private int[] slots;
+  private int size;
+  private int modCount;
+
+  private ByteBuffer[] columns;
+  private BitSet[] present;
+  private int[] generations;
+  private int slotCapacity;
+  private int nextSlot;
+  private int[] freeSlots;
+  private int freeSlotCount;
+
+  protected MOTableRowFactory rowFactory;
+  private transient Vector moTableModelListeners;
+
+  /**
+   * Creates a columnar table model.
+   *
+   * @param indexLength
+   *    the number of sub-identifiers of each row index, which must be one or
+   *    two.
+   * @param columnSyntax
+   *    the SMI syntax of each column, for example
+   *    {@link SMIConstants#SYNTAX_COUNTER64}.
+   * @param maxLength
+   *    the maximum length of the values of each <code>OCTET STRING</code>
+   *    column. The values for columns of other syntaxes are ignored. May be
+   *    <code>null</code> if there are no <code>OCTET STRING</code> columns.
+   */
+  public ColumnarMOTableModel(int indexLength, int[] columnSyntax,
+                              int[] maxLength) {
+    this(indexLength, columnSyntax, maxLength, INITIAL_CAPACITY);
+  }
+
+  /**
+   * Creates a columnar table model.
+   *
+   * @param indexLength
+   *    the number of sub-identifiers of each row index, which must be one or
+   *    two.
+   * @param columnSyntax
+   *    the SMI syntax of each column, for example
+   *    {@link SMIConstants#SYNTAX_COUNTER64}.
+   * @param maxLength
+   *    the maximum length of the values of each <code>OCTET STRING</code>
+   *    column. The values for columns of other syntaxes are ignored. May be
+   *    <code>null</code> if there are no <code>OCTET STRING</code> columns.
+   * @param initialCapacity
+   *    the number of rows the model can hold before its buffers are
+   *    enlarged.
+   */
+  public ColumnarMOTableModel(int indexLength, int[] columnSyntax,
+                              int[] maxLength, int initialCapacity) {
+    NumericIndexKeys.checkIndexLength(indexLength);
+    this.indexLength = indexLength;
+    this.syntax = (int[]) columnSyntax.clone();
+    this.maxLength = new int[syntax.length];
+    this.width = new int[syntax.length];
+    for (int i=0; i<syntax.length; i++) {
+      if (syntax[i] == SMIConstants.SYNTAX_OCTET_STRING) {
+        if ((maxLength == null) || (maxLength.length <= i) ||
+            (maxLength[i] < 0) || (maxLength[i] > 0xFFFF)) {
+          throw new IllegalArgumentException("No valid maximum length for "+
+                                             "OCTET STRING column "+i);
+        }
+        this.maxLength[i] = maxLength[i];
+      }
+      width[i] = getWidth(syntax[i], this.maxLength[i]);
+    }
+    int capacity = Math.max(1, initialCapacity);
+    this.keys = new long[capacity];
+    this.slots = new int[capacity];
+    this.columns = new ByteBuffer[syntax.length];
+    this.present = new BitSet[syntax.length];
+    for (int i=0; i<syntax.length; i++) {
+      columns[i] = ByteBuffer.allocateDirect(width[i] * capacity);
+      present[i] = new BitSet(capacity);
+    }
+    this.generations = new int[capacity];
+    this.slotCapacity = capacity;
+    this.freeSlots = new int[16];
+  }
+
+  private static int getWidth(int syntax, int maxLength) {
+    switch (syntax) {
+      case SMIConstants.SYNTAX_INTEGER32:
+      case SMIConstants.SYNTAX_COUNTER32:
+      case SMIConstants.SYNTAX_GAUGE32:
+      case SMIConstants.SYNTAX_TIMETICKS:
+      case SMIConstants.SYNTAX_IPADDRESS:
+        return 4;
+      case SMIConstants.SYNTAX_COUNTER64:
+        return 8;
+      case SMIConstants.SYNTAX_OCTET_STRING:
+        return 2 + maxLength;
+      default:
+        throw new IllegalArgumentException("Unsupported column syntax: "+
+                                           syntax);
+    }
+  }
+
+  /**
+   * Returns the number of sub-identifiers of the row indexes.
+   * @return
+   *    1 or 2.
+   */
+  public int getIndexLength() {
+    return indexLength;
+  }
+
+  private Variable getValue(int slot, int column) {
+    if ((column < 0) || (column >= syntax.length) ||
+        (!present[column].get(slot))) {
+      return null;
+    }
+    ByteBuffer buf = columns[column];
+    int offset = slot * width[column];
+    switch (syntax[column]) {
+      case SMIConstants.SYNTAX_INTEGER32:
+        return new Integer32(buf.getInt(offset));
+      case SMIConstants.SYNTAX_COUNTER32:
+        return new Counter32(buf.getInt(offset) & 0xFFFFFFFFL);
+      case SMIConstants.SYNTAX_GAUGE32:
+        return new Gauge32(buf.getInt(offset) & 0xFFFFFFFFL);
+      case SMIConstants.SYNTAX_TIMETICKS:
+        return new TimeTicks(buf.getInt(offset) & 0xFFFFFFFFL);
+      case SMIConstants.SYNTAX_COUNTER64:
+        return new Counter64(buf.getLong(offset));
+      case SMIConstants.SYNTAX_IPADDRESS: {
+        byte[] address = new byte[4];
+        for (int i=0; i<address.length; i++) {
+          address[i] = buf.get(offset+i);
+        }
+        return new IpAddress(address);
+      }
+      default: {
+        byte[] value = new byte[buf.getShort(offset) & 0xFFFF];
+        for (int i=0; i<value.length; i++) {
+          value[i] = buf.get(offset+2+i);
+        }
+        return new OctetString(value);
+      }
+    }
+  }
+
+  private void setValue(int slot, int column, Variable value) {
+    if ((column < 0) || (column >= syntax.length)) {
+      if (value == null) {
+        return;
+      }
+      throw new IllegalArgumentException("Column "+column+
+                                         " does not exist in "+this);
+    }
+    if (value == null) {
+      present[column].clear(slot);
+      return;
+    }
+    if (value.getSyntax() != syntax[column]) {
+      throw new IllegalArgumentException("Value "+value+" does not match "+
+                                         "syntax of column "+column);
+    }
+    ByteBuffer buf = columns[column];
+    int offset = slot * width[column];
+    switch (syntax[column]) {
+      case SMIConstants.SYNTAX_INTEGER32:
+        buf.putInt(offset, ((Integer32)value).getValue());
+        break;
+      case SMIConstants.SYNTAX_COUNTER32:
+      case SMIConstants.SYNTAX_GAUGE32:
+      case SMIConstants.SYNTAX_TIMETICKS:
+        buf.putInt(offset, (int)((UnsignedInteger32)value).getValue());
+        break;
+      case SMIConstants.SYNTAX_COUNTER64:
+        buf.putLong(offset, ((Counter64)value).getValue());
+        break;
+      case SMIConstants.SYNTAX_IPADDRESS: {
+        InetAddress inetAddress = ((IpAddress)value).getInetAddress();
+        byte[] address = (inetAddress == null) ?
+            new byte[4] : inetAddress.getAddress();
+        if (address.length != 4) {
+          throw new IllegalArgumentException("Not an IPv4 address: "+value);
+        }
+        for (int i=0; i<address.length; i++) {
+          buf.put(offset+i, address[i]);
+        }
+        break;
+      }
+      default: {
+        byte[] v = ((OctetString)value).getValue();
+        if (v.length > maxLength[column]) {
+          throw new IllegalArgumentException("Value "+value+" exceeds "+
+                                             "maximum length of column "+
+                                             column);
+        }
+        buf.putShort(offset, (short)v.length);
+        for (int i=0; i<v.length; i++) {
+          buf.put(offset+2+i, v[i]);
+        }
+      }
+    }
+    present[column].set(slot);
+  }
+
+  private void setValues(int slot, MOTableRow row) {
+    for (int i=0; i<syntax.length; i++) {
+      setValue(slot, i, (i < row.size()) ? row.getValue(i) : null);
+    }
+  }
+
+  private MOTableRow copyRow(OID index, int slot) {
+    Variable[] values = new Variable[syntax.length];
+    for (int i=0; i<values.length; i++) {
+      values[i] = getValue(slot, i);
+    }
+    return new DefaultMOTableRow(index, values);
+  }
+
+  private int allocateSlot() {
+    if (freeSlotCount > 0) {
+      return freeSlots[--freeSlotCount];
+    }
+    if (nextSlot >= slotCapacity) {
+      growSlots(Math.max(nextSlot + 1, slotCapacity + (slotCapacity >> 1)));
+    }
+    return nextSlot++;
+  }
+
+  private void growSlots(int capacity) {
+    for (int i=0; i<columns.length; i++) {
+      ByteBuffer buf = ByteBuffer.allocateDirect(width[i] * capacity);
+      ByteBuffer old = columns[i].duplicate();
+      old.clear();
+      buf.put(old);
+      columns[i] = buf;
+    }
+    int[] g = new int[capacity];
+    System.arraycopy(generations, 0, g, 0, slotCapacity);
+    generations = g;
+    slotCapacity = capacity;
+  }
+
+  private void freeSlot(int slot) {
+    for (int i=0; i<present.length; i++) {
+      present[i].clear(slot);
+    }
+    generations[slot]++;
+    if (freeSlotCount == freeSlots.length) {
+      int[] f = new int[freeSlots.length * 2];
+      System.arraycopy(freeSlots, 0, f, 0, freeSlotCount);
+      freeSlots = f;
+    }
+    freeSlots[freeSlotCount++] = slot;
+  }
+
+  private int search(long key) {
+    return NumericIndexKeys.search(keys, size, key);
+  }
+
+  private int ceiling(OID lowerBound) {
+    return NumericIndexKeys.ceiling(keys, size, lowerBound, indexLength);
+  }
+
+  public synchronized MOTableRow addRow(MOTableRow row) {
+    long key = NumericIndexKeys.toKey(row.getIndex(), indexLength);
+    int pos = search(key);
+    MOTableRow previous = null;
+    if (pos >= 0) {
+      previous = copyRow(row.getIndex(), slots[pos]);
+      setValues(slots[pos], row);
+    }
+    else {
+      int slot = allocateSlot();
+      try {
+        setValues(slot, row);
+      }
+      catch (IllegalArgumentException iaex) {
+        freeSlot(slot);
+        throw iaex;
+      }
+      pos = -(pos + 1);
+      if (size == keys.length) {
+        int capacity = keys.length + (keys.length >> 1) + 1;
+        long[] k = new long[capacity];
+        System.arraycopy(keys, 0, k, 0, size);
+        int[] s = new int[capacity];
+        System.arraycopy(slots, 0, s, 0, size);
+        keys = k;
+        slots = s;
+      }
+      if (pos < size) {
+        System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+        System.arraycopy(slots, pos, slots, pos + 1, size - pos);
+      }
+      keys[pos] = key;
+      slots[pos] = slot;
+      size++;
+      modCount++;
+    }
+    if (moTableModelListeners != null) {
+      MOTableModelEvent event =
+         new MOTableModelEvent(this, MOTableModelEvent.ROW_ADDED,
+                               new ColumnarRow(pos, null));
+      fireTableModelChanged(event);
+    }
+    return previous;
+  }
+
+  public synchronized MOTableRow removeRow(OID index) {
+    if (!NumericIndexKeys.isValidIndex(index, indexLength)) {
+      return null;
+    }
+    int pos = search(NumericIndexKeys.toKey(index, indexLength));
+    if (pos < 0) {
+      return null;
+    }
+    MOTableRow row = copyRow(index, slots[pos]);
+    remove(pos);
+    if (moTableModelListeners != null) {
+      MOTableModelEvent event =
+         new MOTableModelEvent(this, MOTableModelEvent.ROW_REMOVED, row);
+      fireTableModelChanged(event);
+    }
+    return row;
+  }
+
+  private void remove(int pos) {
+    freeSlot(slots[pos]);
+    int moved = size - pos - 1;
+    if (moved > 0) {
+      System.arraycopy(keys, pos + 1, keys, pos, moved);
+      System.arraycopy(slots, pos + 1, slots, pos, moved);
+    }
+    size--;
+    modCount++;
+  }
+
+  public synchronized void clear() {
+    fireTableModelChanged(new MOTableModelEvent(this,
+                                                MOTableModelEvent.TABLE_CLEAR));
+    for (int i=0; i<size; i++) {
+      generations[slots[i]]++;
+    }
+    for (int i=0; i<present.length; i++) {
+      present[i].clear();
+    }
+    size = 0;
+    nextSlot = 0;
+    freeSlotCount = 0;
+    modCount++;
+  }
+
+  public synchronized void clear(MOTableRowFilter filter) {
+    for (int i=size-1; i>=0; i--) {
+      MOTableRow row = new ColumnarRow(i, null);
+      if (!filter.passesFilter(row)) {
+        if (moTableModelListeners != null) {
+          row = copyRow(row.getIndex(), slots[i]);
+        }
+        remove(i);
+        if (moTableModelListeners != null) {
+          MOTableModelEvent event =
+             new MOTableModelEvent(this, MOTableModelEvent.ROW_REMOVED, row);
+          fireTableModelChanged(event);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates a new row with the supplied values that can be added to this
+   * model with {@link #addRow}. If no row factory has been set, a
+   * {@link DefaultMOMutableRow2PC} is created.
+   *
+   * @param index
+   *    the index OID for the new row.
+   * @param values
+   *    the values to be contained in the new row.
+   * @return
+   *    the created <code>MOTableRow</code>.
+   * @throws UnsupportedOperationException
+   *    if the index does not have the index length of this model.
+   */
+  public MOTableRow createRow(OID index, Variable[] values)
+      throws UnsupportedOperationException
+  {
+    if (!NumericIndexKeys.isValidIndex(index, indexLength)) {
+      throw new UnsupportedOperationException("Index '"+index+
+                                              "' does not have length "+
+                                              indexLength);
+    }
+    if (rowFactory == null) {
+      return new DefaultMOMutableRow2PC(index, values);
+    }
+    return rowFactory.createRow(index, values);
+  }
+
+  public void freeRow(MOTableRow row) {
+    if (rowFactory != null) {
+      rowFactory.freeRow(row);
+    }
+  }
+
+  public MOTableRowFactory getRowFactory() {
+    return rowFactory;
+  }
+
+  public void setRowFactory(MOTableRowFactory rowFactory) {
+    this.rowFactory = rowFactory;
+  }
+
+  public int getColumnCount() {
+    return syntax.length;
+  }
+
+  public synchronized int getRowCount() {
+    return size;
+  }
+
+  public synchronized boolean containsRow(OID index) {
+    return NumericIndexKeys.isValidIndex(index, indexLength) &&
+        (search(NumericIndexKeys.toKey(index, indexLength)) >= 0);
+  }
+
+  public synchronized MOTableRow getRow(OID index) {
+    if (!NumericIndexKeys.isValidIndex(index, indexLength)) {
+      return null;
+    }
+    int pos = search(NumericIndexKeys.toKey(index, indexLength));
+    return (pos >= 0) ? new ColumnarRow(pos, index) : null;
+  }
+
+  public synchronized Iterator iterator() {
+    return new RowIterator(0);
+  }
+
+  public synchronized Iterator tailIterator(OID lowerBound) {
+    if (lowerBound == null) {
+      return iterator();
+    }
+    return new RowIterator(ceiling(lowerBound));
+  }
+
+  public synchronized OID firstIndex() {
+    return (size > 0) ? NumericIndexKeys.toIndex(keys[0], indexLength) : null;
+  }
+
+  public synchronized OID lastIndex() {
+    return (size > 0) ?
+        NumericIndexKeys.toIndex(keys[size-1], indexLength) : null;
+  }
+
+  public synchronized MOTableRow firstRow() {
+    return (size > 0) ? new ColumnarRow(0, null) : null;
+  }
+
+  public synchronized MOTableRow lastRow() {
+    return (size > 0) ? new ColumnarRow(size-1, null) : null;
+  }
+
+  public synchronized void addMOTableModelListener(MOTableModelListener l) {
+    if (moTableModelListeners == null) {
+      moTableModelListeners = new Vector(2);
+    }
+    moTableModelListeners.add(l);
+  }
+
+  public synchronized void removeMOTableModelListener(MOTableModelListener l) {
+    if (moTableModelListeners != null) {
+      moTableModelListeners.remove(l);
+    }
+  }
+
+  protected void fireTableModelChanged(MOTableModelEvent event) {
+    if (moTableModelListeners != null) {
+      Vector listeners = moTableModelListeners;
+      int count = listeners.size();
+      for (int i = 0; i < count; i++) {
+        ((MOTableModelListener) listeners.get(i)).tableModelChanged(event);
+      }
+    }
+  }
+
+  /**
+   * A view on a row of the column buffers.
+   */
+  private class ColumnarRow implements MOMutableTableRow {
+
+    private long key;
+    private OID index;
+    private int slot;
+    private int generation;
+    private MOTableRow baseRow;
+
+    ColumnarRow(int pos, OID index) {
+      this.key = keys[pos];
+      this.slot = slots[pos];
+      this.generation = generations[slot];
+      this.index = index;
+    }
+
+    public OID getIndex() {
+      if (index == null) {
+        index = NumericIndexKeys.toIndex(key, indexLength);
+      }
+      return index;
+    }
+
+    public Variable getValue(int column) {
+      synchronized (ColumnarMOTableModel.this) {
+        if (generation != generations[slot]) {
+          return null;
+        }
+        return ColumnarMOTableModel.this.getValue(slot, column);
+      }
+    }
+
+    public void setValue(int column, Variable value) {
+      synchronized (ColumnarMOTableModel.this) {
+        if (generation == generations[slot]) {
+          ColumnarMOTableModel.this.setValue(slot, column, value);
+        }
+      }
+    }
+
+    public MOTableRow getBaseRow() {
+      return baseRow;
+    }
+
+    public void setBaseRow(MOTableRow baseRow) {
+      this.baseRow = baseRow;
+    }
+
+    public int size() {
+      return syntax.length;
+    }
+
+    public String toString() {
+      StringBuffer buf = new StringBuffer("ColumnarRow[index=");
+      buf.append(getIndex());
+      buf.append(",values=[");
+      for (int i=0; i<size(); i++) {
+        if (i > 0) {
+          buf.append(',');
+        }
+        buf.append(getValue(i));
+      }
+      buf.append("]]");
+      return buf.toString();
+    }
+  }
+
+  /**
+   * Iterates over row views starting at a position.
+   */
+  private class RowIterator implements Iterator {
+
+    private int cursor;
+    private int last = -1;
+    private int expectedModCount;
+
+    RowIterator(int start) {
+      this.cursor = start;
+      this.expectedModCount = modCount;
+    }
+
+    public boolean hasNext() {
+      synchronized (ColumnarMOTableModel.this) {
+        checkForComodification();
+        return (cursor < size);
+      }
+    }
+
+    public Object next() {
+      synchronized (ColumnarMOTableModel.this) {
+        checkForComodification();
+        if (cursor >= size) {
+          throw new NoSuchElementException();
+        }
+        last = cursor++;
+        return new ColumnarRow(last, null);
+      }
+    }
+
+    public void remove() {
+      synchronized (ColumnarMOTableModel.this) {
+        if (last < 0) {
+          throw new IllegalStateException();
+        }
+        checkForComodification();
+        MOTableRow row = null;
+        if (moTableModelListeners != null) {
+          row = copyRow(NumericIndexKeys.toIndex(keys[last], indexLength),
+                        slots[last]);
+        }
+        ColumnarMOTableModel.this.remove(last);
+        cursor = last;
+        last = -1;
+        expectedModCount = modCount;
+        if (row != null) {
+          MOTableModelEvent event =
+             new MOTableModelEvent(ColumnarMOTableModel.this,
+                                   MOTableModelEvent.ROW_REMOVED, row);
+          fireTableModelChanged(event);
+        }
+      }
+    }
+
+    private void checkForComodification() {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+    }
+  }
+}
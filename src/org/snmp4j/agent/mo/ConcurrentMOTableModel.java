@@ -0,0 +1,573 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - ConcurrentMOTableModel.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import java.util.*;
+
+import org.snmp4j.smi.*;
+
+/**
+ * The <code>ConcurrentMOTableModel</code> is a mutable table model that can
+ * be read without locking while it is being modified by other threads. The
+ * rows are stored in an immutable balanced tree that is replaced on each
+ * modification by copying the path from the root to the modified node.
+ * Modifications are serialized on a lock that is private to the model, thus
+ * a thread that updates many rows does not block threads that look up or
+ * iterate rows, including those that synchronize on the model like
+ * {@link DefaultMOTable}.
+ * <p>
+ * Iterators returned by this model operate on the rows present when the
+ * iterator was created. They never throw a
+ * <code>ConcurrentModificationException</code> and do not reflect rows added
+ * or removed afterwards. Removing a row through an iterator removes it from
+ * the model.
+ * <p>
+ * Besides the operations of {@link MOMutableTableModel}, the model provides
+ * atomic compound operations to add a row only if absent, and to replace or
+ * remove a row only if it is still the expected row instance.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class ConcurrentMOTableModel implements MOMutableTableModel {
+
+  private volatile Node root;
+  private volatile int columnCount;
+  private final Object updateLock = new Object();
+
+  protected MOTableRowFactory rowFactory;
+  private transient Vector moTableModelListeners;
+
+  public ConcurrentMOTableModel() {
+  }
+
+  public MOTableRow addRow(MOTableRow row) {
+    synchronized (updateLock) {
+      MOTableRow[] previous = new MOTableRow[1];
+      root = insert(root, row.getIndex(), row, previous);
+      this.columnCount = Math.max(row.size(), columnCount);
+      fireRowAdded(row);
+      return previous[0];
+    }
+  }
+
+  /**
+   * Adds a row to the model if there is no row with the same index.
+   *
+   * @param row
+   *    the <code>MOTableRow</code> to add.
+   * @return
+   *    <code>null</code> if the row has been added, or the row already
+   *    contained in the model with the index of <code>row</code>.
+   */
+  public MOTableRow addRowIfAbsent(MOTableRow row) {
+    synchronized (updateLock) {
+      MOTableRow existingRow = getRow(row.getIndex());
+      if (existingRow == null) {
+        root = insert(root, row.getIndex(), row, new MOTableRow[1]);
+        this.columnCount = Math.max(row.size(), columnCount);
+        fireRowAdded(row);
+      }
+      return existingRow;
+    }
+  }
+
+  /**
+   * Replaces a row of the model if it is still the expected row instance.
+   *
+   * @param expectedRow
+   *    the row that has to be contained in the model with the index of
+   *    <code>newRow</code>.
+   * @param newRow
+   *    the row replacing <code>expectedRow</code>.
+   * @return
+   *    <code>true</code> if the row has been replaced, <code>false</code>
+   *    if the model contains another row or no row with that index.
+   */
+  public boolean replaceRow(MOTableRow expectedRow, MOTableRow newRow) {
+    synchronized (updateLock) {
+      if ((expectedRow == null) ||
+          (getRow(newRow.getIndex()) != expectedRow)) {
+        return false;
+      }
+      root = insert(root, newRow.getIndex(), newRow, new MOTableRow[1]);
+      this.columnCount = Math.max(newRow.size(), columnCount);
+      fireRowAdded(newRow);
+      return true;
+    }
+  }
+
+  public MOTableRow removeRow(OID index) {
+    synchronized (updateLock) {
+      MOTableRow[] removed = new MOTableRow[1];
+      root = delete(root, index, removed);
+      fireRowRemoved(removed[0]);
+      return removed[0];
+    }
+  }
+
+  /**
+   * Removes a row from the model if it is still the expected row instance.
+   *
+   * @param expectedRow
+   *    the row to remove.
+   * @return
+   *    <code>true</code> if the row has been removed, <code>false</code>
+   *    if the model contains another row or no row with that index.
+   */
+  public boolean removeRow(MOTableRow expectedRow) {
+    synchronized (updateLock) {
+      if (getRow(expectedRow.getIndex()) != expectedRow) {
+        return false;
+      }
+      root = delete(root, expectedRow.getIndex(), new MOTableRow[1]);
+      fireRowRemoved(expectedRow);
+      return true;
+    }
+  }
+
+  /**
+   * Removes all rows in the specified index range as a single atomic
+   * operation.
+   *
+   * @param lowerBoundIncl
+   *    the lower bound of the indexes to remove (inclusive) or
+   *    <code>null</code> to remove from the first row.
+   * @param upperBoundExcl
+   *    the upper bound of the indexes to remove (exclusive) or
+   *    <code>null</code> to remove up to the last row.
+   */
+  public void removeRows(OID lowerBoundIncl, OID upperBoundExcl) {
+    synchronized (updateLock) {
+      Node r = root;
+      MOTableRow[] removed = new MOTableRow[1];
+      for (Iterator it = new RowIterator(root, lowerBoundIncl, null);
+           it.hasNext(); ) {
+        MOTableRow row = (MOTableRow) it.next();
+        if ((upperBoundExcl != null) &&
+            (upperBoundExcl.compareTo(row.getIndex()) <= 0)) {
+          break;
+        }
+        r = delete(r, row.getIndex(), removed);
+        fireRowRemoved(row);
+      }
+      root = r;
+    }
+  }
+
+  /**
+   * Returns a lexicographic ordered list of the rows in the specified index
+   * range.
+   * @param lowerBound
+   *    the lower bound index (inclusive) for the rows in the returned list.
+   * @param upperBoundEx
+   *    the upper bound index (exclusive) for the rows in the returned list.
+   * @return
+   *    the possibly empty lexicographically ordered <code>List</code>
+   *    of rows of this table model in the specified index range.
+   */
+  public List getRows(OID lowerBound, OID upperBoundEx) {
+    return getRows(lowerBound, upperBoundEx, null);
+  }
+
+  /**
+   * Returns a lexicographic ordered list of the rows in the specified index
+   * range that match the supplied filter.
+   * @param lowerBound
+   *    the lower bound index (inclusive) for the rows in the returned list.
+   * @param upperBoundEx
+   *    the upper bound index (exclusive) for the rows in the returned list.
+   * @param filter
+   *    the filter to exclude rows in the range from the returned list, or
+   *    <code>null</code> to return all rows in the range.
+   * @return
+   *    the possibly empty lexicographically ordered <code>List</code>
+   *    of rows of this table model in the specified index range.
+   */
+  public List getRows(OID lowerBound, OID upperBoundEx,
+                      MOTableRowFilter filter) {
+    List result = new ArrayList();
+    for (Iterator it = new RowIterator(root, lowerBound, null);
+         it.hasNext(); ) {
+      MOTableRow row = (MOTableRow) it.next();
+      if ((upperBoundEx != null) &&
+          (upperBoundEx.compareTo(row.getIndex()) <= 0)) {
+        break;
+      }
+      if ((filter == null) || filter.passesFilter(row)) {
+        result.add(row);
+      }
+    }
+    return result;
+  }
+
+  public void clear() {
+    synchronized (updateLock) {
+      fireTableModelChanged(
+          new MOTableModelEvent(this, MOTableModelEvent.TABLE_CLEAR));
+      root = null;
+    }
+  }
+
+  /**
+   * Remove all rows that do not match the given filter criteria
+   * from the model as a single atomic operation.
+   * @param filter
+   *    the <code>MOTableRowFilter</code> that filters out the rows to
+   *    delete.
+   */
+  public void clear(MOTableRowFilter filter) {
+    synchronized (updateLock) {
+      Node r = root;
+      MOTableRow[] removed = new MOTableRow[1];
+      for (Iterator it = new RowIterator(root, null, null); it.hasNext(); ) {
+        MOTableRow row = (MOTableRow) it.next();
+        if (!filter.passesFilter(row)) {
+          r = delete(r, row.getIndex(), removed);
+          fireRowRemoved(row);
+        }
+      }
+      root = r;
+    }
+  }
+
+  public MOTableRow createRow(OID index, Variable[] values)
+      throws UnsupportedOperationException
+  {
+    if (rowFactory == null) {
+      throw new UnsupportedOperationException("No row factory");
+    }
+    return rowFactory.createRow(index, values);
+  }
+
+  public void freeRow(MOTableRow row) {
+    if (rowFactory != null) {
+      rowFactory.freeRow(row);
+    }
+  }
+
+  public MOTableRowFactory getRowFactory() {
+    return rowFactory;
+  }
+
+  public void setRowFactory(MOTableRowFactory rowFactory) {
+    this.rowFactory = rowFactory;
+  }
+
+  public int getColumnCount() {
+    return columnCount;
+  }
+
+  public void setColumnCount(int columnCount) {
+    this.columnCount = columnCount;
+  }
+
+  public int getRowCount() {
+    Node r = root;
+    return (r == null) ? 0 : r.size;
+  }
+
+  public boolean containsRow(OID index) {
+    return (getRow(index) != null);
+  }
+
+  public MOTableRow getRow(OID index) {
+    Node n = root;
+    while (n != null) {
+      int c = index.compareTo(n.index);
+      if (c == 0) {
+        return n.row;
+      }
+      n = (c < 0) ? n.left : n.right;
+    }
+    return null;
+  }
+
+  public Iterator iterator() {
+    return new RowIterator(root, null, this);
+  }
+
+  public Iterator tailIterator(OID lowerBound) {
+    return new RowIterator(root, lowerBound, this);
+  }
+
+  public OID firstIndex() {
+    MOTableRow row = firstRow();
+    return (row == null) ? null : row.getIndex();
+  }
+
+  public OID lastIndex() {
+    MOTableRow row = lastRow();
+    return (row == null) ? null : row.getIndex();
+  }
+
+  public MOTableRow firstRow() {
+    Node n = root;
+    if (n == null) {
+      return null;
+    }
+    while (n.left != null) {
+      n = n.left;
+    }
+    return n.row;
+  }
+
+  public MOTableRow lastRow() {
+    Node n = root;
+    if (n == null) {
+      return null;
+    }
+    while (n.right != null) {
+      n = n.right;
+    }
+    return n.row;
+  }
+
+  public synchronized void addMOTableModelListener(MOTableModelListener l) {
+    if (moTableModelListeners == null) {
+      moTableModelListeners = new Vector(2);
+    }
+    moTableModelListeners.add(l);
+  }
+
+  public synchronized void removeMOTableModelListener(MOTableModelListener l) {
+    if (moTableModelListeners != null) {
+      moTableModelListeners.remove(l);
+    }
+  }
+
+  private void fireRowAdded(MOTableRow row) {
+    if (moTableModelListeners != null) {
+      MOTableModelEvent event =
+         new MOTableModelEvent(this, MOTableModelEvent.ROW_ADDED, row);
+      fireTableModelChanged(event);
+    }
+  }
+
+  private void fireRowRemoved(MOTableRow row) {
+    if ((row != null) && (moTableModelListeners != null)) {
+      MOTableModelEvent event =
+         new MOTableModelEvent(this, MOTableModelEvent.ROW_REMOVED, row);
+      fireTableModelChanged(event);
+    }
+  }
+
+  protected void fireTableModelChanged(MOTableModelEvent event) {
+    if (moTableModelListeners != null) {
+      Vector listeners = moTableModelListeners;
+      int count = listeners.size();
+      for (int i = 0; i < count; i++) {
+        ((MOTableModelListener) listeners.get(i)).tableModelChanged(event);
+      }
+    }
+  }
+
+  /**
+   * Checks the order, balance, heights and sizes of the row tree. Used by
+   * the unit tests.
+   * @return
+   *    the height of the tree.
+   * @throws IllegalStateException
+   *    if an invariant of the tree is violated.
+   */
+  int checkTree() {
+    return checkTree(root, null, null);
+  }
+
+  private static int checkTree(Node n, OID lowerBoundEx, OID upperBoundEx) {
+    if (n == null) {
+      return 0;
+    }
+    if (((lowerBoundEx != null) && (n.index.compareTo(lowerBoundEx) <= 0)) ||
+        ((upperBoundEx != null) && (n.index.compareTo(upperBoundEx) >= 0))) {
+      throw new IllegalStateException("Node "+n.index+" out of order");
+    }
+    int hl = checkTree(n.left, lowerBoundEx, n.index);
+    int hr = checkTree(n.right, n.index, upperBoundEx);
+    if (Math.abs(hl - hr) > 1) {
+      throw new IllegalStateException("Node "+n.index+" not balanced");
+    }
+    if ((n.height != Math.max(hl, hr) + 1) ||
+        (n.size != size(n.left) + size(n.right) + 1)) {
+      throw new IllegalStateException("Node "+n.index+" inconsistent");
+    }
+    return n.height;
+  }
+
+  private static int height(Node n) {
+    return (n == null) ? 0 : n.height;
+  }
+
+  private static int size(Node n) {
+    return (n == null) ? 0 : n.size;
+  }
+
+  private static Node balance(OID index, MOTableRow row,
+                              Node left, Node right) {
+    int hl = height(left);
+    int hr = height(right);
+    if (hl > hr + 1) {
+      if (height(left.left) >= height(left.right)) {
+        return new Node(left.index, left.row, left.left,
+                        new Node(index, row, left.right, right));
+      }
+      Node lr = left.right;
+      return new Node(lr.index, lr.row,
+                      new Node(left.index, left.row, left.left, lr.left),
+                      new Node(index, row, lr.right, right));
+    }
+    if (hr > hl + 1) {
+      if (height(right.right) >= height(right.left)) {
+        return new Node(right.index, right.row,
+                        new Node(index, row, left, right.left), right.right);
+      }
+      Node rl = right.left;
+      return new Node(rl.index, rl.row,
+                      new Node(index, row, left, rl.left),
+                      new Node(right.index, right.row, rl.right, right.right));
+    }
+    return new Node(index, row, left, right);
+  }
+
+  private static Node insert(Node n, OID index, MOTableRow row,
+                             MOTableRow[] previous) {
+    if (n == null) {
+      return new Node(index, row, null, null);
+    }
+    int c = index.compareTo(n.index);
+    if (c < 0) {
+      return balance(n.index, n.row, insert(n.left, index, row, previous),
+                     n.right);
+    }
+    else if (c > 0) {
+      return balance(n.index, n.row, n.left,
+                     insert(n.right, index, row, previous));
+    }
+    previous[0] = n.row;
+    return new Node(n.index, row, n.left, n.right);
+  }
+
+  private static Node delete(Node n, OID index, MOTableRow[] removed) {
+    if (n == null) {
+      return null;
+    }
+    int c = index.compareTo(n.index);
+    if (c < 0) {
+      Node left = delete(n.left, index, removed);
+      return (left == n.left) ? n : balance(n.index, n.row, left, n.right);
+    }
+    else if (c > 0) {
+      Node right = delete(n.right, index, removed);
+      return (right == n.right) ? n : balance(n.index, n.row, n.left, right);
+    }
+    removed[0] = n.row;
+    if (n.left == null) {
+      return n.right;
+    }
+    if (n.right == null) {
+      return n.left;
+    }
+    Node min = n.right;
+    while (min.left != null) {
+      min = min.left;
+    }
+    return balance(min.index, min.row, n.left, deleteMin(n.right));
+  }
+
+  private static Node deleteMin(Node n) {
+    if (n.left == null) {
+      return n.right;
+    }
+    return balance(n.index, n.row, deleteMin(n.left), n.right);
+  }
+
+  /**
+   * An immutable node of the row tree.
+   */
+  private static final class Node {
+    final OID index;
+    final MOTableRow row;
+    final Node left;
+    final Node right;
+    final int height;
+    final int size;
+
+    Node(OID index, MOTableRow row, Node left, Node right) {
+      this.index = index;
+      this.row = row;
+      this.left = left;
+      this.right = right;
+      this.height = Math.max(height(left), height(right)) + 1;
+      this.size = size(left) + size(right) + 1;
+    }
+  }
+
+  /**
+   * Iterates in index order over the rows of a tree starting at a lower
+   * bound.
+   */
+  private static class RowIterator implements Iterator {
+
+    private Node[] stack;
+    private int depth;
+    private Node last;
+    private ConcurrentMOTableModel model;
+
+    RowIterator(Node root, OID lowerBound, ConcurrentMOTableModel model) {
+      this.stack = new Node[height(root)];
+      this.model = model;
+      Node n = root;
+      while (n != null) {
+        if ((lowerBound == null) || (n.index.compareTo(lowerBound) >= 0)) {
+          stack[depth++] = n;
+          n = n.left;
+        }
+        else {
+          n = n.right;
+        }
+      }
+    }
+
+    public boolean hasNext() {
+      return (depth > 0);
+    }
+
+    public Object next() {
+      if (depth == 0) {
+        throw new NoSuchElementException();
+      }
+      last = stack[--depth];
+      for (Node n = last.right; n != null; n = n.left) {
+        stack[depth++] = n;
+      }
+      return last.row;
+    }
+
+    public void remove() {
+      if ((last == null) || (model == null)) {
+        throw new IllegalStateException();
+      }
+      model.removeRow(last.index);
+      last = null;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - CopyOnWriteMOMutableRow2PC.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import org.snmp4j.agent.mo.DefaultMOTable.ChangeSet;
+import org.snmp4j.agent.mo.util.VariableInterner;
+import org.snmp4j.agent.request.SubRequest;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+
+/**
+ * The <code>CopyOnWriteMOMutableRow2PC</code> is a mutable row whose values
+ * array is never modified once it has been published to readers. Each update
+ * copies the array, changes the copy, and then replaces the published array
+ * by a single volatile write. Readers like {@link DefaultMOTable#get} and
+ * {@link DefaultMOTable#next} therefore do not need to lock the table model
+ * and {@link #getSnapshot()} returns a consistent view of all columns.
+ * <p>
+ * The column values committed by a SET request are collected in a pending
+ * copy and published together by {@link #commitRow}, so readers never see a
+ * row with only some of the columns of a request changed. The same applies
+ * to {@link #undo} and {@link #undoRow}. While a request is committed or
+ * undone, {@link #setValue} changes the pending copy too. Sub-classes that
+ * overwrite {@link #commitRow}, {@link #undoRow}, or {@link #cleanupRow}
+ * have to call the super class method, and they must not modify the
+ * {@link #values} array directly.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class CopyOnWriteMOMutableRow2PC extends DefaultMOMutableRow2PC {
+
+  private volatile Variable[] published;
+  private Variable[] pending;
+
+  public CopyOnWriteMOMutableRow2PC(OID index, Variable[] values) {
+    super(index, (Variable[]) values.clone());
+    this.published = this.values;
+  }
+
+  public Variable getValue(int column) {
+    return published[column];
+  }
+
+  public int size() {
+    return published.length;
+  }
+
+  /**
+   * Returns an immutable snapshot of the published values of this row.
+   * @return
+   *    a <code>MOTableRow</code> with the index and the values of this row
+   *    that does not change when this row is updated.
+   */
+  public MOTableRow getSnapshot() {
+    return new DefaultMOTableRow(index, published);
+  }
+
+  /**
+   * Replaces all values of this row by a single atomic update.
+   * @param values
+   *    the new values of the row. The array is copied.
+   */
+  public synchronized void setValues(Variable[] values) {
+    publish((Variable[]) values.clone());
+  }
+
+  public synchronized void setValue(int column, Variable value) {
+    if (pending != null) {
+      pending[column] = value;
+    }
+    else {
+      Variable[] copy = (Variable[]) published.clone();
+      copy[column] = value;
+      publish(copy);
+    }
+  }
+
+  public void commit(SubRequest subRequest, MOTableRow changeSet, int column) {
+    synchronized (this) {
+      subRequest.setUndoValue(published[column]);
+      getPending()[column] = VariableInterner.getInstance().intern((Variable)
+          subRequest.getVariableBinding().getVariable().clone());
+    }
+    subRequest.completed();
+  }
+
+  public void undo(SubRequest subRequest, int column) {
+    if (subRequest.getUndoValue() instanceof Variable) {
+      synchronized (this) {
+        getPending()[column] = (Variable) subRequest.getUndoValue();
+      }
+    }
+    subRequest.completed();
+  }
+
+  public void commitRow(SubRequest subRequest, MOTableRow changeSet) {
+    publishPending();
+  }
+
+  public void undoRow(SubRequest request, ChangeSet changeSet) {
+    publishPending();
+  }
+
+  public void cleanupRow(SubRequest request, ChangeSet changeSet) {
+    publishPending();
+  }
+
+  private Variable[] getPending() {
+    if (pending == null) {
+      pending = (Variable[]) published.clone();
+    }
+    return pending;
+  }
+
+  private synchronized void publishPending() {
+    if (pending != null) {
+      publish(pending);
+      pending = null;
+    }
+  }
+
+  private void publish(Variable[] values) {
+    this.values = values;
+    this.published = values;
+  }
+
+  public String toString() {
+    return "CopyOnWriteMOMutableRow2PC["+toStringMembers();
+  }
+}
@@ -0,0 +1,47 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - CopyOnWriteMOMutableRow2PCFactory.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import org.snmp4j.agent.mo.util.VariableInterner;
+import org.snmp4j.smi.*;
+
+/**
+ * The <code>CopyOnWriteMOMutableRow2PCFactory</code> creates
+ * {@link CopyOnWriteMOMutableRow2PC} rows for tables whose rows are read
+ * without locking the table model.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class CopyOnWriteMOMutableRow2PCFactory
+    extends DefaultMOMutableRow2PCFactory
+{
+
+  public CopyOnWriteMOMutableRow2PCFactory() {
+  }
+
+  public MOTableRow createRow(OID index, Variable[] values) throws
+      UnsupportedOperationException {
+    VariableInterner.getInstance().intern(values);
+    return new CopyOnWriteMOMutableRow2PC(index, values);
+  }
+}
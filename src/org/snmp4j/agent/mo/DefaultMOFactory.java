@@ -26,6 +26,7 @@ import java.util.Map;
 import org.snmp4j.agent.mo.snmp.tc.TextualConvention;
 import java.util.HashMap;
 import org.snmp4j.agent.mo.snmp.SNMPv2TC;
+import org.snmp4j.agent.mo.util.VariableInterner;
 import java.util.*;
 
 /**
@@ -141,6 +142,7 @@ public class DefaultMOFactory implements MOFactory, LinkedMOFactory {
 
   public MOTableRow createRow(OID index, Variable[] values) throws
       UnsupportedOperationException {
+    VariableInterner.getInstance().intern(values);
     return new DefaultMOMutableRow2PC(index, values);
   }
 
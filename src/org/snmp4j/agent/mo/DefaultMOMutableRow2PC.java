@@ -24,6 +24,7 @@ package org.snmp4j.agent.mo;
 import org.snmp4j.agent.request.*;
 import org.snmp4j.smi.*;
 import org.snmp4j.agent.mo.DefaultMOTable.ChangeSet;
+import org.snmp4j.agent.mo.util.VariableInterner;
 
 public class DefaultMOMutableRow2PC extends DefaultMOTableRow
     implements MOMutableRow2PC {
@@ -41,8 +42,8 @@ public class DefaultMOMutableRow2PC extends DefaultMOTableRow
 
   public void commit(SubRequest subRequest, MOTableRow changeSet, int column) {
     subRequest.setUndoValue(values[column]);
-    setValue(column,
-             (Variable) subRequest.getVariableBinding().getVariable().clone());
+    setValue(column, VariableInterner.getInstance().intern((Variable)
+        subRequest.getVariableBinding().getVariable().clone()));
     subRequest.completed();
   }
 
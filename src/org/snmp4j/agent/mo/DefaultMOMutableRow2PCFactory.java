@@ -21,6 +21,7 @@
 
 package org.snmp4j.agent.mo;
 
+import org.snmp4j.agent.mo.util.VariableInterner;
 import org.snmp4j.smi.*;
 
 public class DefaultMOMutableRow2PCFactory implements MOTableRowFactory {
@@ -30,6 +31,8 @@ public class DefaultMOMutableRow2PCFactory implements MOTableRowFactory {
 
   /**
    * Creates a new <code>MOTableRow</code> row instance and returns it.
+   * If the {@link VariableInterner} is enabled, the values are replaced by
+   * their shared instances.
    *
    * @param index the index OID for the new row.
    * @param values the values to be contained in the new row.
@@ -39,6 +42,7 @@ public class DefaultMOMutableRow2PCFactory implements MOTableRowFactory {
    */
   public MOTableRow createRow(OID index, Variable[] values) throws
       UnsupportedOperationException {
+    VariableInterner.getInstance().intern(values);
     return new DefaultMOMutableRow2PC(index, values);
   }
 
@@ -32,6 +32,7 @@ public class DefaultMOMutableTableModel extends DefaultMOTableModel
 
   protected MOTableRowFactory rowFactory;
   private transient Vector moTableModelListeners;
+  private transient List secondaryIndexes;
 
   public MOTableRowFactory getRowFactory() {
     return rowFactory;
@@ -103,6 +104,9 @@ public class DefaultMOMutableTableModel extends DefaultMOTableModel
 
   public synchronized MOTableRow removeRow(OID index) {
     MOTableRow row = (MOTableRow) rows.remove(index);
+    if (row != null) {
+      unindexRow(index);
+    }
     if ((row != null) && (moTableModelListeners != null)) {
       MOTableModelEvent event =
          new MOTableModelEvent(this, MOTableModelEvent.ROW_REMOVED, row);
@@ -124,6 +128,7 @@ public class DefaultMOMutableTableModel extends DefaultMOTableModel
                                    (MOTableRow)item.getValue());
           fireTableModelChanged(event);
         }
+        unindexRow((OID)item.getKey());
         it.remove();
       }
       else {
@@ -132,10 +137,211 @@ public class DefaultMOMutableTableModel extends DefaultMOTableModel
     }
   }
 
+  /**
+   * Adds the supplied rows to this model in index order. If the model is
+   * empty, the rows are added in a single pass. Instead of an event per
+   * row, a single {@link MOTableModelEvent#ROWS_ADDED} event is fired.
+   *
+   * @param newRows
+   *    a <code>Collection</code> of <code>MOTableRow</code> instances. Rows
+   *    with an index that is already contained in the model replace the
+   *    existing rows.
+   * @since 1.4.4
+   */
+  public synchronized void addRows(Collection newRows) {
+    if (newRows.isEmpty()) {
+      return;
+    }
+    SortedMap sorted = new TreeMap();
+    for (Iterator it = newRows.iterator(); it.hasNext(); ) {
+      MOTableRow row = (MOTableRow) it.next();
+      this.columnCount = Math.max(row.size(), columnCount);
+      sorted.put(row.getIndex(), row);
+    }
+    // TreeMap builds an empty map from a sorted map in linear time
+    rows.putAll(sorted);
+    if (secondaryIndexes != null) {
+      for (Iterator it = sorted.values().iterator(); it.hasNext(); ) {
+        indexRow((MOTableRow) it.next());
+      }
+    }
+    if (moTableModelListeners != null) {
+      MOTableModelEvent event =
+          new MOTableModelEvent(this, MOTableModelEvent.ROWS_ADDED,
+                                new ArrayList(sorted.values()), null, null);
+      fireTableModelChanged(event);
+    }
+  }
+
+  /**
+   * Removes the rows with the supplied indexes from this model. Instead of
+   * an event per row, a single {@link MOTableModelEvent#ROWS_REMOVED} event
+   * is fired.
+   *
+   * @param indexes
+   *    a <code>Collection</code> of row index <code>OID</code>s.
+   * @return
+   *    the removed rows in index order.
+   * @since 1.4.4
+   */
+  public synchronized List removeRows(Collection indexes) {
+    SortedSet sorted = new TreeSet(indexes);
+    List removed = new ArrayList(sorted.size());
+    for (Iterator it = sorted.iterator(); it.hasNext(); ) {
+      MOTableRow row = (MOTableRow) rows.remove(it.next());
+      if (row != null) {
+        unindexRow(row.getIndex());
+        removed.add(row);
+      }
+    }
+    if ((moTableModelListeners != null) && (!removed.isEmpty())) {
+      MOTableModelEvent event =
+          new MOTableModelEvent(this, MOTableModelEvent.ROWS_REMOVED,
+                                null, null, removed);
+      fireTableModelChanged(event);
+    }
+    return removed;
+  }
+
+  /**
+   * Replaces the rows of this model by the supplied contents. The delta
+   * between the current rows and the new contents is computed in a single
+   * merge pass over both index ordered maps: rows whose index is not
+   * contained in <code>newContents</code> are removed, rows for new indexes
+   * are created with {@link #createRow} (or as {@link DefaultMOTableRow} if
+   * there is no row factory), and existing rows with different values are
+   * updated in place if they are {@link MOMutableTableRow} instances or
+   * replaced otherwise. Rows with unchanged values are not touched.
+   * <p>
+   * The whole operation is synchronized on this model, thus readers that
+   * synchronize on the model never see a partially replaced model. Instead
+   * of an event per row, a single {@link MOTableModelEvent#ROWS_REPLACED}
+   * event is fired if any row has been changed.
+   *
+   * @param newContents
+   *    a <code>SortedMap</code> that maps the index <code>OID</code> of each
+   *    row to its <code>Variable[]</code> values.
+   * @return
+   *    the <code>MOTableModelEvent</code> that describes the added, changed,
+   *    and removed rows.
+   * @since 1.4.4
+   */
+  public synchronized MOTableModelEvent replaceContents(SortedMap newContents) {
+    List added = new ArrayList();
+    List changed = new ArrayList();
+    List removed = new ArrayList();
+    Iterator current = rows.entrySet().iterator();
+    Iterator next = newContents.entrySet().iterator();
+    Map.Entry cur = (current.hasNext()) ? (Map.Entry) current.next() : null;
+    Map.Entry nxt = (next.hasNext()) ? (Map.Entry) next.next() : null;
+    while ((cur != null) || (nxt != null)) {
+      int c;
+      if (cur == null) {
+        c = 1;
+      }
+      else if (nxt == null) {
+        c = -1;
+      }
+      else {
+        c = ((OID) cur.getKey()).compareTo(nxt.getKey());
+      }
+      if (c < 0) {
+        removed.add(cur.getValue());
+        unindexRow((OID) cur.getKey());
+        current.remove();
+        cur = (current.hasNext()) ? (Map.Entry) current.next() : null;
+      }
+      else {
+        OID index = (OID) nxt.getKey();
+        Variable[] values = (Variable[]) nxt.getValue();
+        if (c > 0) {
+          added.add(newRow(index, values));
+        }
+        else {
+          MOTableRow row = (MOTableRow) cur.getValue();
+          if (updateRow(row, values)) {
+            indexRow(row);
+            changed.add(row);
+          }
+          else if (!hasValues(row, values)) {
+            MOTableRow newRow = newRow(index, values);
+            cur.setValue(newRow);
+            indexRow(newRow);
+            changed.add(newRow);
+          }
+          cur = (current.hasNext()) ? (Map.Entry) current.next() : null;
+        }
+        nxt = (next.hasNext()) ? (Map.Entry) next.next() : null;
+      }
+    }
+    for (Iterator it = added.iterator(); it.hasNext(); ) {
+      MOTableRow row = (MOTableRow) it.next();
+      this.columnCount = Math.max(row.size(), columnCount);
+      rows.put(row.getIndex(), row);
+      indexRow(row);
+    }
+    MOTableModelEvent event =
+        new MOTableModelEvent(this, MOTableModelEvent.ROWS_REPLACED,
+                              added, changed, removed);
+    if ((moTableModelListeners != null) &&
+        ((!added.isEmpty()) || (!changed.isEmpty()) || (!removed.isEmpty()))) {
+      fireTableModelChanged(event);
+    }
+    return event;
+  }
+
+  private MOTableRow newRow(OID index, Variable[] values) {
+    if (rowFactory == null) {
+      return new DefaultMOTableRow(index, values);
+    }
+    return createRow(index, values);
+  }
+
+  private static boolean hasValues(MOTableRow row, Variable[] values) {
+    if (row.size() != values.length) {
+      return false;
+    }
+    for (int i=0; i<values.length; i++) {
+      Variable value = row.getValue(i);
+      if ((value == null) ? (values[i] != null) : !value.equals(values[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sets the values of a mutable row that differ from the supplied values.
+   * @return
+   *    <code>true</code> if at least one value has been changed,
+   *    <code>false</code> if the values are unchanged or the row cannot be
+   *    updated in place.
+   */
+  private static boolean updateRow(MOTableRow row, Variable[] values) {
+    if ((!(row instanceof MOMutableTableRow)) ||
+        (row.size() != values.length)) {
+      return false;
+    }
+    boolean changed = false;
+    for (int i=0; i<values.length; i++) {
+      Variable value = row.getValue(i);
+      if ((value == null) ? (values[i] != null) : !value.equals(values[i])) {
+        ((MOMutableTableRow) row).setValue(i, values[i]);
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
   public synchronized void clear() {
     fireTableModelChanged(new MOTableModelEvent(this,
                                                 MOTableModelEvent.TABLE_CLEAR));
     rows.clear();
+    if (secondaryIndexes != null) {
+      for (Iterator it = secondaryIndexes.iterator(); it.hasNext(); ) {
+        ((MOTableSecondaryIndex) it.next()).clear();
+      }
+    }
   }
 
   /**
@@ -154,6 +360,7 @@ public class DefaultMOMutableTableModel extends DefaultMOTableModel
              new MOTableModelEvent(this, MOTableModelEvent.ROW_REMOVED, row);
           fireTableModelChanged(event);
         }
+        unindexRow(row.getIndex());
         it.remove();
       }
     }
@@ -210,6 +417,91 @@ public class DefaultMOMutableTableModel extends DefaultMOTableModel
     }
   }
 
+  /**
+   * Adds a secondary index to this model. The index is built from the
+   * current rows and then maintained by this model when rows are added or
+   * removed.
+   *
+   * @param keyFunction
+   *    the <code>MOTableRowKeyFunction</code> that computes the keys of a
+   *    row, for example a {@link MOTableSecondaryIndex.ColumnKeyFunction}.
+   * @return
+   *    the new <code>MOTableSecondaryIndex</code>.
+   * @since 1.4.4
+   */
+  public synchronized MOTableSecondaryIndex
+      addSecondaryIndex(MOTableRowKeyFunction keyFunction)
+  {
+    MOTableSecondaryIndex index = new MOTableSecondaryIndex(keyFunction);
+    for (Iterator it = rows.values().iterator(); it.hasNext(); ) {
+      index.add((MOTableRow) it.next());
+    }
+    if (secondaryIndexes == null) {
+      secondaryIndexes = new ArrayList(2);
+    }
+    secondaryIndexes.add(index);
+    return index;
+  }
+
+  /**
+   * Removes a secondary index from this model.
+   * @param index
+   *    a <code>MOTableSecondaryIndex</code> created by this model.
+   * @return
+   *    <code>true</code> if the index has been removed.
+   * @since 1.4.4
+   */
+  public synchronized boolean
+      removeSecondaryIndex(MOTableSecondaryIndex index)
+  {
+    if ((secondaryIndexes != null) && secondaryIndexes.remove(index)) {
+      if (secondaryIndexes.isEmpty()) {
+        secondaryIndexes = null;
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Updates the secondary indexes of this model for a row whose values have
+   * been changed in place.
+   * @param row
+   *    a row of this model.
+   * @since 1.4.4
+   */
+  public synchronized void updateSecondaryIndexes(MOTableRow row) {
+    if ((secondaryIndexes != null) && (rows.get(row.getIndex()) == row)) {
+      indexRow(row);
+    }
+  }
+
+  private void indexRow(MOTableRow row) {
+    if (secondaryIndexes != null) {
+      for (int i=0; i<secondaryIndexes.size(); i++) {
+        ((MOTableSecondaryIndex) secondaryIndexes.get(i)).add(row);
+      }
+    }
+  }
+
+  private void unindexRow(OID index) {
+    if (secondaryIndexes != null) {
+      for (int i=0; i<secondaryIndexes.size(); i++) {
+        ((MOTableSecondaryIndex) secondaryIndexes.get(i)).remove(index);
+      }
+    }
+  }
+
+  public synchronized Iterator iterator() {
+    Iterator it = super.iterator();
+    return (secondaryIndexes == null) ? it : new IndexedRowIterator(it);
+  }
+
+  public synchronized Iterator tailIterator(OID lowerBound) {
+    Iterator it = super.tailIterator(lowerBound);
+    return (secondaryIndexes == null) ? it : new IndexedRowIterator(it);
+  }
+
   public synchronized void addMOTableModelListener(MOTableModelListener l) {
     if (moTableModelListeners == null) {
       moTableModelListeners = new Vector(2);
@@ -233,6 +525,35 @@ public class DefaultMOMutableTableModel extends DefaultMOTableModel
     }
   }
 
+  /**
+   * Removes rows removed through the iterator from the secondary indexes.
+   */
+  private class IndexedRowIterator implements Iterator {
+
+    private Iterator iterator;
+    private MOTableRow last;
+
+    IndexedRowIterator(Iterator iterator) {
+      this.iterator = iterator;
+    }
+
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    public Object next() {
+      last = (MOTableRow) iterator.next();
+      return last;
+    }
+
+    public void remove() {
+      synchronized (DefaultMOMutableTableModel.this) {
+        iterator.remove();
+        unindexRow(last.getIndex());
+      }
+    }
+  }
+
   public class FilteredRowIterator implements Iterator {
 
     private Iterator iterator;
@@ -283,7 +604,11 @@ public class DefaultMOMutableTableModel extends DefaultMOTableModel
   }
 
   public MOTableRow addRow(MOTableRow row) {
-    MOTableRow newRow = super.addRow(row);
+    MOTableRow newRow;
+    synchronized (this) {
+      newRow = super.addRow(row);
+      indexRow(row);
+    }
     if (moTableModelListeners != null) {
       MOTableModelEvent event =
          new MOTableModelEvent(this, MOTableModelEvent.ROW_ADDED, row);
@@ -48,25 +48,39 @@ import org.snmp4j.smi.*;
  * @version 1.4
  */
 public class DefaultMOTable implements MOTable, MOScope,
-    SerializableManagedObject {
+    ChangeLoggingManagedObject, BulkManagedObject {
 
   private static LogAdapter logger =
       LogFactory.getLogger(DefaultMOTable.class);
 
+  private static final int MAX_ROW_CONTINUATIONS = 16;
+
   private OID oid;
   private MOTableIndex indexDef;
   private MOColumn[] columns;
+  private int[][] columnPrefixes;
   protected MOTableModel model;
 
   private boolean isVolatile;
 
   protected WeakHashMap newRows;
+  /**
+   * @deprecated
+   *    Since 1.4.4, the pending change sets of a request are stored as
+   *    processing user object of that request. This map is no longer used
+   *    and remains <code>null</code>.
+   */
   protected WeakHashMap pendingChanges;
 
   protected transient Vector moChangeListeners;
   protected transient Vector moTableRowListeners;
+  private transient Vector moTableRowAccessListeners;
 
-  private transient WeakHashMap walkCache;
+  private transient Map rowContinuations;
+
+  // keys of the processing user objects this table stores with a request
+  private final Object pendingChangesKey = new Object();
+  private final Object walkCacheKey = new Object();
 
   private static Comparator columnComparator = new Comparator() {
 
@@ -79,6 +93,13 @@ public class DefaultMOTable implements MOTable, MOScope,
     }
   };
 
+  private static Comparator rowIndexComparator = new Comparator() {
+
+    public int compare(Object o1, Object o2) {
+      return ((MOTableRow)o1).getIndex().compareTo(((MOTableRow)o2).getIndex());
+    }
+  };
+
   public DefaultMOTable(OID oid, MOTableIndex indexDef, MOColumn[] columns) {
     this(oid, indexDef, columns, new DefaultMOMutableTableModel());
   }
@@ -107,6 +128,12 @@ public class DefaultMOTable implements MOTable, MOScope,
     this.columns = columns;
     this.model = model;
     registerColumns();
+    this.columnPrefixes = new int[columns.length][];
+    for (int i=0; i<columns.length; i++) {
+      OID prefix = new OID(oid);
+      prefix.append(columns[i].getColumnID());
+      columnPrefixes[i] = prefix.getValue();
+    }
   }
 
   private void registerColumns() {
@@ -195,6 +222,88 @@ public class DefaultMOTable implements MOTable, MOScope,
     return false;
   }
 
+  /**
+   * Adds several rows to this table by a single operation. Before the rows
+   * are added, {@link MOTableRowEvent#ADD} events are fired as described by
+   * {@link #fireRowsChanged}. Rows vetoed by a listener are not added.
+   * If the table model is a {@link DefaultMOMutableTableModel}, the rows are
+   * added to the model in index order while holding its lock only once.
+   *
+   * @param rows
+   *    a <code>Collection</code> of <code>MOTableRow</code> instances.
+   * @return
+   *    the number of added rows or -1 if the table model does not support
+   *    adding rows.
+   * @since 1.4.4
+   */
+  public int addRows(Collection rows) {
+    if (!(model instanceof MOMutableTableModel)) {
+      return -1;
+    }
+    List sorted = new ArrayList(rows);
+    Collections.sort(sorted, rowIndexComparator);
+    List accepted = fireRowsChanged(sorted, MOTableRowEvent.ADD, true);
+    if (model instanceof DefaultMOMutableTableModel) {
+      ((DefaultMOMutableTableModel)model).addRows(accepted);
+    }
+    else {
+      synchronized (model) {
+        for (Iterator it = accepted.iterator(); it.hasNext(); ) {
+          ((MOMutableTableModel)model).addRow((MOTableRow) it.next());
+        }
+      }
+    }
+    return accepted.size();
+  }
+
+  /**
+   * Removes several rows from this table by a single operation. Before the
+   * rows are removed, {@link MOTableRowEvent#DELETE} events are fired as
+   * described by {@link #fireRowsChanged}. Rows vetoed by a listener are not
+   * removed. If the table model is a {@link DefaultMOMutableTableModel}, the
+   * rows are removed while holding its lock only once.
+   *
+   * @param indexes
+   *    a <code>Collection</code> of the index <code>OID</code>s of the rows
+   *    to remove.
+   * @return
+   *    the removed rows in index order or <code>null</code> if the table
+   *    model does not support row removal.
+   * @since 1.4.4
+   */
+  public List removeRows(Collection indexes) {
+    if (!(model instanceof MOMutableTableModel)) {
+      return null;
+    }
+    SortedSet sorted = new TreeSet(indexes);
+    List rows = new ArrayList(sorted.size());
+    for (Iterator it = sorted.iterator(); it.hasNext(); ) {
+      MOTableRow row = model.getRow((OID) it.next());
+      if (row != null) {
+        rows.add(row);
+      }
+    }
+    List accepted = fireRowsChanged(rows, MOTableRowEvent.DELETE, true);
+    List acceptedIndexes = new ArrayList(accepted.size());
+    for (Iterator it = accepted.iterator(); it.hasNext(); ) {
+      acceptedIndexes.add(((MOTableRow) it.next()).getIndex());
+    }
+    if (model instanceof DefaultMOMutableTableModel) {
+      return ((DefaultMOMutableTableModel)model).removeRows(acceptedIndexes);
+    }
+    List removed = new ArrayList(acceptedIndexes.size());
+    synchronized (model) {
+      for (Iterator it = acceptedIndexes.iterator(); it.hasNext(); ) {
+        MOTableRow row =
+            ((MOMutableTableModel)model).removeRow((OID) it.next());
+        if (row != null) {
+          removed.add(row);
+        }
+      }
+    }
+    return removed;
+  }
+
   public MOTableRow removeRow(OID index) {
     if (model instanceof MOMutableTableModel) {
       MOTableRow row = model.getRow(index);
@@ -242,6 +351,40 @@ public class DefaultMOTable implements MOTable, MOScope,
     return count;
   }
 
+  /**
+   * Replaces the rows of this table by the supplied contents, for example to
+   * refresh a table from its data source in {@link #update(MOScope)}. Only
+   * rows that are added, removed, or whose values differ from the supplied
+   * values are changed, see
+   * {@link DefaultMOMutableTableModel#replaceContents(SortedMap)}. Readers
+   * synchronizing on the table model do not see an empty or partially
+   * replaced table.
+   * <p>
+   * Registered {@link MOTableRowListener}s are informed about the added,
+   * removed, and updated rows after the contents have been replaced, see
+   * {@link #fireRowsChanged}. These events cannot be vetoed.
+   *
+   * @param newContents
+   *    a <code>SortedMap</code> that maps the index <code>OID</code> of each
+   *    row to its <code>Variable[]</code> values.
+   * @return
+   *    the <code>MOTableModelEvent</code> describing the added, changed, and
+   *    removed rows, or <code>null</code> if the table model is not a
+   *    {@link DefaultMOMutableTableModel}.
+   * @since 1.4.4
+   */
+  public MOTableModelEvent replaceContents(SortedMap newContents) {
+    if (!(model instanceof DefaultMOMutableTableModel)) {
+      return null;
+    }
+    MOTableModelEvent event =
+        ((DefaultMOMutableTableModel)model).replaceContents(newContents);
+    fireRowsChanged(event.getRemovedRows(), MOTableRowEvent.DELETE, false);
+    fireRowsChanged(event.getAddedRows(), MOTableRowEvent.ADD, false);
+    fireRowsChanged(event.getChangedRows(), MOTableRowEvent.UPDATED, false);
+    return event;
+  }
+
   public void commit(SubRequest request) {
     OID cellOID = request.getVariableBinding().getOid();
     MOTableCellInfo cell = getCellInfo(cellOID);
@@ -260,6 +403,12 @@ public class DefaultMOTable implements MOTable, MOScope,
           request.setErrorStatus(PDU.resourceUnavailable);
           return;
         }
+        // models that copy added rows return their own row instance
+        MOTableRow addedRow = model.getRow(cell.getIndex());
+        if ((addedRow != row) && (addedRow instanceof MOMutableTableRow)) {
+          row = (MOMutableTableRow) addedRow;
+          getNewRows(request.getRequest()).put(cell.getIndex(), row);
+        }
       }
       else {
         row = (MOMutableTableRow) model.getRow(cell.getIndex());
@@ -291,6 +440,7 @@ public class DefaultMOTable implements MOTable, MOScope,
         if (row instanceof MOMutableRow2PC) {
           ((MOMutableRow2PC) row).commitRow(request, changeSet);
         }
+        updateSecondaryIndexes(row);
         if (moTableRowListeners != null) {
           MOTableRowEvent rowEvent =
               new MOTableRowEvent(this, this, row, MOTableRowEvent.UPDATED);
@@ -309,10 +459,74 @@ public class DefaultMOTable implements MOTable, MOScope,
   }
 
   public OID getCellOID(OID index, int col) {
-    OID retval = new OID(oid);
-    retval.append(columns[col].getColumnID());
-    retval.append(index);
-    return retval;
+    return new OID(columnPrefixes[col], index.getValue());
+  }
+
+  /**
+   * Compares the OID of a cell of this table with the specified OID without
+   * creating the cell OID.
+   *
+   * @param columnID
+   *    the column ID (sub-identifier) of the cell.
+   * @param index
+   *    the row index of the cell.
+   * @param other
+   *    an OID.
+   * @return
+   *    a negative integer, zero, or a positive integer if the cell OID is
+   *    less than, equal to, or greater than <code>other</code> as defined by
+   *    {@link OID#compareTo}.
+   * @since 1.4.4
+   */
+  public int compareCellOID(int columnID, OID index, OID other) {
+    int[] prefix = oid.getValue();
+    int[] suffix = index.getValue();
+    int[] o = other.getValue();
+    int prefixLength = oid.size();
+    int cellLength = prefixLength + 1 + index.size();
+    int n = Math.min(cellLength, other.size());
+    for (int i=0; i<n; i++) {
+      int c;
+      if (i < prefixLength) {
+        c = prefix[i];
+      }
+      else if (i == prefixLength) {
+        c = columnID;
+      }
+      else {
+        c = suffix[i - prefixLength - 1];
+      }
+      if (c != o[i]) {
+        return ((c & 0xFFFFFFFFL) < (o[i] & 0xFFFFFFFFL)) ? -1 : 1;
+      }
+    }
+    return cellLength - other.size();
+  }
+
+  /**
+   * Checks whether the OID of a cell of this table is within the specified
+   * scope without creating the cell OID.
+   *
+   * @param range
+   *    a scope.
+   * @param columnID
+   *    the column ID (sub-identifier) of the cell.
+   * @param index
+   *    the row index of the cell.
+   * @return
+   *    <code>true</code> if <code>range</code> covers the cell OID.
+   * @since 1.4.4
+   */
+  protected boolean isCellCovered(MOScope range, int columnID, OID index) {
+    int lower = compareCellOID(columnID, index, range.getLowerBound());
+    if ((lower < 0) || ((lower == 0) && (!range.isLowerIncluded()))) {
+      return false;
+    }
+    if (range.getUpperBound() == null) {
+      return true;
+    }
+    int upper = compareCellOID(columnID, index, range.getUpperBound());
+    return ((upper < 0) || ((upper == 0) && (range.isUpperIncluded())));
   }
 
   private MOTableCellInfo getNextCell(int col,
@@ -334,7 +548,7 @@ public class DefaultMOTable implements MOTable, MOScope,
           if (row.getIndex().compareTo(indexLowerBound) > 0) {
             // the specified index does not exists so we can use this next one:
             return new CellInfo(row.getIndex(), i, columns[i].getColumnID(),
-                                row);
+                                row, it);
           }
         }
         indexLowerBound = null;
@@ -344,7 +558,8 @@ public class DefaultMOTable implements MOTable, MOScope,
           if (row == null) {
             continue;
           }
-          return new CellInfo(row.getIndex(), i, columns[i].getColumnID(), row);
+          return new CellInfo(row.getIndex(), i, columns[i].getColumnID(),
+                              row, it);
         }
       }
     }
@@ -366,59 +581,197 @@ public class DefaultMOTable implements MOTable, MOScope,
       if (model.getRowCount() == 0) {
         return null;
       }
-      MOTableCellInfo cellInfo = getCellInfo(range.getLowerBound());
-      int col = cellInfo.getColumn();
-      boolean exactMatch = true;
-      if (col < 0) {
-        col = (-col) - 1;
-        exactMatch = false;
+      MOTableCellInfo next = null;
+      if ((!range.isLowerIncluded()) && (rowContinuations != null)) {
+        // continue a walk with the row iterator of a previous request
+        next = getContinuedCell(range.getLowerBound());
       }
-      if (col >= columns.length) {
-        return null;
+      if (next == null) {
+        MOTableCellInfo cellInfo = getCellInfo(range.getLowerBound());
+        int col = cellInfo.getColumn();
+        boolean exactMatch = true;
+        if (col < 0) {
+          col = (-col) - 1;
+          exactMatch = false;
+        }
+        if (col >= columns.length) {
+          return null;
+        }
+        boolean lowerIncluded = (!exactMatch) || range.isLowerIncluded();
+        RowCacheEntry rowEntry = null;
+        if (request != null) {
+          rowEntry = getWalkCacheEntry(request, cellInfo, lowerIncluded);
+        }
+        if (rowEntry != null) {
+          next = new CellInfo(rowEntry.row.getIndex(),
+                              col, cellInfo.getColumnID(), rowEntry.row);
+        }
+        else {
+          next = getNextCell(col, cellInfo.getIndex(), lowerIncluded);
+          if ((request != null) && (next != null) &&
+              (next.getColumn() == col)) {
+            addWalkCacheEntry(request, cellInfo.getIndex(), lowerIncluded,
+                              ((CellInfo)next).row);
+          }
+        }
       }
-      boolean lowerIncluded = (!exactMatch) || range.isLowerIncluded();
-      RowCacheEntry rowEntry = null;
-      if (request != null) {
-        rowEntry = getWalkCacheEntry(request, cellInfo, lowerIncluded);
+      if ((next != null) &&
+          isCellCovered(range, columns[next.getColumn()].getColumnID(),
+                        next.getIndex())) {
+        return next;
       }
-      MOTableCellInfo next;
-      if (rowEntry != null) {
-        next = new CellInfo(rowEntry.row.getIndex(),
-                            col, cellInfo.getColumnID(), rowEntry.row);
+    }
+    return null;
+  }
+
+  /**
+   * Returns the cell following the supplied cell OID in the same column if a
+   * row iterator positioned at that cell has been remembered by
+   * {@link #addRowContinuation}. The caller has to hold the lock on the
+   * model.
+   * <p>
+   * The continuation is removed while its iterator is advanced. It is added
+   * again by {@link #addRowContinuation} only if {@link #next} returns the
+   * cell. Thus, no row fetched from the iterator is kept across requests,
+   * where it could have been removed from the model or a row could have
+   * been inserted before it in the meantime.
+   *
+   * @param cellOID
+   *    the cell OID returned by a preceding call of {@link #next}.
+   * @return
+   *    the successor cell or <code>null</code> if no valid continuation
+   *    exists for <code>cellOID</code>.
+   */
+  private MOTableCellInfo getContinuedCell(OID cellOID) {
+    RowContinuation c = (RowContinuation) rowContinuations.remove(cellOID);
+    if (c == null) {
+      return null;
+    }
+    MOTableRow row = null;
+    try {
+      if (c.rowIterator.hasNext()) {
+        row = (MOTableRow) c.rowIterator.next();
       }
-      else {
-        next = getNextCell(col, cellInfo.getIndex(), lowerIncluded);
-        if ((request != null) && (next != null) && (next.getColumn() == col)) {
-          addWalkCacheEntry(request, cellInfo.getIndex(), lowerIncluded,
-                            ((CellInfo)next).row);
-        }
+    }
+    catch (ConcurrentModificationException cmex) {
+      // the model has been modified since the iterator was created
+      return null;
+    }
+    if (row == null) {
+      return null;
+    }
+    // the cell of a continuation is only used by the thread that removed
+    // the continuation from the map, thus it can be reused for each step
+    if (c.cell == null) {
+      c.cell = new CellInfo(row.getIndex(), c.column,
+                            columns[c.column].getColumnID(), row,
+                            c.rowIterator);
+      c.cell.continuation = c;
+    }
+    else {
+      c.cell.reset(row.getIndex(), c.column,
+                   columns[c.column].getColumnID(), row, c.rowIterator);
+    }
+    return c.cell;
+  }
+
+  /**
+   * Remembers the position of the row iterator that returned the supplied
+   * cell, so that a subsequent GETNEXT request continuing a walk at that cell
+   * does not need to search the model again. Continuations are only used
+   * with {@link DefaultMOTableModel}, {@link NumericIndexMOTableModel}, and
+   * {@link ColumnarMOTableModel} instances, because their iterators detect
+   * concurrent modifications and all modifications are synchronized on the
+   * model.
+   *
+   * @param previousCellOID
+   *    the lower bound of the search that returned <code>cell</code>, which
+   *    is no longer needed as continuation.
+   * @param cell
+   *    the cell returned by {@link #next}.
+   */
+  private void addRowContinuation(OID previousCellOID, MOTableCellInfo cell) {
+    if ((!(cell instanceof CellInfo)) ||
+        (((CellInfo)cell).rowIterator == null) ||
+        (!((model instanceof DefaultMOTableModel) ||
+           (model instanceof NumericIndexMOTableModel) ||
+           (model instanceof ColumnarMOTableModel)))) {
+      return;
+    }
+    synchronized (model) {
+      if (rowContinuations == null) {
+        rowContinuations = new LinkedHashMap(16, 0.75f, true) {
+          protected boolean removeEldestEntry(Map.Entry eldest) {
+            return size() > MAX_ROW_CONTINUATIONS;
+          }
+        };
       }
-      if (next != null) {
-        OID cellOID = next.getCellOID();
-        if (range.isCovered(new OIDScope(cellOID))) {
-          return next;
+      RowContinuation c = ((CellInfo)cell).continuation;
+      if (previousCellOID != null) {
+        RowContinuation previous =
+            (RowContinuation) rowContinuations.remove(previousCellOID);
+        if (c == null) {
+          c = previous;
         }
       }
+      if (c == null) {
+        c = new RowContinuation(((CellInfo)cell).rowIterator,
+                                cell.getColumn());
+      }
+      else {
+        // reuse the continuation of this walk
+        c.rowIterator = ((CellInfo)cell).rowIterator;
+        c.column = cell.getColumn();
+      }
+      rowContinuations.put(cell.getCellOID(), c);
     }
-    return null;
   }
 
+  /**
+   * Remembers the row found for a search lower bound in the processing user
+   * objects of the request, so that the other sub-requests of the same
+   * request searching for the same row (for example the columns of a
+   * GETNEXT on a row) do not need to search the model again. The entry is
+   * discarded together with the request.
+   *
+   * @param request
+   *    the sub-request that searched the row.
+   * @param lowerBound
+   *    the index used as lower bound of the search.
+   * @param lowerIncluded
+   *    whether the lower bound was included in the search.
+   * @param row
+   *    the row found.
+   */
   private void addWalkCacheEntry(SubRequest request,
                                  OID lowerBound,
                                  boolean lowerIncluded,
                                  MOTableRow row) {
-    if (walkCache == null) {
-      walkCache = new WeakHashMap(4);
+    Request r = request.getRequest();
+    if (r == null) {
+      return;
+    }
+    RowCacheEntry entry =
+        (RowCacheEntry) r.getProcessingUserObject(walkCacheKey);
+    if (entry == null) {
+      r.setProcessingUserObject(walkCacheKey,
+                                new RowCacheEntry(row, lowerBound,
+                                                  lowerIncluded));
+    }
+    else {
+      entry.row = row;
+      entry.searchLowerBound = lowerBound;
+      entry.searchLowerBoundIncluded = lowerIncluded;
     }
-    walkCache.put(request.getRequest(),
-                  new RowCacheEntry(row, lowerBound, lowerIncluded));
   }
 
   private RowCacheEntry getWalkCacheEntry(SubRequest request,
                                           MOTableCellInfo cellInfo,
                                           boolean lowerIncluded) {
-    if (walkCache != null) {
-      RowCacheEntry entry = (RowCacheEntry) walkCache.get(request.getRequest());
+    Request r = request.getRequest();
+    if (r != null) {
+      RowCacheEntry entry =
+        (RowCacheEntry) r.getProcessingUserObject(walkCacheKey);
       if (entry == null) {
         return null;
       }
@@ -502,7 +855,7 @@ public class DefaultMOTable implements MOTable, MOScope,
     }
     if (updateMarker == null)  {
       if ((request != null) && (request.getRequest() != null)) {
-        request.getRequest().setProcessingUserObject(getOID(), new Object());
+        request.getRequest().setProcessingUserObject(getOID(), Boolean.TRUE);
       }
       update(range);
     }
@@ -523,6 +876,7 @@ public class DefaultMOTable implements MOTable, MOScope,
       }
       else if (col != null) {
         col.get(request, row, cell.getColumn());
+        fireRowAccessed(row);
       }
       else {
         request.getStatus().setErrorStatus(PDU.noAccess);
@@ -540,7 +894,9 @@ public class DefaultMOTable implements MOTable, MOScope,
   }
 
   public boolean next(SubRequest request) {
-    DefaultMOScope scope = new DefaultMOScope(request.getScope());
+    // the request scope is copied only if the search has to be repeated
+    MOScope scope = request.getScope();
+    DefaultMOScope nextScope = null;
     MOTableCellInfo nextCell;
     while ((nextCell = findCell(scope, request)) != null) {
       if (columns[nextCell.getColumn()].getAccess().isAccessibleForRead()) {
@@ -554,22 +910,46 @@ public class DefaultMOTable implements MOTable, MOScope,
           value = getValue(nextCell.getIndex(), nextCell.getColumn());
         }
         if (value == null) {
-          scope.setLowerBound(nextCell.getCellOID());
-          scope.setLowerIncluded(false);
+          if (nextScope == null) {
+            nextScope = new DefaultMOScope(scope);
+            scope = nextScope;
+          }
+          nextScope.setLowerBound(nextCell.getCellOID());
+          nextScope.setLowerIncluded(false);
         }
         else {
-          request.getVariableBinding().setOid(nextCell.getCellOID());
+          OID cellOID = nextCell.getCellOID();
+          OID index = nextCell.getIndex();
+          MOTableRow row = (nextCell instanceof CellInfo) ?
+              ((CellInfo)nextCell).getRow() : null;
+          // a continued cell is reused by other requests once its
+          // continuation has been added again, so it is not used afterwards
+          addRowContinuation(request.getScope().isLowerIncluded() ?
+                             null : request.getScope().getLowerBound(),
+                             nextCell);
+          request.getVariableBinding().setOid(cellOID);
           request.getVariableBinding().setVariable(value);
           request.completed();
+          if (moTableRowAccessListeners != null) {
+            if (row == null) {
+              row = model.getRow(index);
+            }
+            if (row != null) {
+              fireRowAccessed(row);
+            }
+          }
           return true;
         }
       }
       else {
         if (nextCell.getColumn()+1 < getColumnCount()) {
-          OID nextColOID = new OID(getOID());
-          nextColOID.append(columns[nextCell.getColumn()+1].getColumnID());
-          scope.setLowerBound(nextColOID);
-          scope.setLowerIncluded(false);
+          if (nextScope == null) {
+            nextScope = new DefaultMOScope(scope);
+            scope = nextScope;
+          }
+          nextScope.setLowerBound(
+              new OID(columnPrefixes[nextCell.getColumn()+1]));
+          nextScope.setLowerIncluded(false);
         }
         else {
           return false;
@@ -579,6 +959,152 @@ public class DefaultMOTable implements MOTable, MOScope,
     return false;
   }
 
+  /**
+   * Processes consecutive repetitions of a GETBULK repeater. The first
+   * repetition is processed by {@link #next(SubRequest)}. The following
+   * repetitions are then filled with the cells of the same column from a
+   * single ordered iteration over the rows of the table model. Processing
+   * stops at the end of the column, because the successor of the last cell
+   * in a column has to be searched by {@link #next(SubRequest)} again.
+   * Each row read is reported to the row access listeners.
+   *
+   * @param repetitions
+   *    the consecutive repetitions of a repeater in ascending order.
+   * @return
+   *    the number of repetitions processed.
+   * @since 1.4.4
+   */
+  public int nextBatch(SubRequest[] repetitions) {
+    if ((repetitions.length == 0) || (!next(repetitions[0]))) {
+      return 0;
+    }
+    MOTableCellInfo cell =
+        getCellInfo(repetitions[0].getVariableBinding().getOid());
+    int col = cell.getColumn();
+    OID lastIndex = cell.getIndex();
+    MOScope range = repetitions[0].getScope();
+    int processed = 1;
+    // rows read are reported after the model has been unlocked
+    List accessedRows = (moTableRowAccessListeners == null) ? null :
+        new ArrayList(repetitions.length-1);
+    synchronized (model) {
+      Iterator it = model.tailIterator(lastIndex);
+      MOTableRow row = null;
+      while ((processed < repetitions.length) && (it.hasNext())) {
+        row = (MOTableRow) it.next();
+        if ((row == null) || (row.getIndex().compareTo(lastIndex) <= 0)) {
+          continue;
+        }
+        Variable value = getValue(row, col);
+        if (value == null) {
+          continue;
+        }
+        if ((range.getUpperBound() != null) &&
+            (!isCellCovered(range, columns[col].getColumnID(),
+                            row.getIndex()))) {
+          break;
+        }
+        SubRequest sreq = repetitions[processed++];
+        sreq.getVariableBinding().setOid(getCellOID(row.getIndex(), col));
+        sreq.getVariableBinding().setVariable(value);
+        sreq.completed();
+        if (accessedRows != null) {
+          accessedRows.add(row);
+        }
+      }
+      if ((processed > 1) && (processed == repetitions.length)) {
+        // the iterator is positioned right after the last processed row
+        addRowContinuation(null, new CellInfo(row.getIndex(), col,
+                                              columns[col].getColumnID(),
+                                              row, it));
+      }
+    }
+    if (accessedRows != null) {
+      for (Iterator it = accessedRows.iterator(); it.hasNext(); ) {
+        fireRowAccessed((MOTableRow) it.next());
+      }
+    }
+    return processed;
+  }
+
+  /**
+   * Processes the repeaters of a GETBULK repetition that start after the cell
+   * of the same row (index) in different columns of this table. The row
+   * following that index is retrieved once from the table model and each
+   * such repeater is filled with the cell of its column in that row, if the
+   * column is readable and the cell has a value. If a repeater has been
+   * filled, the row is reported to the row access listeners.
+   *
+   * @param repeaters
+   *    uncompleted sub-requests of the same repetition in ascending order.
+   * @return
+   *    the number of sub-requests processed.
+   * @since 1.4.4
+   */
+  public int nextRow(SubRequest[] repeaters) {
+    OID rowIndex = null;
+    MOTableRow row = null;
+    boolean rowFound = false;
+    int processed = 0;
+    synchronized (model) {
+      for (int i=0; i<repeaters.length; i++) {
+        MOScope range = repeaters[i].getScope();
+        if (range.isLowerIncluded()) {
+          continue;
+        }
+        MOTableCellInfo cell = getCellInfo(range.getLowerBound());
+        int col = cell.getColumn();
+        if ((col < 0) || (!columns[col].getAccess().isAccessibleForRead())) {
+          continue;
+        }
+        OID index = cell.getIndex();
+        if (!rowFound) {
+          update(range, repeaters[i]);
+          rowIndex = index;
+          row = getNextRow(index);
+          rowFound = true;
+        }
+        else if ((rowIndex == null) ? (index != null) :
+                 (!rowIndex.equals(index))) {
+          continue;
+        }
+        if (row == null) {
+          break;
+        }
+        Variable value = getValue(row, col);
+        if (value == null) {
+          continue;
+        }
+        if ((range.getUpperBound() != null) &&
+            (!isCellCovered(range, columns[col].getColumnID(),
+                            row.getIndex()))) {
+          continue;
+        }
+        repeaters[i].getVariableBinding().setOid(getCellOID(row.getIndex(),
+                                                            col));
+        repeaters[i].getVariableBinding().setVariable(value);
+        repeaters[i].completed();
+        processed++;
+      }
+    }
+    if ((processed > 0) && (moTableRowAccessListeners != null)) {
+      fireRowAccessed(row);
+    }
+    return processed;
+  }
+
+  private MOTableRow getNextRow(OID index) {
+    Iterator it = model.tailIterator(index);
+    while (it.hasNext()) {
+      MOTableRow row = (MOTableRow) it.next();
+      if ((row != null) &&
+          ((index == null) || (row.getIndex().compareTo(index) > 0))) {
+        return row;
+      }
+    }
+    return null;
+  }
+
   /**
    * prepare
    *
@@ -745,12 +1271,24 @@ public class DefaultMOTable implements MOTable, MOScope,
                                       Variable[] values,
                                       boolean setDefaultValues,
                                       boolean newRow) {
+    return getChangesFromRequest(index, row, request, values, 0, values.length,
+                                 setDefaultValues, newRow);
+  }
+
+  private int getChangesFromRequest(OID index,
+                                    MOTableRow row,
+                                    SubRequest request,
+                                    Variable[] values,
+                                    int offset,
+                                    int length,
+                                    boolean setDefaultValues,
+                                    boolean newRow) {
     int lastChangedColumn = -1;
     // assign default values
     if (setDefaultValues) {
-      for (int i = 0; (i < values.length) && (i < getColumnCount()); i++) {
+      for (int i = 0; (i < length) && (i < getColumnCount()); i++) {
         if (columns[i] instanceof MOMutableColumn) {
-          values[i] = ((MOMutableColumn) columns[i]).getDefaultValue();
+          values[offset+i] = ((MOMutableColumn) columns[i]).getDefaultValue();
         }
       }
     }
@@ -761,14 +1299,14 @@ public class DefaultMOTable implements MOTable, MOScope,
       MOTableCellInfo cellInfo = getCellInfo(id);
       if (index.equals(cellInfo.getIndex())) {
         int col = cellInfo.getColumn();
-        if ((col >= 0) && (col < values.length)) {
+        if ((col >= 0) && (col < length)) {
           Variable v = sreq.getVariableBinding().getVariable();
           // check that value is really changed
           if ((v != null) &&
               ((row == null) || (newRow) ||
                (row.size() <= col) ||
                (!v.equals(row.getValue(col))))) {
-            values[col] = v;
+            values[offset+col] = v;
             lastChangedColumn = col;
           }
         }
@@ -777,6 +1315,19 @@ public class DefaultMOTable implements MOTable, MOScope,
     return lastChangedColumn;
   }
 
+  /**
+   * Updates the secondary indexes of the table model for a row whose values
+   * have been changed in place.
+   * @param row
+   *    a row of this table.
+   * @since 1.4.4
+   */
+  protected void updateSecondaryIndexes(MOTableRow row) {
+    if (model instanceof DefaultMOMutableTableModel) {
+      ((DefaultMOMutableTableModel)model).updateSecondaryIndexes(row);
+    }
+  }
+
   protected boolean hasNewRows(Object key) {
     return ((newRows != null) && (newRows.get(key) != null));
   }
@@ -793,9 +1344,9 @@ public class DefaultMOTable implements MOTable, MOScope,
     return rowMap;
   }
 
-  protected synchronized boolean isChangeSetComplete(SubRequest subRequest,
-                                                     OID index,
-                                                     int column) {
+  protected boolean isChangeSetComplete(SubRequest subRequest,
+                                        OID index,
+                                        int column) {
     ChangeSet changeSet = getPendingChangeSet(subRequest, index);
     if (changeSet != null) {
       return (changeSet.getLastChangedColumn() == column);
@@ -803,56 +1354,48 @@ public class DefaultMOTable implements MOTable, MOScope,
     return true;
   }
 
-/*
-  protected synchronized ChangeSet addPendingChange(SubRequest subRequest,
-                                                    OID index, int column,
-                                                    Variable value) {
-    if (pendingChanges == null) {
-      pendingChanges = new WeakHashMap(4);
-    }
-    Map rowMap = (Map) pendingChanges.get(subRequest.getRequest());
-    if (rowMap == null) {
-      rowMap = new HashMap(5);
-      pendingChanges.put(subRequest.getRequest(), rowMap);
-    }
-    ChangeSet changeSet = (ChangeSet) rowMap.get(index);
-    if (changeSet == null) {
-      changeSet = new ChangeSet(index, new Variable[getColumnCount()]);
-    }
-    changeSet.setValue(column, value);
-    return changeSet;
-  }
-*/
-
-  protected synchronized ChangeSet addPendingChanges(SubRequest subRequest,
-                                                     MOTableRow row,
-                                                     boolean newRow) {
-    if (pendingChanges == null) {
-      pendingChanges = new WeakHashMap(4);
-    }
-    Map rowMap = (Map) pendingChanges.get(subRequest.getRequest());
-    if (rowMap == null) {
-      rowMap = new HashMap(5);
-      pendingChanges.put(subRequest.getRequest(), rowMap);
-    }
-    Variable[] values = new Variable[getColumnCount()];
-    int lastChangedColumn =
+  /**
+   * Creates the pending change set for the specified row from the variable
+   * bindings of the request. The change sets of a request are stored as
+   * processing user object of the request (see
+   * {@link Request#setProcessingUserObject}). Thus, requests changing
+   * different rows do not contend for this table and the change sets are
+   * released together with their request.
+   *
+   * @param subRequest
+   *    the sub-request that is being prepared.
+   * @param row
+   *    the row to change.
+   * @param newRow
+   *    <code>true</code> if the row is created by the request.
+   * @return
+   *    the new change set.
+   */
+  protected ChangeSet addPendingChanges(SubRequest subRequest,
+                                        MOTableRow row,
+                                        boolean newRow) {
+    Request req = subRequest.getRequest();
+    PendingChanges changes =
+        (PendingChanges) req.getProcessingUserObject(pendingChangesKey);
+    if (changes == null) {
+      changes = new PendingChanges(req.size(), getColumnCount());
+      req.setProcessingUserObject(pendingChangesKey, changes);
+    }
+    ChangeSet changeSet = changes.allocate(row.getIndex());
+    changeSet.lastChangedColumn =
         getChangesFromRequest(row.getIndex(), row, subRequest,
-                              values, newRow, newRow);
-    ChangeSet changeSet = new ChangeSet(row.getIndex(), values);
-    changeSet.lastChangedColumn = lastChangedColumn;
-    rowMap.put(row.getIndex(), changeSet);
+                              changeSet.values, changeSet.offset,
+                              changeSet.size, newRow, newRow);
+    changes.put(changeSet);
     return changeSet;
   }
 
-
   protected ChangeSet getPendingChangeSet(SubRequest subRequest,
                                           OID index) {
-    if (pendingChanges != null) {
-      Map rowMap = (Map) pendingChanges.get(subRequest.getRequest());
-      if (rowMap != null) {
-        return (ChangeSet) rowMap.get(index);
-      }
+    PendingChanges changes = (PendingChanges)
+        subRequest.getRequest().getProcessingUserObject(pendingChangesKey);
+    if (changes != null) {
+      return changes.get(index);
     }
     return null;
   }
@@ -902,6 +1445,10 @@ public class DefaultMOTable implements MOTable, MOScope,
           isChangeSetComplete(request, row.getIndex(), cell.getColumn())) {
         ((MOMutableRow2PC)row).undoRow(request, getPendingChangeSet(request, row.getIndex()));
       }
+      if ((row != null) &&
+          isChangeSetComplete(request, row.getIndex(), cell.getColumn())) {
+        updateSecondaryIndexes(row);
+      }
     }
   }
 
@@ -1031,6 +1578,53 @@ public class DefaultMOTable implements MOTable, MOScope,
     }
   }
 
+  /**
+   * Adds a listener that is informed when a row of this table is read by a
+   * GET or GETNEXT sub-request.
+   * @param l
+   *    a <code>MOTableRowAccessListener</code>.
+   * @since 1.4.4
+   */
+  public synchronized void
+      addMOTableRowAccessListener(MOTableRowAccessListener l)
+  {
+    if (moTableRowAccessListeners == null) {
+      moTableRowAccessListeners = new Vector(2);
+    }
+    moTableRowAccessListeners.add(l);
+  }
+
+  /**
+   * Removes a row access listener.
+   * @param l
+   *    a <code>MOTableRowAccessListener</code>.
+   * @since 1.4.4
+   */
+  public synchronized void
+      removeMOTableRowAccessListener(MOTableRowAccessListener l)
+  {
+    if (moTableRowAccessListeners != null) {
+      moTableRowAccessListeners.remove(l);
+    }
+  }
+
+  /**
+   * Informs the row access listeners that a row has been read.
+   * @param row
+   *    the row that has been read.
+   * @since 1.4.4
+   */
+  protected void fireRowAccessed(MOTableRow row) {
+    if (moTableRowAccessListeners != null) {
+      Vector listeners = moTableRowAccessListeners;
+      int count = listeners.size();
+      for (int i = 0; i < count; i++) {
+        ((MOTableRowAccessListener)
+         listeners.elementAt(i)).rowAccessed(this, row);
+      }
+    }
+  }
+
   protected void fireRowChanged(MOTableRowEvent event) {
     if (moTableRowListeners != null) {
       Vector listeners = moTableRowListeners;
@@ -1041,15 +1635,81 @@ public class DefaultMOTable implements MOTable, MOScope,
     }
   }
 
+  /**
+   * Fires row events for several rows changed by a single operation.
+   * {@link MOTableRowBatchListener}s receive a single batch event for all
+   * rows (that have not been vetoed by a preceding listener). Other
+   * listeners receive an event per row.
+   *
+   * @param rows
+   *    the affected rows in index order.
+   * @param type
+   *    the event type as defined by {@link MOTableRowEvent}.
+   * @param deniable
+   *    indicates whether the listeners may veto the operation. A veto of a
+   *    batch event cancels the operation for all rows, a veto of a single
+   *    row event for that row only.
+   * @return
+   *    the rows that have not been vetoed.
+   * @since 1.4.4
+   */
+  protected List fireRowsChanged(List rows, int type, boolean deniable) {
+    if ((moTableRowListeners == null) || (rows.isEmpty())) {
+      return rows;
+    }
+    List accepted = rows;
+    Vector listeners = moTableRowListeners;
+    int count = listeners.size();
+    for (int i = 0; (i < count) && (!accepted.isEmpty()); i++) {
+      MOTableRowListener l = (MOTableRowListener) listeners.elementAt(i);
+      if (l instanceof MOTableRowBatchListener) {
+        MOTableRowEvent event =
+            new MOTableRowEvent(this, this, accepted, type, deniable);
+        ((MOTableRowBatchListener)l).rowsChanged(event);
+        if (deniable &&
+            (event.getVetoStatus() != SnmpConstants.SNMP_ERROR_SUCCESS)) {
+          return new ArrayList(0);
+        }
+      }
+      else {
+        List notVetoed = new ArrayList(accepted.size());
+        for (Iterator it = accepted.iterator(); it.hasNext(); ) {
+          MOTableRow row = (MOTableRow) it.next();
+          MOTableRowEvent event =
+              new MOTableRowEvent(this, this, row, type, deniable);
+          l.rowChanged(event);
+          if ((!deniable) ||
+              (event.getVetoStatus() == SnmpConstants.SNMP_ERROR_SUCCESS)) {
+            notVetoed.add(row);
+          }
+        }
+        accepted = notVetoed;
+      }
+    }
+    return accepted;
+  }
+
   public static class ChangeSet implements MOTableRow {
 
     private OID index;
     private Variable[] values;
+    private int offset;
+    private int size;
     private int lastChangedColumn = -1;
 
     public ChangeSet(OID index, Variable[] values) {
+      this(index, values, 0, values.length);
+    }
+
+    /**
+     * Creates a change set whose values are stored in a section of a larger
+     * array shared with other change sets.
+     */
+    ChangeSet(OID index, Variable[] values, int offset, int size) {
       this.index = index;
       this.values = values;
+      this.offset = offset;
+      this.size = size;
     }
 
     public OID getIndex() {
@@ -1061,12 +1721,18 @@ public class DefaultMOTable implements MOTable, MOScope,
     }
 
     public void setValue(int column, Variable value) {
-      values[column] = value;
+      if ((column < 0) || (column >= size)) {
+        throw new ArrayIndexOutOfBoundsException(column);
+      }
+      values[offset+column] = value;
       this.lastChangedColumn = column;
     }
 
     public Variable getValue(int column) {
-      return values[column];
+      if ((column < 0) || (column >= size)) {
+        throw new ArrayIndexOutOfBoundsException(column);
+      }
+      return values[offset+column];
     }
 
     public MOTableRow getBaseRow() {
@@ -1074,7 +1740,7 @@ public class DefaultMOTable implements MOTable, MOScope,
     }
 
     public int size() {
-      return values.length;
+      return size;
     }
 
     public void setBaseRow(MOTableRow baseRow) {
@@ -1138,6 +1804,9 @@ public class DefaultMOTable implements MOTable, MOScope,
     private int id = 0;
     private int col = -1;
     private MOTableRow row;
+    private Iterator rowIterator;
+    private OID cellOID;
+    private RowContinuation continuation;
 
     public CellInfo(OID oid) {
       this.index = getIndexPart(oid);
@@ -1163,6 +1832,22 @@ public class DefaultMOTable implements MOTable, MOScope,
       this.row = row;
     }
 
+    CellInfo(OID index, int column, int columnID, MOTableRow row,
+             Iterator rowIterator) {
+      this(index, column, columnID, row);
+      this.rowIterator = rowIterator;
+    }
+
+    void reset(OID index, int column, int columnID, MOTableRow row,
+               Iterator rowIterator) {
+      this.index = index;
+      this.col = column;
+      this.id = columnID;
+      this.row = row;
+      this.rowIterator = rowIterator;
+      this.cellOID = null;
+    }
+
     public OID getIndex() {
       return index;
     }
@@ -1179,7 +1864,10 @@ public class DefaultMOTable implements MOTable, MOScope,
     }
 
     public OID getCellOID() {
-      return DefaultMOTable.this.getCellOID(index, col);
+      if (cellOID == null) {
+        cellOID = DefaultMOTable.this.getCellOID(index, getColumn());
+      }
+      return cellOID;
     }
 
     public MOTableRow getRow() {
@@ -1217,24 +1905,92 @@ public class DefaultMOTable implements MOTable, MOScope,
           ((input.getImportMode() == ImportModes.CREATE) ||
            (input.getImportMode() == ImportModes.REPLACE_CREATE) ||
            (input.getImportMode() == ImportModes.UPDATE_CREATE))) {
-        MOTableRow row = null;
-        try {
-          row = createRow(rowValues.getIndex(), rowValues.getValues());
-        }
-        catch (UnsupportedOperationException uoex) {
-          logger.debug("Could not create row by row factory: " +
-                       uoex.getMessage());
-          // ignore
-        }
-        if (row == null) {
-          row =
-              new DefaultMOTableRow(rowValues.getIndex(), rowValues.getValues());
-          fireRowChanged(new MOTableRowEvent(this,
-                                             this, row, MOTableRowEvent.CREATE));
+        importRow(rowValues.getIndex(), rowValues.getValues());
+      }
+    }
+  }
+
+  private void importRow(OID index, Variable[] values) {
+    MOTableRow row = null;
+    try {
+      row = createRow(index, values);
+    }
+    catch (UnsupportedOperationException uoex) {
+      logger.debug("Could not create row by row factory: " +
+                   uoex.getMessage());
+      // ignore
+    }
+    if (row == null) {
+      row = new DefaultMOTableRow(index, values);
+      fireRowChanged(new MOTableRowEvent(this,
+                                         this, row, MOTableRowEvent.CREATE));
+    }
+    addRow(row);
+  }
+
+  /**
+   * Logs the persistent values of the row changed by a committed SET request
+   * on the specified cell. Volatile rows are only logged (as removed) if the
+   * SET made them volatile. Removed rows are logged as removed.
+   *
+   * @param context
+   *    the context of the SET request.
+   * @param oid
+   *    the cell OID of the committed variable binding.
+   * @param changeLog
+   *    the <code>MOChangeLog</code> to write the row to.
+   * @since 1.4.4
+   */
+  public void logChange(OctetString context, OID oid, MOChangeLog changeLog) {
+    MOTableCellInfo cell = getCellInfo(oid);
+    OID index = cell.getIndex();
+    if (index == null) {
+      return;
+    }
+    Variable[] values = null;
+    synchronized (model) {
+      MOTableRow row = model.getRow(index);
+      if (row != null) {
+        for (int i = 0; i < columns.length; i++) {
+          if (columns[i].isVolatile(row, i)) {
+            if (i != cell.getColumn()) {
+              return;
+            }
+            // row has been made volatile by this change
+            row = null;
+            break;
+          }
         }
-        addRow(row);
+      }
+      if (row != null) {
+        values = getPersistentValues(row);
       }
     }
+    changeLog.logChange(context, getID(), index, values);
+  }
+
+  /**
+   * Applies a row change logged by {@link #logChange}. An existing row with
+   * the same index is replaced like on {@link #load} with an update import
+   * mode.
+   *
+   * @param index
+   *    the row index.
+   * @param values
+   *    the persistent values of the row or <code>null</code> if the row has
+   *    been removed.
+   * @since 1.4.4
+   */
+  public void applyChange(OID index, Variable[] values) {
+    if (index == null) {
+      return;
+    }
+    if (model.containsRow(index)) {
+      removeRow(index);
+    }
+    if (values != null) {
+      importRow(index, values);
+    }
   }
 
   public void save(MOOutput output) throws IOException {
@@ -1319,6 +2075,7 @@ public class DefaultMOTable implements MOTable, MOScope,
         if (row instanceof MOMutableTableRow) {
           ((MOMutableTableRow)row).setValue(cell.getColumn(),
                                             newValueAndInstancceOID.getVariable());
+          updateSecondaryIndexes(row);
           return true;
         }
       }
@@ -1326,6 +2083,60 @@ public class DefaultMOTable implements MOTable, MOScope,
     return false;
   }
 
+  /**
+   * The pending change sets of a request on a table. The values of all
+   * change sets are stored in a single array, preallocated for the maximum
+   * number of rows the request can change.
+   */
+  private static class PendingChanges {
+    private Map changeSets;
+    private Variable[] values;
+    private int columnCount;
+    private int rows;
+
+    PendingChanges(int maxRows, int columnCount) {
+      this.columnCount = columnCount;
+      this.values = new Variable[Math.max(1, maxRows) * columnCount];
+      this.changeSets = new HashMap(Math.max(4, maxRows * 2));
+    }
+
+    ChangeSet allocate(OID index) {
+      ChangeSet changeSet = get(index);
+      if (changeSet != null) {
+        // reuse the section of a replaced change set
+        Arrays.fill(changeSet.values, changeSet.offset,
+                    changeSet.offset + columnCount, null);
+        return new ChangeSet(index, changeSet.values, changeSet.offset,
+                             columnCount);
+      }
+      if ((rows + 1) * columnCount > values.length) {
+        Variable[] v = new Variable[values.length * 2];
+        System.arraycopy(values, 0, v, 0, values.length);
+        values = v;
+      }
+      return new ChangeSet(index, values, columnCount * rows++, columnCount);
+    }
+
+    ChangeSet get(OID index) {
+      return (ChangeSet) changeSets.get(index);
+    }
+
+    void put(ChangeSet changeSet) {
+      changeSets.put(changeSet.getIndex(), changeSet);
+    }
+  }
+
+  private static class RowContinuation {
+    private Iterator rowIterator;
+    private int column;
+    private CellInfo cell;
+
+    RowContinuation(Iterator rowIterator, int column) {
+      this.rowIterator = rowIterator;
+      this.column = column;
+    }
+  }
+
   private static class RowCacheEntry {
     private MOTableRow row;
     private OID searchLowerBound;
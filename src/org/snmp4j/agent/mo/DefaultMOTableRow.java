@@ -34,10 +34,11 @@ import java.util.Arrays;
  * @author Frank Fock
  * @version 1.10.1
  */
-public class DefaultMOTableRow implements MOTableRow, Comparable {
+public class DefaultMOTableRow implements MOTableIndexedRow, Comparable {
 
   protected Variable[] values;
   protected OID index;
+  private transient IndexValues indexValues;
 
   public DefaultMOTableRow(OID index, Variable[] values) {
     this.index = index;
@@ -52,6 +53,29 @@ public class DefaultMOTableRow implements MOTableRow, Comparable {
     return index;
   }
 
+  /**
+   * Gets the values of the index of this row. The values are decoded on the
+   * first call and cached for subsequent calls with the same index
+   * definition.
+   *
+   * @param indexDef
+   *    the index definition of the table this row belongs to.
+   * @return
+   *    an array of values representing the index. The returned array and its
+   *    values are shared and must not be modified.
+   * @since 1.4.4
+   */
+  public Variable[] getIndexValues(MOTableIndex indexDef) {
+    IndexValues cached = indexValues;
+    if ((cached == null) || (cached.indexDef != indexDef) ||
+        (cached.index != index)) {
+      cached = new IndexValues(indexDef, index,
+                               indexDef.getIndexValues(index));
+      indexValues = cached;
+    }
+    return cached.values;
+  }
+
   public Variable getValue(int column) {
     return values[column];
   }
@@ -104,4 +128,19 @@ public class DefaultMOTableRow implements MOTableRow, Comparable {
   public int compareTo(Object o) {
     return getIndex().compareTo(((MOTableRow)o).getIndex());
   }
+
+  /**
+   * The decoded values of an index OID.
+   */
+  private static final class IndexValues {
+    private final MOTableIndex indexDef;
+    private final OID index;
+    private final Variable[] values;
+
+    IndexValues(MOTableIndex indexDef, OID index, Variable[] values) {
+      this.indexDef = indexDef;
+      this.index = index;
+      this.values = values;
+    }
+  }
 }
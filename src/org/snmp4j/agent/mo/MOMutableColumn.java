@@ -25,6 +25,7 @@ import java.util.*;
 
 import org.snmp4j.*;
 import org.snmp4j.agent.*;
+import org.snmp4j.agent.mo.util.VariableInterner;
 import org.snmp4j.agent.request.*;
 import org.snmp4j.mp.*;
 import org.snmp4j.smi.*;
@@ -60,13 +61,13 @@ public class MOMutableColumn extends MOColumn {
   public MOMutableColumn(int columnID, int syntax, MOAccess access,
                          Variable defaultValue) {
     super(columnID, syntax, access);
-    this.defaultValue = defaultValue;
+    setDefaultValue(defaultValue);
   }
 
   public MOMutableColumn(int columnID, int syntax, MOAccess access,
                          Variable defaultValue, boolean mutableInService) {
     super(columnID, syntax, access);
-    this.defaultValue = defaultValue;
+    setDefaultValue(defaultValue);
     this.mutableInService = mutableInService;
   }
 
@@ -145,7 +146,8 @@ public class MOMutableColumn extends MOColumn {
         subRequest.setUndoValue(row.getValue(column));
       }
       ((MOMutableTableRow)row).setValue(column,
-          (Variable)subRequest.getVariableBinding().getVariable().clone());
+          VariableInterner.getInstance().intern((Variable)
+              subRequest.getVariableBinding().getVariable().clone()));
       subRequest.completed();
     }
     else {
@@ -177,8 +179,14 @@ public class MOMutableColumn extends MOColumn {
     subRequest.completed();
   }
 
+  /**
+   * Sets the default value of this column. The value is shared by all rows
+   * created with the default value and must therefore not be modified.
+   * @param defaultValue
+   *    the default value or <code>null</code> if there is none.
+   */
   public void setDefaultValue(Variable defaultValue) {
-    this.defaultValue = defaultValue;
+    this.defaultValue = VariableInterner.getInstance().intern(defaultValue);
   }
 
   public void setMutableInService(boolean mutableInService) {
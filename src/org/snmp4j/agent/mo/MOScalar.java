@@ -39,7 +39,7 @@ import org.snmp4j.log.LogFactory;
  * @version 1.4
  */
 public class MOScalar implements ManagedObject, MOScope,
-    SerializableManagedObject, ManagedObjectValueAccess {
+    ChangeLoggingManagedObject, ManagedObjectValueAccess {
 
   private static LogAdapter logger = LogFactory.getLogger(MOScalar.class);
 
@@ -451,6 +451,40 @@ public class MOScalar implements ManagedObject, MOScope,
     output.writeVariable(value);
   }
 
+  /**
+   * Logs the current value of this scalar.
+   *
+   * @param context
+   *    the context of the SET request.
+   * @param oid
+   *    the instance OID of the committed variable binding.
+   * @param changeLog
+   *    the <code>MOChangeLog</code> to write the value to.
+   * @since 1.4.4
+   */
+  public void logChange(OctetString context, OID oid, MOChangeLog changeLog) {
+    Variable v;
+    synchronized (this) {
+      v = value;
+    }
+    changeLog.logChange(context, getID(), null, new Variable[] { v });
+  }
+
+  /**
+   * Sets the value of this scalar to the first of the logged values.
+   *
+   * @param index
+   *    ignored.
+   * @param values
+   *    the logged value.
+   * @since 1.4.4
+   */
+  public synchronized void applyChange(OID index, Variable[] values) {
+    if ((values != null) && (values.length > 0)) {
+      setValue(values[0]);
+    }
+  }
+
   public boolean covers(OID oid) {
     return oid.startsWith(this.oid);
   }
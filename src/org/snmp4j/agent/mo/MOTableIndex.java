@@ -304,6 +304,24 @@ public class MOTableIndex implements MOTableIndexValidator {
     return values;
   }
 
+  /**
+   * Gets the index values of a row. If the row is a
+   * {@link MOTableIndexedRow}, the values cached by the row are returned.
+   * Otherwise, the values are decoded from the row's index OID.
+   * @param row
+   *    a row of a table with this index definition.
+   * @return
+   *    an array of values representing the index. The returned array and its
+   *    values must not be modified.
+   * @since 1.4.4
+   */
+  public Variable[] getIndexValues(MOTableRow row) {
+    if (row instanceof MOTableIndexedRow) {
+      return ((MOTableIndexedRow)row).getIndexValues(this);
+    }
+    return getIndexValues(row.getIndex());
+  }
+
   /**
    * Gets the index OID from an array of index values.
    * @param indexValues
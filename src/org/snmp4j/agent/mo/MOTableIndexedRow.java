@@ -0,0 +1,50 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - MOTableIndexedRow.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import org.snmp4j.smi.Variable;
+
+/**
+ * A <code>MOTableIndexedRow</code> is a table row that provides the values
+ * of its index. The values are decoded from the index OID on first access
+ * only and then cached by the row, so that code evaluating the index values
+ * of the same rows repeatedly, like access control checks and notification
+ * filters, does not decode the index OID again.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ * @see MOTableIndex#getIndexValues(MOTableRow)
+ */
+public interface MOTableIndexedRow extends MOTableRow {
+
+  /**
+   * Gets the values of the index of this row.
+   *
+   * @param indexDef
+   *    the index definition of the table this row belongs to.
+   * @return
+   *    an array of values representing the index. The returned array and its
+   *    values are shared and must not be modified.
+   */
+  Variable[] getIndexValues(MOTableIndex indexDef);
+
+}
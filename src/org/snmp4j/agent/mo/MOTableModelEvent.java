@@ -20,7 +20,9 @@
 
 package org.snmp4j.agent.mo;
 
+import java.util.Collections;
 import java.util.EventObject;
+import java.util.List;
 
 /**
  * The <code>MOTableModelEvent</code> event object describes events that change
@@ -38,10 +40,29 @@ public class MOTableModelEvent extends EventObject {
   public static final int ROW_ADDED = 1;
   public static final int ROW_REMOVED = 2;
   public static final int TABLE_CLEAR = 3;
+  /**
+   * Several rows have been added, changed, and/or removed by a single
+   * operation.
+   * @since 1.4.4
+   */
+  public static final int ROWS_REPLACED = 4;
+  /**
+   * Several rows have been added by a single operation.
+   * @since 1.4.4
+   */
+  public static final int ROWS_ADDED = 5;
+  /**
+   * Several rows have been removed by a single operation.
+   * @since 1.4.4
+   */
+  public static final int ROWS_REMOVED = 6;
 
   private int type;
   private MOTableRow affectedRow;
   private int columnIndex = -1;
+  private List addedRows;
+  private List changedRows;
+  private List removedRows;
 
   /**
    * Creates a model event associated with a single row and column.
@@ -86,6 +107,29 @@ public class MOTableModelEvent extends EventObject {
     this(source, type, null);
   }
 
+  /**
+   * Creates an event for a model operation that added, changed, and/or
+   * removed several rows at once.
+   * @param source
+   *    the event source.
+   * @param type
+   *    the event type, for example {@link #ROWS_REPLACED}.
+   * @param addedRows
+   *    the rows added to the model in index order.
+   * @param changedRows
+   *    the rows of the model whose values have been changed in index order.
+   * @param removedRows
+   *    the rows removed from the model in index order.
+   * @since 1.4.4
+   */
+  public MOTableModelEvent(Object source, int type, List addedRows,
+                           List changedRows, List removedRows) {
+    this(source, type, null);
+    this.addedRows = addedRows;
+    this.changedRows = changedRows;
+    this.removedRows = removedRows;
+  }
+
   /**
    * Returns the type of event.
    * @return
@@ -115,6 +159,39 @@ public class MOTableModelEvent extends EventObject {
     return columnIndex;
   }
 
+  /**
+   * Returns the rows added by a multi-row event.
+   * @return
+   *    a possibly empty <code>List</code> of <code>MOTableRow</code>
+   *    instances.
+   * @since 1.4.4
+   */
+  public List getAddedRows() {
+    return (addedRows == null) ? Collections.EMPTY_LIST : addedRows;
+  }
+
+  /**
+   * Returns the rows changed by a multi-row event.
+   * @return
+   *    a possibly empty <code>List</code> of <code>MOTableRow</code>
+   *    instances.
+   * @since 1.4.4
+   */
+  public List getChangedRows() {
+    return (changedRows == null) ? Collections.EMPTY_LIST : changedRows;
+  }
+
+  /**
+   * Returns the rows removed by a multi-row event.
+   * @return
+   *    a possibly empty <code>List</code> of <code>MOTableRow</code>
+   *    instances.
+   * @since 1.4.4
+   */
+  public List getRemovedRows() {
+    return (removedRows == null) ? Collections.EMPTY_LIST : removedRows;
+  }
+
   public String toString() {
     return MOTableModelEvent.class.getName()+"[type="+type+
         ",affectedRow="+affectedRow+",columnIndex="+columnIndex+"]";
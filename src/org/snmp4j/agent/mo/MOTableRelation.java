@@ -21,6 +21,8 @@
 
 package org.snmp4j.agent.mo;
 
+import java.util.*;
+
 import org.snmp4j.smi.OID;
 
 /**
@@ -30,6 +32,11 @@ import org.snmp4j.smi.OID;
  * <code>MOTableRelation</code> is needed and the methods
  * {@link #hasDependentRow} and {@link #getDependentIndexes} must be overwritten
  * then.
+ * <p>
+ * The indexes of the dependent rows added by a relation are remembered per
+ * base row index. Removing a base row thus removes its dependent rows without
+ * calling {@link #getDependentIndexes} again. Remembered dependent rows that
+ * have been removed from the dependent table directly are skipped.
  *
  * @author Frank Fock
  * @version 1.0
@@ -38,6 +45,7 @@ public class MOTableRelation {
 
   private MOTable baseTable;
   private MOTable dependentTable;
+  private Map dependentIndexes = new HashMap();
 
   /**
    * Creates a table relation from a base table and the dependent table.
@@ -100,6 +108,78 @@ public class MOTableRelation {
     return new OID[] { baseRow.getIndex() };
   }
 
+  /**
+   * Returns the indexes of the dependent rows that have been added by this
+   * relation for the specified base row index and that have not been removed
+   * from the dependent table since.
+   *
+   * @param baseIndex
+   *    the index of a base table row.
+   * @return
+   *    the dependent row indexes in ascending order or <code>null</code> if
+   *    this relation has not added any dependent rows for that base row.
+   * @since 1.4.4
+   */
+  public OID[] getAddedDependentIndexes(OID baseIndex) {
+    Object[] indexes;
+    synchronized (dependentIndexes) {
+      SortedSet added = (SortedSet) dependentIndexes.get(baseIndex);
+      if (added == null) {
+        return null;
+      }
+      indexes = added.toArray();
+    }
+    return getExistingIndexes(indexes);
+  }
+
+  /**
+   * Returns the indexes of the dependent rows to remove for the specified
+   * base row and forgets them. If this relation has not added dependent rows
+   * for that base row, {@link #getDependentIndexes} is called instead.
+   *
+   * @param baseRow
+   *    a row of the base table.
+   * @return
+   *    an array of row index values of the dependent rows.
+   * @since 1.4.4
+   */
+  protected OID[] removeDependentIndexes(MOTableRow baseRow) {
+    SortedSet indexes;
+    synchronized (dependentIndexes) {
+      indexes = (SortedSet) dependentIndexes.remove(baseRow.getIndex());
+    }
+    if (indexes == null) {
+      return getDependentIndexes(baseRow);
+    }
+    return getExistingIndexes(indexes.toArray());
+  }
+
+  /**
+   * Returns the supplied dependent row indexes without those whose rows
+   * have been removed from the dependent table.
+   */
+  private OID[] getExistingIndexes(Object[] indexes) {
+    MOTableModel model = dependentTable.getModel();
+    List existing = new ArrayList(indexes.length);
+    for (int i=0; i<indexes.length; i++) {
+      if (model.getRow((OID) indexes[i]) != null) {
+        existing.add(indexes[i]);
+      }
+    }
+    return (OID[]) existing.toArray(new OID[existing.size()]);
+  }
+
+  private void addDependentIndex(OID baseIndex, OID dependentIndex) {
+    synchronized (dependentIndexes) {
+      SortedSet indexes = (SortedSet) dependentIndexes.get(baseIndex);
+      if (indexes == null) {
+        indexes = new TreeSet();
+        dependentIndexes.put(baseIndex, indexes);
+      }
+      indexes.add(dependentIndex);
+    }
+  }
+
   /**
    * Adds all dependent rows for the specified base table row to the dependent
    * table. This method is automatically called if {@link #createRelationShip()}
@@ -115,7 +195,9 @@ public class MOTableRelation {
           dependentTable.createRow(indexes[i],
                                    dependentTable.getDefaultValues());
       depRow.setBaseRow(baseTableRow);
-      dependentTable.addRow(depRow);
+      if (dependentTable.addRow(depRow)) {
+        addDependentIndex(baseTableRow.getIndex(), indexes[i]);
+      }
     }
   }
 
@@ -130,7 +212,7 @@ public class MOTableRelation {
    *    an array of the removed rows.
    */
   protected MOTableRow[] removeDependentRows(MOTableRow baseTableRow) {
-    OID[] indexes = getDependentIndexes(baseTableRow);
+    OID[] indexes = removeDependentIndexes(baseTableRow);
     MOTableRow[] removedRows = new MOTableRow[indexes.length];
     for (int i = 0; i < indexes.length; i++) {
       removedRows[i] = dependentTable.removeRow(indexes[i]);
@@ -138,7 +220,82 @@ public class MOTableRelation {
     return removedRows;
   }
 
-  protected class RelationShipListener implements MOTableRowListener {
+  /**
+   * Adds all dependent rows for the specified base table rows to the
+   * dependent table by a single {@link DefaultMOTable#addRows} operation if
+   * the dependent table is a {@link DefaultMOTable}, or row by row
+   * otherwise. This method is automatically called for batches of added base
+   * table rows if {@link #createRelationShip()} has been called.
+   *
+   * @param baseTableRows
+   *    a <code>List</code> of rows of the base table.
+   * @since 1.4.4
+   */
+  protected void addDependentRows(List baseTableRows) {
+    if (!(dependentTable instanceof DefaultMOTable)) {
+      for (Iterator it = baseTableRows.iterator(); it.hasNext(); ) {
+        MOTableRow baseTableRow = (MOTableRow) it.next();
+        if (hasDependentRow(baseTableRow)) {
+          addDependentRows(baseTableRow);
+        }
+      }
+      return;
+    }
+    List depRows = new ArrayList(baseTableRows.size());
+    // the base index of each dependent row, because not all row types
+    // keep their base row
+    List baseIndexes = new ArrayList(baseTableRows.size());
+    for (Iterator it = baseTableRows.iterator(); it.hasNext(); ) {
+      MOTableRow baseTableRow = (MOTableRow) it.next();
+      if (hasDependentRow(baseTableRow)) {
+        OID[] indexes = getDependentIndexes(baseTableRow);
+        for (int i=0; i<indexes.length; i++) {
+          MOTableRow depRow =
+              dependentTable.createRow(indexes[i],
+                                       dependentTable.getDefaultValues());
+          depRow.setBaseRow(baseTableRow);
+          depRows.add(depRow);
+          baseIndexes.add(baseTableRow.getIndex());
+        }
+      }
+    }
+    ((DefaultMOTable)dependentTable).addRows(depRows);
+    MOTableModel model = dependentTable.getModel();
+    for (int i=0; i<depRows.size(); i++) {
+      MOTableRow depRow = (MOTableRow) depRows.get(i);
+      if (model.getRow(depRow.getIndex()) == depRow) {
+        addDependentIndex((OID) baseIndexes.get(i), depRow.getIndex());
+      }
+    }
+  }
+
+  /**
+   * Removes all dependent rows for the specified base table rows from the
+   * dependent table by a single {@link DefaultMOTable#removeRows(Collection)}
+   * operation if the dependent table is a {@link DefaultMOTable}, or row by
+   * row otherwise. This method is automatically called for batches of removed
+   * base table rows if {@link #createRelationShip()} has been called.
+   *
+   * @param baseTableRows
+   *    a <code>List</code> of rows of the base table.
+   * @since 1.4.4
+   */
+  protected void removeDependentRows(List baseTableRows) {
+    if (!(dependentTable instanceof DefaultMOTable)) {
+      for (Iterator it = baseTableRows.iterator(); it.hasNext(); ) {
+        removeDependentRows((MOTableRow) it.next());
+      }
+      return;
+    }
+    List indexes = new ArrayList(baseTableRows.size());
+    for (Iterator it = baseTableRows.iterator(); it.hasNext(); ) {
+      indexes.addAll(Arrays.asList(removeDependentIndexes((MOTableRow)
+                                                          it.next())));
+    }
+    ((DefaultMOTable)dependentTable).removeRows(indexes);
+  }
+
+  protected class RelationShipListener implements MOTableRowBatchListener {
 
     public void rowChanged(MOTableRowEvent event) {
       switch (event.getType()) {
@@ -154,5 +311,17 @@ public class MOTableRelation {
       }
     }
 
+    public void rowsChanged(MOTableRowEvent event) {
+      switch (event.getType()) {
+        case MOTableRowEvent.ADD: {
+          addDependentRows(event.getRows());
+          break;
+        }
+        case MOTableRowEvent.DELETE: {
+          removeDependentRows(event.getRows());
+        }
+      }
+    }
+
   }
 }
@@ -0,0 +1,46 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - MOTableRowAccessListener.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import java.util.EventListener;
+
+/**
+ * A <code>MOTableRowAccessListener</code> is informed when a row of a
+ * {@link DefaultMOTable} is read by a GET or GETNEXT sub-request. Because it
+ * is called for each sub-request, no event object is created and
+ * implementations should return quickly.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public interface MOTableRowAccessListener extends EventListener {
+
+  /**
+   * A row has been read.
+   * @param table
+   *    the table containing the row.
+   * @param row
+   *    the row that has been read.
+   */
+  void rowAccessed(MOTable table, MOTableRow row);
+
+}
@@ -0,0 +1,45 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - MOTableRowBatchListener.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+/**
+ * A <code>MOTableRowBatchListener</code> is a {@link MOTableRowListener}
+ * that can be informed about changes of several rows by a single event.
+ * Tables that add or remove rows in batches, like
+ * {@link DefaultMOTable#addRows}, deliver a single batch event to these
+ * listeners instead of an event per row.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public interface MOTableRowBatchListener extends MOTableRowListener {
+
+  /**
+   * Several rows are changed/have been changed by a single operation.
+   * @param event
+   *    a <code>MOTableRowEvent</code> whose {@link MOTableRowEvent#getRows()}
+   *    returns the affected rows. To veto the operation for all rows the
+   *    {@link MOTableRowEvent#setVetoStatus} can be called.
+   */
+  void rowsChanged(MOTableRowEvent event);
+
+}
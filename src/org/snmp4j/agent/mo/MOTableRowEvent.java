@@ -62,6 +62,7 @@ public class MOTableRowEvent extends DeniableEventObject {
   private MOTableRow preparedChanges;
   private int type;
   private int vetoColumn = -1;
+  private List rows;
 
   /**
    * Creates a table row event based on table, row and type that cannot be
@@ -166,10 +167,71 @@ public class MOTableRowEvent extends DeniableEventObject {
     this.type = type;
   }
 
+  /**
+   * Creates a table row event for several rows of a table that are added,
+   * deleted, or updated by a single operation. Such events are delivered to
+   * {@link MOTableRowBatchListener}s only. If a deniable batch event is
+   * vetoed, the operation is canceled for all rows.
+   *
+   * @param source
+   *    the event source.
+   * @param table
+   *    the table.
+   * @param rows
+   *    the <code>MOTableRow</code> instances associated with this event in
+   *    index order.
+   * @param type
+   *    the event type.
+   * @param deniable
+   *    indicates whether the event can be canceled through setting its
+   *    denyReason member to a SNMP error status.
+   * @since 1.4.4
+   */
+  public MOTableRowEvent(Object source,
+                         MOTable table, List rows,
+                         int type, boolean deniable) {
+    super(source, deniable);
+    this.table = table;
+    this.rows = rows;
+    this.row = (rows.isEmpty()) ? null : (MOTableRow) rows.get(0);
+    this.type = type;
+  }
+
+  /**
+   * Returns the row associated with this event. For batch events, the first
+   * row of the batch is returned.
+   * @return
+   *    a <code>MOTableRow</code> instance.
+   */
   public MOTableRow getRow() {
     return row;
   }
 
+  /**
+   * Returns the rows associated with this event.
+   * @return
+   *    the rows of a batch event or a list that contains the row of this
+   *    event only.
+   * @since 1.4.4
+   */
+  public List getRows() {
+    if (rows != null) {
+      return rows;
+    }
+    return (row == null) ? Collections.EMPTY_LIST :
+        Collections.singletonList(row);
+  }
+
+  /**
+   * Indicates whether this event describes a batch of rows.
+   * @return
+   *    <code>true</code> if this event has been created for a list of rows.
+   * @since 1.4.4
+   */
+  public boolean isBatch() {
+    return (rows != null);
+  }
+
   public MOTable getTable() {
     return table;
   }
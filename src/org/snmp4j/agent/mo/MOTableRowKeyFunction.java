@@ -0,0 +1,47 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - MOTableRowKeyFunction.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import java.util.Collection;
+
+/**
+ * A <code>MOTableRowKeyFunction</code> computes the keys under which a row is
+ * found in a {@link MOTableSecondaryIndex}. A row may have any number of keys,
+ * for example the tags of a tag list column.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public interface MOTableRowKeyFunction {
+
+  /**
+   * Returns the secondary index keys of the specified row.
+   * @param row
+   *    a row of the indexed table model.
+   * @return
+   *    a <code>Collection</code> of keys, which must implement
+   *    <code>equals</code> and <code>hashCode</code> and must not be modified
+   *    afterwards. If <code>null</code> or empty, the row is not indexed.
+   */
+  Collection getKeys(MOTableRow row);
+
+}
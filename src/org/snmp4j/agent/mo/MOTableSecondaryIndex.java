@@ -0,0 +1,180 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - MOTableSecondaryIndex.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import java.util.*;
+
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+
+/**
+ * A <code>MOTableSecondaryIndex</code> maps keys computed from the rows of a
+ * {@link DefaultMOMutableTableModel} to those rows. It is created by
+ * {@link DefaultMOMutableTableModel#addSecondaryIndex} and maintained by the
+ * model when rows are added or removed. Rows changed in place are re-indexed
+ * by {@link DefaultMOMutableTableModel#updateSecondaryIndexes}, which
+ * {@link DefaultMOTable} calls when a SET request has been committed or
+ * undone for a row.
+ * <p>
+ * Looking up the rows for a key is done in constant time. The rows for a key
+ * are returned in index order.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class MOTableSecondaryIndex {
+
+  private MOTableRowKeyFunction keyFunction;
+  private Map rowsByKey = new HashMap();
+  private Map keysByIndex = new HashMap();
+
+  MOTableSecondaryIndex(MOTableRowKeyFunction keyFunction) {
+    this.keyFunction = keyFunction;
+  }
+
+  public MOTableRowKeyFunction getKeyFunction() {
+    return keyFunction;
+  }
+
+  /**
+   * Returns the rows with the specified key.
+   * @param key
+   *    a secondary index key.
+   * @return
+   *    a possibly empty copy of the list of rows with the specified key in
+   *    index order.
+   */
+  public synchronized List getRows(Object key) {
+    SortedMap rows = (SortedMap) rowsByKey.get(key);
+    if (rows == null) {
+      return new ArrayList(0);
+    }
+    return new ArrayList(rows.values());
+  }
+
+  /**
+   * Returns the row with the smallest index that has the specified key.
+   * @param key
+   *    a secondary index key.
+   * @return
+   *    a <code>MOTableRow</code> or <code>null</code> if there is no row with
+   *    that key.
+   */
+  public synchronized MOTableRow getRow(Object key) {
+    SortedMap rows = (SortedMap) rowsByKey.get(key);
+    if (rows == null) {
+      return null;
+    }
+    return (MOTableRow) rows.get(rows.firstKey());
+  }
+
+  /**
+   * Checks whether there is a row with the specified key.
+   * @param key
+   *    a secondary index key.
+   * @return
+   *    <code>true</code> if at least one row has the key.
+   */
+  public synchronized boolean containsKey(Object key) {
+    return rowsByKey.containsKey(key);
+  }
+
+  /**
+   * Returns the keys of all indexed rows.
+   * @return
+   *    a copy of the set of keys.
+   */
+  public synchronized Set getKeys() {
+    return new HashSet(rowsByKey.keySet());
+  }
+
+  synchronized void add(MOTableRow row) {
+    remove(row.getIndex());
+    Collection keys = keyFunction.getKeys(row);
+    if ((keys == null) || (keys.isEmpty())) {
+      return;
+    }
+    keys = new ArrayList(keys);
+    keysByIndex.put(row.getIndex(), keys);
+    for (Iterator it = keys.iterator(); it.hasNext(); ) {
+      Object key = it.next();
+      SortedMap rows = (SortedMap) rowsByKey.get(key);
+      if (rows == null) {
+        rows = new TreeMap();
+        rowsByKey.put(key, rows);
+      }
+      rows.put(row.getIndex(), row);
+    }
+  }
+
+  synchronized void remove(OID index) {
+    Collection keys = (Collection) keysByIndex.remove(index);
+    if (keys == null) {
+      return;
+    }
+    for (Iterator it = keys.iterator(); it.hasNext(); ) {
+      Object key = it.next();
+      SortedMap rows = (SortedMap) rowsByKey.get(key);
+      if (rows != null) {
+        rows.remove(index);
+        if (rows.isEmpty()) {
+          rowsByKey.remove(key);
+        }
+      }
+    }
+  }
+
+  synchronized void clear() {
+    rowsByKey.clear();
+    keysByIndex.clear();
+  }
+
+  /**
+   * A <code>ColumnKeyFunction</code> uses the value of a column as key.
+   * Rows with a <code>null</code> value in that column are not indexed.
+   */
+  public static class ColumnKeyFunction implements MOTableRowKeyFunction {
+
+    private int column;
+
+    /**
+     * Creates a key function for a column.
+     * @param column
+     *    the zero-based column index of the key column.
+     */
+    public ColumnKeyFunction(int column) {
+      this.column = column;
+    }
+
+    public int getColumn() {
+      return column;
+    }
+
+    public Collection getKeys(MOTableRow row) {
+      Variable value = (column < row.size()) ? row.getValue(column) : null;
+      if (value == null) {
+        return null;
+      }
+      return Collections.singletonList(value.clone());
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - MOValueSupplier.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+
+/**
+ * A <code>MOValueSupplier</code> computes the value of a managed object
+ * instance on demand, for example by scanning a file system or the process
+ * table. It is used by {@link CachedMOScalar} which caches the computed
+ * value.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public interface MOValueSupplier {
+
+  /**
+   * Computes the current value of a managed object instance.
+   * @param instanceOID
+   *    the instance OID whose value is computed.
+   * @return
+   *    a new <code>Variable</code> instance with the current value or
+   *    <code>null</code> if the value could not be determined.
+   */
+  Variable computeValue(OID instanceOID);
+
+}
@@ -0,0 +1,146 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - NumericIndexKeys.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import org.snmp4j.smi.OID;
+
+/**
+ * The <code>NumericIndexKeys</code> class maps table indexes of one or two
+ * sub-identifiers to primitive <code>long</code> keys and searches sorted
+ * key arrays. The keys are biased by <code>Long.MIN_VALUE</code> so that the
+ * signed order of the keys is the lexicographic order of the indexes.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+final class NumericIndexKeys {
+
+  private NumericIndexKeys() {
+  }
+
+  static void checkIndexLength(int indexLength) {
+    if ((indexLength < 1) || (indexLength > 2)) {
+      throw new IllegalArgumentException("Index length must be 1 or 2: "+
+                                         indexLength);
+    }
+  }
+
+  static boolean isValidIndex(OID index, int indexLength) {
+    return (index != null) && (index.size() == indexLength);
+  }
+
+  /**
+   * Returns the key of an index OID.
+   *
+   * @param index
+   *    an index OID.
+   * @param indexLength
+   *    the index length of the table.
+   * @return
+   *    the key of the index.
+   * @throws IllegalArgumentException
+   *    if the index does not have the index length of the table.
+   */
+  static long toKey(OID index, int indexLength) {
+    if (!isValidIndex(index, indexLength)) {
+      throw new IllegalArgumentException("Index '"+index+
+                                         "' does not have length "+
+                                         indexLength);
+    }
+    return toKey(index, indexLength, indexLength);
+  }
+
+  /**
+   * Returns the key of the first <code>length</code> sub-identifiers of an
+   * OID padded with zeros.
+   */
+  private static long toKey(OID oid, int length, int indexLength) {
+    long key = 0;
+    for (int i=0; i<indexLength; i++) {
+      key <<= 32;
+      if (i < length) {
+        key |= (oid.get(i) & 0xFFFFFFFFL);
+      }
+    }
+    return key ^ Long.MIN_VALUE;
+  }
+
+  static OID toIndex(long key, int indexLength) {
+    key ^= Long.MIN_VALUE;
+    if (indexLength == 1) {
+      return new OID(new int[] { (int)key });
+    }
+    return new OID(new int[] { (int)(key >>> 32), (int)key });
+  }
+
+  /**
+   * Searches the position of a key in a sorted key array.
+   *
+   * @param keys
+   *    the sorted keys.
+   * @param size
+   *    the number of keys in use.
+   * @param key
+   *    a key.
+   * @return
+   *    the position of the key, or <code>-(insertion point) - 1</code> if the
+   *    key is not contained.
+   */
+  static int search(long[] keys, int size, long key) {
+    if ((size > 0) && (keys[size-1] < key)) {
+      return -size - 1;
+    }
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long midKey = keys[mid];
+      if (midKey < key) {
+        low = mid + 1;
+      }
+      else if (midKey > key) {
+        high = mid - 1;
+      }
+      else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Returns the position of the first key whose index is greater or equal
+   * than the supplied OID, which may have any length.
+   */
+  static int ceiling(long[] keys, int size, OID lowerBound, int indexLength) {
+    int pos;
+    if (lowerBound.size() > indexLength) {
+      // index equal to the prefix of the bound is less than the bound
+      pos = search(keys, size, toKey(lowerBound, indexLength, indexLength));
+      return (pos >= 0) ? pos + 1 : -(pos + 1);
+    }
+    // a shorter bound is less than the index padded with zeros
+    pos = search(keys, size,
+                 toKey(lowerBound, lowerBound.size(), indexLength));
+    return (pos >= 0) ? pos : -(pos + 1);
+  }
+}
@@ -0,0 +1,433 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - NumericIndexMOTableModel.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import java.util.*;
+
+import org.snmp4j.smi.*;
+
+/**
+ * The <code>NumericIndexMOTableModel</code> is a mutable table model for
+ * tables whose index consists of one or two sub-identifiers, for example
+ * tables indexed by a single <code>Integer32</code> like the ifTable. The
+ * indexes are stored as a sorted array of primitive <code>long</code> values
+ * next to an array of the rows. Row lookups and iterator positioning are done
+ * by binary search. <code>OID</code> instances are created only when an index
+ * is returned by {@link #firstIndex()} or {@link #lastIndex()}.
+ * <p>
+ * Adding rows in ascending index order is done in constant time. Adding and
+ * removing rows at other positions moves the subsequent entries of the
+ * arrays.
+ * <p>
+ * Like the {@link DefaultMOMutableTableModel}, all operations are
+ * synchronized on the model and its iterators throw a
+ * <code>ConcurrentModificationException</code> when the model has been
+ * modified by another means than the iterator itself.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class NumericIndexMOTableModel implements MOMutableTableModel {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int indexLength;
+  private long[] keys;
+  private MOTableRow[] rows;
+  private int size;
+  private int modCount;
+  private int columnCount;
+
+  protected MOTableRowFactory rowFactory;
+  private transient Vector moTableModelListeners;
+
+  /**
+   * Creates a table model for single sub-identifier indexes.
+   */
+  public NumericIndexMOTableModel() {
+    this(1);
+  }
+
+  /**
+   * Creates a table model for indexes with the specified number of
+   * sub-identifiers.
+   *
+   * @param indexLength
+   *    the number of sub-identifiers of each row index, which must be one or
+   *    two.
+   */
+  public NumericIndexMOTableModel(int indexLength) {
+    this(indexLength, INITIAL_CAPACITY);
+  }
+
+  /**
+   * Creates a table model for indexes with the specified number of
+   * sub-identifiers.
+   *
+   * @param indexLength
+   *    the number of sub-identifiers of each row index, which must be one or
+   *    two.
+   * @param initialCapacity
+   *    the number of rows the model can hold before its arrays are enlarged.
+   */
+  public NumericIndexMOTableModel(int indexLength, int initialCapacity) {
+    NumericIndexKeys.checkIndexLength(indexLength);
+    this.indexLength = indexLength;
+    int capacity = Math.max(1, initialCapacity);
+    this.keys = new long[capacity];
+    this.rows = new MOTableRow[capacity];
+  }
+
+  /**
+   * Returns the number of sub-identifiers of the row indexes.
+   * @return
+   *    1 or 2.
+   */
+  public int getIndexLength() {
+    return indexLength;
+  }
+
+  private long toKey(OID index) {
+    return NumericIndexKeys.toKey(index, indexLength);
+  }
+
+  private OID toIndex(long key) {
+    return NumericIndexKeys.toIndex(key, indexLength);
+  }
+
+  private boolean isValidIndex(OID index) {
+    return NumericIndexKeys.isValidIndex(index, indexLength);
+  }
+
+  private int search(long key) {
+    return NumericIndexKeys.search(keys, size, key);
+  }
+
+  private int ceiling(OID lowerBound) {
+    return NumericIndexKeys.ceiling(keys, size, lowerBound, indexLength);
+  }
+
+  public synchronized MOTableRow addRow(MOTableRow row) {
+    long key = toKey(row.getIndex());
+    this.columnCount = Math.max(row.size(), columnCount);
+    int pos = search(key);
+    MOTableRow previous = null;
+    if (pos >= 0) {
+      previous = rows[pos];
+      rows[pos] = row;
+    }
+    else {
+      pos = -(pos + 1);
+      ensureCapacity(size + 1);
+      if (pos < size) {
+        System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+        System.arraycopy(rows, pos, rows, pos + 1, size - pos);
+      }
+      keys[pos] = key;
+      rows[pos] = row;
+      size++;
+      modCount++;
+    }
+    if (moTableModelListeners != null) {
+      MOTableModelEvent event =
+         new MOTableModelEvent(this, MOTableModelEvent.ROW_ADDED, row);
+      fireTableModelChanged(event);
+    }
+    return previous;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > keys.length) {
+      int newCapacity = Math.max(capacity, keys.length + (keys.length >> 1));
+      long[] k = new long[newCapacity];
+      System.arraycopy(keys, 0, k, 0, size);
+      MOTableRow[] r = new MOTableRow[newCapacity];
+      System.arraycopy(rows, 0, r, 0, size);
+      keys = k;
+      rows = r;
+    }
+  }
+
+  public synchronized MOTableRow removeRow(OID index) {
+    if (!isValidIndex(index)) {
+      return null;
+    }
+    int pos = search(toKey(index));
+    if (pos < 0) {
+      return null;
+    }
+    MOTableRow row = remove(pos);
+    if (moTableModelListeners != null) {
+      MOTableModelEvent event =
+         new MOTableModelEvent(this, MOTableModelEvent.ROW_REMOVED, row);
+      fireTableModelChanged(event);
+    }
+    return row;
+  }
+
+  private MOTableRow remove(int pos) {
+    MOTableRow row = rows[pos];
+    int moved = size - pos - 1;
+    if (moved > 0) {
+      System.arraycopy(keys, pos + 1, keys, pos, moved);
+      System.arraycopy(rows, pos + 1, rows, pos, moved);
+    }
+    rows[--size] = null;
+    modCount++;
+    return row;
+  }
+
+  /**
+   * Removes all rows in the specified index range.
+   *
+   * @param lowerBoundIncl
+   *    the lower bound of the indexes to remove (inclusive) or
+   *    <code>null</code> to remove from the first row.
+   * @param upperBoundExcl
+   *    the upper bound of the indexes to remove (exclusive) or
+   *    <code>null</code> to remove up to the last row.
+   */
+  public synchronized void removeRows(OID lowerBoundIncl,
+                                      OID upperBoundExcl) {
+    int from = (lowerBoundIncl == null) ? 0 : ceiling(lowerBoundIncl);
+    int to = (upperBoundExcl == null) ? size : ceiling(upperBoundExcl);
+    if (from >= to) {
+      return;
+    }
+    if (moTableModelListeners != null) {
+      for (int i=from; i<to; i++) {
+        MOTableModelEvent event =
+           new MOTableModelEvent(this, MOTableModelEvent.ROW_REMOVED, rows[i]);
+        fireTableModelChanged(event);
+      }
+    }
+    System.arraycopy(keys, to, keys, from, size - to);
+    System.arraycopy(rows, to, rows, from, size - to);
+    int newSize = size - (to - from);
+    Arrays.fill(rows, newSize, size, null);
+    size = newSize;
+    modCount++;
+  }
+
+  public synchronized void clear() {
+    fireTableModelChanged(new MOTableModelEvent(this,
+                                                MOTableModelEvent.TABLE_CLEAR));
+    Arrays.fill(rows, 0, size, null);
+    size = 0;
+    modCount++;
+  }
+
+  public synchronized void clear(MOTableRowFilter filter) {
+    int n = 0;
+    for (int i=0; i<size; i++) {
+      MOTableRow row = rows[i];
+      if (filter.passesFilter(row)) {
+        keys[n] = keys[i];
+        rows[n++] = row;
+      }
+      else if (moTableModelListeners != null) {
+        MOTableModelEvent event =
+           new MOTableModelEvent(this, MOTableModelEvent.ROW_REMOVED, row);
+        fireTableModelChanged(event);
+      }
+    }
+    if (n < size) {
+      Arrays.fill(rows, n, size, null);
+      size = n;
+      modCount++;
+    }
+  }
+
+  /**
+   * Creates a new row with the supplied values that can be added to this
+   * model with {@link #addRow}. If no row factory has been set, a
+   * {@link DefaultMOMutableRow2PC} is created.
+   *
+   * @param index
+   *    the index OID for the new row.
+   * @param values
+   *    the values to be contained in the new row.
+   * @return
+   *    the created <code>MOTableRow</code>.
+   * @throws UnsupportedOperationException
+   *    if the index does not have the index length of this model.
+   */
+  public MOTableRow createRow(OID index, Variable[] values)
+      throws UnsupportedOperationException
+  {
+    if (!isValidIndex(index)) {
+      throw new UnsupportedOperationException("Index '"+index+
+                                              "' does not have length "+
+                                              indexLength);
+    }
+    if (rowFactory == null) {
+      return new DefaultMOMutableRow2PC(index, values);
+    }
+    return rowFactory.createRow(index, values);
+  }
+
+  public void freeRow(MOTableRow row) {
+    if (rowFactory != null) {
+      rowFactory.freeRow(row);
+    }
+  }
+
+  public MOTableRowFactory getRowFactory() {
+    return rowFactory;
+  }
+
+  public void setRowFactory(MOTableRowFactory rowFactory) {
+    this.rowFactory = rowFactory;
+  }
+
+  public int getColumnCount() {
+    return columnCount;
+  }
+
+  public void setColumnCount(int columnCount) {
+    this.columnCount = columnCount;
+  }
+
+  public synchronized int getRowCount() {
+    return size;
+  }
+
+  public synchronized boolean containsRow(OID index) {
+    return isValidIndex(index) && (search(toKey(index)) >= 0);
+  }
+
+  public synchronized MOTableRow getRow(OID index) {
+    if (!isValidIndex(index)) {
+      return null;
+    }
+    int pos = search(toKey(index));
+    return (pos >= 0) ? rows[pos] : null;
+  }
+
+  public synchronized Iterator iterator() {
+    return new RowIterator(0);
+  }
+
+  public synchronized Iterator tailIterator(OID lowerBound) {
+    if (lowerBound == null) {
+      return iterator();
+    }
+    return new RowIterator(ceiling(lowerBound));
+  }
+
+  public synchronized OID firstIndex() {
+    return (size > 0) ? toIndex(keys[0]) : null;
+  }
+
+  public synchronized OID lastIndex() {
+    return (size > 0) ? toIndex(keys[size-1]) : null;
+  }
+
+  public synchronized MOTableRow firstRow() {
+    return (size > 0) ? rows[0] : null;
+  }
+
+  public synchronized MOTableRow lastRow() {
+    return (size > 0) ? rows[size-1] : null;
+  }
+
+  public synchronized void addMOTableModelListener(MOTableModelListener l) {
+    if (moTableModelListeners == null) {
+      moTableModelListeners = new Vector(2);
+    }
+    moTableModelListeners.add(l);
+  }
+
+  public synchronized void removeMOTableModelListener(MOTableModelListener l) {
+    if (moTableModelListeners != null) {
+      moTableModelListeners.remove(l);
+    }
+  }
+
+  protected void fireTableModelChanged(MOTableModelEvent event) {
+    if (moTableModelListeners != null) {
+      Vector listeners = moTableModelListeners;
+      int count = listeners.size();
+      for (int i = 0; i < count; i++) {
+        ((MOTableModelListener) listeners.get(i)).tableModelChanged(event);
+      }
+    }
+  }
+
+  /**
+   * Iterates over the rows of the model starting at a position.
+   */
+  private class RowIterator implements Iterator {
+
+    private int cursor;
+    private int last = -1;
+    private int expectedModCount;
+
+    RowIterator(int start) {
+      this.cursor = start;
+      this.expectedModCount = modCount;
+    }
+
+    public boolean hasNext() {
+      synchronized (NumericIndexMOTableModel.this) {
+        checkForComodification();
+        return (cursor < size);
+      }
+    }
+
+    public Object next() {
+      synchronized (NumericIndexMOTableModel.this) {
+        checkForComodification();
+        if (cursor >= size) {
+          throw new NoSuchElementException();
+        }
+        last = cursor++;
+        return rows[last];
+      }
+    }
+
+    public void remove() {
+      synchronized (NumericIndexMOTableModel.this) {
+        if (last < 0) {
+          throw new IllegalStateException();
+        }
+        checkForComodification();
+        MOTableRow row = NumericIndexMOTableModel.this.remove(last);
+        cursor = last;
+        last = -1;
+        expectedModCount = modCount;
+        if (moTableModelListeners != null) {
+          MOTableModelEvent event =
+             new MOTableModelEvent(NumericIndexMOTableModel.this,
+                                   MOTableModelEvent.ROW_REMOVED, row);
+          fireTableModelChanged(event);
+        }
+      }
+    }
+
+    private void checkForComodification() {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+    }
+  }
+}
@@ -0,0 +1,266 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - VirtualMOTableModel.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import java.util.*;
+
+import org.snmp4j.agent.mo.util.MOTableRowProvider;
+import org.snmp4j.smi.OID;
+
+/**
+ * The <code>VirtualMOTableModel</code> is a read-only table model that does
+ * not hold any rows itself. It delegates row lookups and iterations to a
+ * {@link MOTableRowProvider}, so that only the rows touched by a request are
+ * materialized. Iterators fetch rows from the provider in chunks of
+ * {@link #getChunkSize()} rows while they advance.
+ * <p>
+ * Optionally, rows returned by the provider can be cached for a short time,
+ * so that the columns of a row accessed by the same or a closely following
+ * request do not cause a new lookup at the provider. The number of cached
+ * rows is limited, thus the memory used by the model does not depend on the
+ * size of the data source.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class VirtualMOTableModel implements MOTableModel {
+
+  public static final int DEFAULT_CHUNK_SIZE = 16;
+
+  private MOTableRowProvider rowProvider;
+  private int columnCount;
+  private int chunkSize = DEFAULT_CHUNK_SIZE;
+  private long cacheTimeout;
+  private int maxCachedRows;
+  private LinkedHashMap rowCache;
+
+  /**
+   * Creates a virtual table model without row cache.
+   *
+   * @param rowProvider
+   *    the <code>MOTableRowProvider</code> that provides the rows.
+   * @param columnCount
+   *    the number of columns of the table.
+   */
+  public VirtualMOTableModel(MOTableRowProvider rowProvider, int columnCount) {
+    this(rowProvider, columnCount, 0, 0);
+  }
+
+  /**
+   * Creates a virtual table model with row cache.
+   *
+   * @param rowProvider
+   *    the <code>MOTableRowProvider</code> that provides the rows.
+   * @param columnCount
+   *    the number of columns of the table.
+   * @param cacheTimeout
+   *    the number of milliseconds a row returned by the provider is cached.
+   *    A value of zero or less disables the cache.
+   * @param maxCachedRows
+   *    the maximum number of cached rows. If more rows are fetched, the least
+   *    recently used rows are removed from the cache.
+   */
+  public VirtualMOTableModel(MOTableRowProvider rowProvider, int columnCount,
+                             long cacheTimeout, int maxCachedRows) {
+    this.rowProvider = rowProvider;
+    this.columnCount = columnCount;
+    this.cacheTimeout = cacheTimeout;
+    this.maxCachedRows = maxCachedRows;
+    if ((cacheTimeout > 0) && (maxCachedRows > 0)) {
+      rowCache = new LinkedHashMap(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+          return size() > VirtualMOTableModel.this.maxCachedRows;
+        }
+      };
+    }
+  }
+
+  public MOTableRowProvider getRowProvider() {
+    return rowProvider;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Sets the number of rows an iterator of this model fetches at once from
+   * the row provider.
+   * @param chunkSize
+   *    a value greater than zero.
+   */
+  public void setChunkSize(int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive: "+
+                                         chunkSize);
+    }
+    this.chunkSize = chunkSize;
+  }
+
+  public long getCacheTimeout() {
+    return cacheTimeout;
+  }
+
+  /**
+   * Removes all rows from the row cache, for example when the data source
+   * has changed.
+   */
+  public synchronized void clearCache() {
+    if (rowCache != null) {
+      rowCache.clear();
+    }
+  }
+
+  private synchronized MOTableRow getCachedRow(OID index) {
+    if (rowCache == null) {
+      return null;
+    }
+    CachedRow cachedRow = (CachedRow) rowCache.get(index);
+    if (cachedRow == null) {
+      return null;
+    }
+    if (cachedRow.expires < System.currentTimeMillis()) {
+      rowCache.remove(index);
+      return null;
+    }
+    return cachedRow.row;
+  }
+
+  private synchronized void cacheRows(List rows) {
+    if (rowCache != null) {
+      long expires = System.currentTimeMillis() + cacheTimeout;
+      for (Iterator it = rows.iterator(); it.hasNext(); ) {
+        MOTableRow row = (MOTableRow) it.next();
+        rowCache.put(row.getIndex(), new CachedRow(row, expires));
+      }
+    }
+  }
+
+  public int getColumnCount() {
+    return columnCount;
+  }
+
+  public int getRowCount() {
+    return rowProvider.getRowCount();
+  }
+
+  public boolean containsRow(OID index) {
+    return (getRow(index) != null);
+  }
+
+  public MOTableRow getRow(OID index) {
+    MOTableRow row = getCachedRow(index);
+    if (row == null) {
+      row = rowProvider.getRow(index);
+      if (row != null) {
+        cacheRows(Collections.singletonList(row));
+      }
+    }
+    return row;
+  }
+
+  public Iterator iterator() {
+    return new ChunkIterator(null);
+  }
+
+  public Iterator tailIterator(OID lowerBound) {
+    return new ChunkIterator(lowerBound);
+  }
+
+  public OID firstIndex() {
+    MOTableRow row = firstRow();
+    return (row == null) ? null : row.getIndex();
+  }
+
+  public OID lastIndex() {
+    MOTableRow row = lastRow();
+    return (row == null) ? null : row.getIndex();
+  }
+
+  public MOTableRow firstRow() {
+    List rows = rowProvider.getRows(null, 1);
+    return (rows.isEmpty()) ? null : (MOTableRow) rows.get(0);
+  }
+
+  public MOTableRow lastRow() {
+    return rowProvider.getLastRow();
+  }
+
+  /**
+   * A row with its cache expiration time.
+   */
+  private static class CachedRow {
+    private MOTableRow row;
+    private long expires;
+
+    CachedRow(MOTableRow row, long expires) {
+      this.row = row;
+      this.expires = expires;
+    }
+  }
+
+  /**
+   * Iterates over the rows of the provider by fetching chunks of rows.
+   */
+  private class ChunkIterator implements Iterator {
+
+    private OID lowerBound;
+    private Iterator chunk;
+    private boolean lastChunk;
+
+    ChunkIterator(OID lowerBound) {
+      this.lowerBound = lowerBound;
+    }
+
+    public boolean hasNext() {
+      while ((chunk == null) || (!chunk.hasNext())) {
+        if (lastChunk) {
+          return false;
+        }
+        fetch();
+      }
+      return true;
+    }
+
+    private void fetch() {
+      List rows = rowProvider.getRows(lowerBound, chunkSize);
+      lastChunk = (rows.size() < chunkSize);
+      if (!rows.isEmpty()) {
+        lowerBound = ((MOTableRow) rows.get(rows.size()-1)).getIndex().
+            successor();
+        cacheRows(rows);
+      }
+      chunk = rows.iterator();
+    }
+
+    public Object next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return chunk.next();
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - CounterScalar.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo.snmp;
+
+import java.io.IOException;
+
+import org.snmp4j.agent.MOAccess;
+import org.snmp4j.agent.io.MOOutput;
+import org.snmp4j.agent.mo.*;
+import org.snmp4j.agent.mo.util.StripedCounter;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.smi.*;
+
+/**
+ * The <code>CounterScalar</code> is a read-only scalar with
+ * <code>Counter32</code> or <code>Counter64</code> syntax for counters that
+ * are incremented by many threads, like the statistics counters of the
+ * {@link SNMPv2MIB}, the {@link UsmMIB}, and the {@link SnmpTargetMIB}.
+ * The count is held by a {@link StripedCounter}, so {@link #increment()}
+ * neither locks the scalar nor modifies a shared <code>Variable</code>
+ * instance. {@link #getValue()} returns a new <code>Counter32</code> or
+ * <code>Counter64</code> instance with a snapshot of the count.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class CounterScalar extends MOScalar {
+
+  private final StripedCounter counter = new StripedCounter();
+  private final boolean counter64;
+
+  /**
+   * Creates a counter scalar.
+   * @param id
+   *    the instance OID of the scalar instance.
+   * @param access
+   *    the maximum access level supported by this instance.
+   * @param initialValue
+   *    a <code>Counter32</code> or <code>Counter64</code> value that defines
+   *    the syntax and the initial count.
+   */
+  public CounterScalar(OID id, MOAccess access, Variable initialValue) {
+    super(id, access, initialValue);
+    switch (initialValue.getSyntax()) {
+      case SMIConstants.SYNTAX_COUNTER32:
+        counter64 = false;
+        break;
+      case SMIConstants.SYNTAX_COUNTER64:
+        counter64 = true;
+        break;
+      default:
+        throw new IllegalArgumentException("Syntax of "+initialValue+
+                                           " is not a counter syntax");
+    }
+    counter.set(initialValue.toLong());
+  }
+
+  /**
+   * Increments the counter by one.
+   */
+  public void increment() {
+    counter.increment();
+  }
+
+  /**
+   * Adds the specified amount to the counter.
+   * @param delta
+   *    the amount to add.
+   */
+  public void add(long delta) {
+    counter.add(delta);
+  }
+
+  /**
+   * Returns the count as <code>long</code> value. Unlike the value returned
+   * by {@link #getValue()}, the count of a <code>Counter32</code> scalar does
+   * not wrap at 2^32.
+   * @return
+   *    the number of increments.
+   */
+  public long getCount() {
+    return counter.get();
+  }
+
+  /**
+   * Returns a snapshot of the count.
+   * @return
+   *    a new <code>Counter32</code> or <code>Counter64</code> instance.
+   */
+  public Variable getValue() {
+    long count = counter.get();
+    if (counter64) {
+      return new Counter64(count);
+    }
+    return new Counter32(count & 0xFFFFFFFFL);
+  }
+
+  public int setValue(Variable value) {
+    counter.set(value.toLong());
+    return SnmpConstants.SNMP_ERROR_SUCCESS;
+  }
+
+  public synchronized void save(MOOutput output) throws IOException {
+    output.writeVariable(getValue());
+  }
+}
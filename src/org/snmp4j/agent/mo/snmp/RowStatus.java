@@ -26,6 +26,7 @@ import java.util.*;
 import org.snmp4j.*;
 import org.snmp4j.agent.*;
 import org.snmp4j.agent.mo.*;
+import org.snmp4j.agent.mo.util.VariableInterner;
 import org.snmp4j.agent.request.*;
 import org.snmp4j.smi.*;
 import org.snmp4j.log.LogAdapter;
@@ -216,20 +217,26 @@ public class RowStatus extends MOMutableColumn implements MOChangeListener,
       }
       case createAndWait: {
         if (isReady(row, column)) {
-          ((Integer32)row.getValue(column)).setValue(RowStatus.notInService);
+          setStatus(row, column, RowStatus.notInService);
         }
         else {
-          ((Integer32) row.getValue(column)).setValue(RowStatus.notReady);
+          setStatus(row, column, RowStatus.notReady);
         }
         break;
       }
       case createAndGo: {
-        ((Integer32)row.getValue(column)).setValue(RowStatus.active);
+        setStatus(row, column, RowStatus.active);
         break;
       }
     }
   }
 
+  private static void setStatus(MOTableRow row, int column, int status) {
+    // row values may be shared, so replace rather than modify the value
+    ((MOMutableTableRow)row).setValue(column,
+        VariableInterner.getInstance().intern(new Integer32(status)));
+  }
+
   public void undo(SubRequest subRequest, MOTableRow row, int column) {
     super.undo(subRequest, row, column);
     if (!subRequest.hasError()) {
@@ -445,8 +452,7 @@ public class RowStatus extends MOMutableColumn implements MOChangeListener,
           case notReady: {
             if ((event.getRow() instanceof MOMutableTableRow) &&
                 (isReady(event.getRow(), columnIndex))) {
-              ((MOMutableTableRow) event.getRow()).setValue(columnIndex,
-                  new Integer32(notInService));
+              setStatus(event.getRow(), columnIndex, notInService);
             }
             break;
           }
@@ -478,9 +484,10 @@ public class RowStatus extends MOMutableColumn implements MOChangeListener,
 
   public void get(SubRequest subRequest, MOTableRow row, int column) {
     Integer32 rowStatus = (Integer32) getValue(row, column);
-    if ((rowStatus != null) && (rowStatus.getValue() == notReady)) {
+    if ((rowStatus != null) && (rowStatus.getValue() == notReady) &&
+        (row instanceof MOMutableTableRow)) {
       if (isReady(row, column)) {
-        rowStatus.setValue(notInService);
+        setStatus(row, column, notInService);
       }
     }
     super.get(subRequest, row, column);
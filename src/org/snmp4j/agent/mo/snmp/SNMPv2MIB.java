@@ -166,9 +166,9 @@ public class SNMPv2MIB implements MOGroup, CounterListener, AgentCapabilityList
   private void createSnmpStats() {
     snmpStats = new MOScalar[snmpStatsOIDs.length];
     for (int i=0; i<snmpStatsOIDs.length; i++) {
-      snmpStats[i] = new MOScalar(snmpStatsOIDs[i],
-                                  MOAccessImpl.ACCESS_READ_ONLY,
-                                  new Counter32(0));
+      snmpStats[i] = new CounterScalar(snmpStatsOIDs[i],
+                                       MOAccessImpl.ACCESS_READ_ONLY,
+                                       new Counter32(0));
     }
   }
 
@@ -333,9 +333,8 @@ public class SNMPv2MIB implements MOGroup, CounterListener, AgentCapabilityList
       int suffix = event.getOid().get(snmpStatsPrefix.size());
       for (int i=0; i<snmpStatsOIDs.length; i++) {
         if (suffix == snmpStatsOIDs[i].get(snmpStatsPrefix.size())) {
-          Counter32 current = (Counter32) snmpStats[i].getValue();
-          current.increment();
-          event.setCurrentValue((Counter32)current.clone());
+          ((CounterScalar) snmpStats[i]).increment();
+          event.setCurrentValue(snmpStats[i].getValue());
         }
       }
     }
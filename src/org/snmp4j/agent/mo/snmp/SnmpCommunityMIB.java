@@ -118,8 +118,8 @@ implements MOGroup
   private static final LogAdapter logger =
       LogFactory.getLogger(SnmpCommunityMIB.class);
 
-  private Map coexistenceInfo;
-  private Map communityInfo;
+  private MOTableSecondaryIndex coexistenceInfo;
+  private MOTableSecondaryIndex communityInfo;
   private SnmpTargetMIB targetMIB;
   private boolean sourceAddressFiltering;
 
@@ -190,8 +190,14 @@ implements MOGroup
     snmpCommunityEntryColumns[idxSnmpCommunityStatus] =
       new RowStatus(colSnmpCommunityStatus);
 
-    snmpCommunityEntryModel = new DefaultMOMutableTableModel();
-    snmpCommunityEntryModel.setRowFactory(new SnmpCommunityEntryRowFactory());
+    DefaultMOMutableTableModel model = new DefaultMOMutableTableModel();
+    model.setRowFactory(new SnmpCommunityEntryRowFactory());
+    coexistenceInfo = model.addSecondaryIndex(
+        new MOTableSecondaryIndex.ColumnKeyFunction(idxSnmpCommunityName));
+    communityInfo = model.addSecondaryIndex(
+        new MOTableSecondaryIndex.ColumnKeyFunction(
+            idxSnmpCommunitySecurityName));
+    snmpCommunityEntryModel = model;
     snmpCommunityEntry =
       moFactory.createTable(oidSnmpCommunityEntry,
                             snmpCommunityEntryIndex,
@@ -377,47 +383,12 @@ implements MOGroup
     {
       SnmpCommunityEntryRow row = new SnmpCommunityEntryRow(index, values);
       //--AgentGen BEGIN=snmpCommunityEntry::createRow
-      if (coexistenceInfo == null) {
-        coexistenceInfo = Collections.synchronizedMap(new HashMap());
-      }
-      SortedSet cinfos =
-          (SortedSet) coexistenceInfo.get(values[idxSnmpCommunityName]);
-      if (cinfos == null) {
-        cinfos = new TreeSet();
-        coexistenceInfo.put(values[idxSnmpCommunityName], cinfos);
-      }
-      cinfos.add(row);
-      if (communityInfo == null) {
-        communityInfo = Collections.synchronizedMap(new HashMap());
-      }
-      List l = (List) communityInfo.get(values[idxSnmpCommunitySecurityName]);
-      if (l == null) {
-        l = new LinkedList();
-        communityInfo.put(values[idxSnmpCommunitySecurityName], l);
-      }
-      l.add(row);
       //--AgentGen END
       return row;
     }
 
     public synchronized void freeRow(MOTableRow row) {
      //--AgentGen BEGIN=snmpCommunityEntry::freeRow
-     SortedSet cinfos =
-         (SortedSet) coexistenceInfo.get(row.getValue(idxSnmpCommunityName));
-     if (cinfos != null) {
-       cinfos.remove(row);
-       if (cinfos.isEmpty()) {
-         coexistenceInfo.remove(row.getValue(idxSnmpCommunityName));
-       }
-     }
-     List l =
-         (List) communityInfo.get(row.getValue(idxSnmpCommunitySecurityName));
-     if (l != null) {
-       l.remove(row);
-       if (l.size() == 0) {
-         communityInfo.remove(row.getValue(idxSnmpCommunitySecurityName));
-       }
-     }
      //--AgentGen END
     }
   }
@@ -540,13 +511,8 @@ implements MOGroup
     if (logger.isDebugEnabled()) {
       logger.debug("Looking up coexistence info for '"+community+"'");
     }
-    if (coexistenceInfo == null) {
-      return null;
-    }
-    SortedSet cinfos = (SortedSet)coexistenceInfo.get(community);
-    if (cinfos != null) {
-      // make a copy to improve consistency on concurrent access
-      cinfos = new TreeSet(cinfos);
+    List cinfos = coexistenceInfo.getRows(community);
+    if (!cinfos.isEmpty()) {
       Iterator it = cinfos.iterator();
       CoexistenceInfo[] infos = new CoexistenceInfo[cinfos.size()];
       for (int i=0; i<infos.length; i++) {
@@ -663,8 +629,8 @@ implements MOGroup
   public OctetString getCommunity(OctetString securityName,
                                   OctetString contextEngineID,
                                   OctetString contextName) {
-    List l = (List) communityInfo.get(securityName);
-    if (l != null) {
+    List l = communityInfo.getRows(securityName);
+    if (!l.isEmpty()) {
       for (Iterator it = l.iterator(); it.hasNext(); ) {
         SnmpCommunityEntryRow row = (SnmpCommunityEntryRow) it.next();
         if (row.getSnmpCommunityStatus().getValue() == RowStatus.active) {
@@ -326,8 +326,7 @@ public class SnmpNotificationMIB implements MOGroup {
     TreeMap[] vbMatches = new TreeMap[vbs.length];
     for (Iterator it = filters.iterator(); it.hasNext(); ) {
       MOTableRow row = (MOTableRow) it.next();
-      Variable[] indexValues =
-          snmpNotifyFilterEntryIndex.getIndexValues(row.getIndex());
+      Variable[] indexValues = snmpNotifyFilterEntryIndex.getIndexValues(row);
       OID subtree = (OID) indexValues[idxSnmpNotifyFilterSubtree];
       OctetString mask = (OctetString)row.getValue(idxSnmpNotifyFilterMask);
       Integer32 type = (Integer32)row.getValue(idxSnmpNotifyFilterType);
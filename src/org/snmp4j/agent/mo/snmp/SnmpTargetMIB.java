@@ -40,8 +40,7 @@ import org.snmp4j.smi.*;
 //--AgentGen BEGIN=_IMPORT
 //--AgentGen END
 
-public class SnmpTargetMIB implements MOGroup, CounterListener,
-    MOTableRowListener {
+public class SnmpTargetMIB implements MOGroup, CounterListener {
 
   private static final LogAdapter logger =
       LogFactory.getLogger(SnmpTargetMIB.class);
@@ -55,12 +54,12 @@ public class SnmpTargetMIB implements MOGroup, CounterListener,
   private static final OID oidSnmpUnknownContexts =
       new OID(new int[] {1, 3, 6, 1, 6, 3, 12, 1, 5, 0});
 
-  private MOScalar snmpUnknownContexts;
+  private CounterScalar snmpUnknownContexts;
 
   private static final OID oidSnmpUnavailableContexts =
       new OID(new int[] {1, 3, 6, 1, 6, 3, 12, 1, 4, 0});
 
-  private MOScalar snmpUnavailableContexts;
+  private CounterScalar snmpUnavailableContexts;
 
   private static final OID oidSnmpTargetParamsEntry =
       new OID(new int[] {1, 3, 6, 1, 6, 3, 12, 1, 3, 1});
@@ -131,7 +130,7 @@ public class SnmpTargetMIB implements MOGroup, CounterListener,
   private DefaultMOTable snmpTargetAddrEntry;
   private DefaultMOMutableTableModel snmpTargetAddrEntryModel;
 
-  private Hashtable snmpTargetAddrTagIndex = new Hashtable();
+  private MOTableSecondaryIndex snmpTargetAddrTagIndex;
 
   // maps TDomain OIDs to TDomainAddressFactory instances
   private Hashtable supportedAddressClasses = new Hashtable();
@@ -142,25 +141,20 @@ public class SnmpTargetMIB implements MOGroup, CounterListener,
     this.messageDispatcher = messageDispatcher;
     snmpTargetSpinLock = new TestAndIncr(oidSnmpTargetSpinLock);
     snmpUnknownContexts =
-        new MOScalar(oidSnmpUnknownContexts,
-                     MOAccessImpl.ACCESS_READ_ONLY, new Counter32());
+        new CounterScalar(oidSnmpUnknownContexts,
+                          MOAccessImpl.ACCESS_READ_ONLY, new Counter32());
     snmpUnavailableContexts =
-        new MOScalar(oidSnmpUnavailableContexts,
-                     MOAccessImpl.ACCESS_READ_ONLY, new Counter32());
+        new CounterScalar(oidSnmpUnavailableContexts,
+                          MOAccessImpl.ACCESS_READ_ONLY, new Counter32());
     createSnmpTargetParamsEntry();
     createSnmpTargetAddrEntry();
   }
 
   public Collection getTargetAddrRowsForTag(OctetString tag) {
-    Collection l = (Collection)snmpTargetAddrTagIndex.get(tag);
-    if (l == null) {
+    Collection l = snmpTargetAddrTagIndex.getRows(tag);
+    if (l.isEmpty()) {
       return Collections.EMPTY_SET;
     }
-    else {
-      synchronized (l) {
-        l = new ArrayList(l);
-      }
-    }
     return l;
   }
 
@@ -238,32 +232,21 @@ public class SnmpTargetMIB implements MOGroup, CounterListener,
 
   public MOTableRow removeTargetAddress(OctetString name) {
     OID index = name.toSubIndex(true);
-    MOTableRow removedRow = snmpTargetAddrEntry.removeRow(index);
-    if (removedRow != null) {
-      removeRowFromTargetAddrTagIndex(removedRow);
-    }
-    return removedRow;
+    return snmpTargetAddrEntry.removeRow(index);
   }
 
+  /**
+   * Does nothing. This method formerly removed a row from the tag index.
+   * The tag index is now a secondary index of the table model which is
+   * updated when rows are removed from the model. The method is kept for
+   * sub-classes calling or overriding it only.
+   * @param removedRow
+   *    a row removed from the snmpTargetAddrTable.
+   * @deprecated
+   *    The tag index is maintained by the table model, this method is a
+   *    no-op.
+   */
   protected void removeRowFromTargetAddrTagIndex(MOTableRow removedRow) {
-    OctetString tagList =
-        (OctetString) removedRow.getValue(idxSnmpTargetAddrTagList);
-    Set tags = SnmpTagList.getTags(tagList);
-    if ((tags != null) && (this.snmpTargetAddrTagIndex != null)) {
-      for (Iterator it = tags.iterator(); it.hasNext(); ) {
-        Object item = it.next();
-        Collection indexRows =
-            (Collection) this.snmpTargetAddrTagIndex.get(item);
-        if (indexRows != null) {
-          synchronized (indexRows) {
-            indexRows.remove(removedRow);
-            if (indexRows.isEmpty()) {
-              this.snmpTargetAddrTagIndex.remove(item);
-            }
-          }
-        }
-      }
-    }
   }
 
   public boolean addTargetParams(OctetString name, int mpModel, int secModel,
@@ -401,6 +384,8 @@ public class SnmpTargetMIB implements MOGroup, CounterListener,
                            snmpTargetAddrEntryColumns);
     snmpTargetAddrEntryModel = new DefaultMOMutableTableModel();
     snmpTargetAddrEntryModel.setRowFactory(new SnmpTargetAddrEntryFactory());
+    snmpTargetAddrTagIndex =
+        snmpTargetAddrEntryModel.addSecondaryIndex(new TagListKeyFunction());
     snmpTargetAddrEntry.setModel(snmpTargetAddrEntryModel);
   }
 
@@ -423,6 +408,22 @@ public class SnmpTargetMIB implements MOGroup, CounterListener,
     server.unregister(this.snmpTargetAddrEntry, context);
   }
 
+  /**
+   * Returns the tags of the snmpTargetAddrTagList column of a row as its
+   * keys for the tag index.
+   */
+  static class TagListKeyFunction implements MOTableRowKeyFunction {
+
+    public Collection getKeys(MOTableRow row) {
+      OctetString tagList =
+          (OctetString) row.getValue(idxSnmpTargetAddrTagList);
+      if (tagList == null) {
+        return null;
+      }
+      return SnmpTagList.getTags(tagList);
+    }
+  }
+
   class SnmpTargetAddrEntryFactory implements MOTableRowFactory {
 
     public MOTableRow createRow(OID index, Variable[] values) throws
@@ -467,60 +468,6 @@ public class SnmpTargetMIB implements MOGroup, CounterListener,
   public class SnmpTargetAddrEntryRow extends DefaultMOMutableRow2PC {
     public SnmpTargetAddrEntryRow(OID index, Variable[] values) {
       super(index, values);
-      updateUserObject(this);
-    }
-
-    private void updateUserObject(MOTableRow changeSet) {
-      Variable tagList = changeSet.getValue(idxSnmpTargetAddrTagList);
-      if (tagList != null) {
-        Set obsolete = (Set) getUserObject();
-        Set tags = SnmpTagList.getTags((OctetString)tagList);
-        if (obsolete != null) {
-          obsolete.removeAll(tags);
-        }
-        setUserObject(tags);
-        updateIndex(obsolete, tags);
-      }
-    }
-
-    public void commitRow(SubRequest subRequest, MOTableRow changeSet) {
-      super.commitRow(subRequest, changeSet);
-      updateUserObject(changeSet);
-    }
-
-    private void updateIndex(Set remove, Set tags) {
-      if (remove != null) {
-        for (Iterator it = remove.iterator(); it.hasNext(); ) {
-          Object next = it.next();
-          Collection list = (Collection) snmpTargetAddrTagIndex.get(next);
-          if (list != null) {
-            synchronized (list) {
-              if (!list.remove(this)) {
-                logger.error("Inconsistent tag value '" + next +
-                             "' for rows: " + list);
-              }
-            }
-          }
-          else {
-            logger.error("Tag value '" + next + "' not found in tag index");
-          }
-        }
-      }
-      for (Iterator it = tags.iterator(); it.hasNext(); ) {
-        Object next = it.next();
-        Set list = (Set) snmpTargetAddrTagIndex.get(next);
-        if (list == null) {
-          list = new HashSet();
-        }
-        synchronized (list) {
-          if (!list.add(this)) {
-            // make sure this version of the row is part of the index
-            list.remove(this);
-            list.add(this);
-          }
-        }
-        snmpTargetAddrTagIndex.put(next, list);
-      }
     }
 
     public void prepareRow(SubRequest subRequest, MOTableRow changeSet) {
@@ -765,11 +712,11 @@ public class SnmpTargetMIB implements MOGroup, CounterListener,
 
   public void incrementCounter(CounterEvent event) {
     if (event.getOid().equals(snmpUnavailableContexts.getOid())) {
-      ((Counter32) snmpUnavailableContexts.getValue()).increment();
+      snmpUnavailableContexts.increment();
       event.setCurrentValue(snmpUnavailableContexts.getValue());
     }
     else if (event.getOid().equals(snmpUnknownContexts.getOid())) {
-      ((Counter32) snmpUnknownContexts.getValue()).increment();
+      snmpUnknownContexts.increment();
       event.setCurrentValue(snmpUnknownContexts.getValue());
     }
   }
@@ -784,17 +731,6 @@ public class SnmpTargetMIB implements MOGroup, CounterListener,
 
 //--AgentGen BEGIN=_CLASSES
 
-  public void rowChanged(MOTableRowEvent event) {
-    if ((event.getType() == MOTableRowEvent.DELETE) &&
-        (event.getRow() instanceof SnmpTargetAddrEntryRow)) {
-      Variable[] vbs = new Variable[event.getRow().size()];
-      vbs[idxSnmpTargetAddrTagList] = new OctetString();
-      MOTableRow dummyRow =
-          new DefaultMOTableRow(event.getRow().getIndex(), vbs);
-      ((SnmpTargetAddrEntryRow)event.getRow()).updateUserObject(dummyRow);
-    }
-  }
-
   /**
    * Returns the SNMP Target Parameters row for the specified name.
    * @param paramsName
@@ -206,8 +206,9 @@ public class UsmMIB
   private void createUsmStats() {
     usmStats = new MOScalar[usmStatOIDs.length];
     for (int i=0; i<usmStats.length; i++) {
-      usmStats[i] = new MOScalar(usmStatOIDs[i], MOAccessImpl.ACCESS_READ_ONLY,
-                                 new Counter32(0));
+      usmStats[i] = new CounterScalar(usmStatOIDs[i],
+                                      MOAccessImpl.ACCESS_READ_ONLY,
+                                      new Counter32(0));
     }
   }
 
@@ -231,10 +232,10 @@ public class UsmMIB
   public void incrementCounter(CounterEvent event) {
     if ((event.getOid().startsWith(usmStatsPrefix)) &&
         (event.getOid().size() > usmStatsPrefix.size())) {
-      Counter32 current = (Counter32)
-           usmStats[event.getOid().get(usmStatsPrefix.size())-1].getValue();
+      CounterScalar current = (CounterScalar)
+           usmStats[event.getOid().get(usmStatsPrefix.size())-1];
       current.increment();
-      event.setCurrentValue((Counter32)current.clone());
+      event.setCurrentValue(current.getValue());
     }
   }
 
@@ -40,7 +40,7 @@ import org.snmp4j.smi.*;
  * @author Frank Fock
  * @version 1.0
  */
-public class VacmMIB implements MOGroup, MutableVACM {
+public class VacmMIB implements MOGroup, MutableVACM, NavigableVACM {
 
   private static final LogAdapter logger = LogFactory.getLogger(VacmMIB.class);
 
@@ -376,7 +376,7 @@ public class VacmMIB implements MOGroup, MutableVACM {
           RowStatus.active) {
         continue;
       }
-      Variable[] indexValues = vacmAccessIndex.getIndexValues(row.getIndex());
+      Variable[] indexValues = vacmAccessIndex.getIndexValues(row);
       OctetString rowContext =
           (OctetString) indexValues[idxVacmAccessContextPrefix];
       int rowSecurityModel =
@@ -474,6 +474,10 @@ public class VacmMIB implements MOGroup, MutableVACM {
       }
       return VACM.VACM_NO_SUCH_VIEW;
     }
+    return isAccessAllowed(views, viewName, oid);
+  }
+
+  private int isAccessAllowed(List views, OctetString viewName, OID oid) {
     // iterate from back to forth because the views list must be ordered by
     // subtree length (view name is the same for all entries) which is the
     // criteria to find the appropritate view access entry.
@@ -484,8 +488,7 @@ public class VacmMIB implements MOGroup, MutableVACM {
         // only active rows are relevant
         continue;
       }
-      OID index = row.getIndex();
-      Variable[] indexValues = vacmViewTreeFamilyIndex.getIndexValues(index);
+      Variable[] indexValues = vacmViewTreeFamilyIndex.getIndexValues(row);
       OID subtree = (OID) indexValues[idxVacmViewTreeSubtree];
       if (oid.size() < subtree.size()) {
         // no match
@@ -522,6 +525,89 @@ public class VacmMIB implements MOGroup, MutableVACM {
     return VACM.VACM_NOT_IN_VIEW;
   }
 
+  /**
+   * Returns the next OID following the supplied OID that may be in the
+   * specified view. Without wildcards in the family masks, the access
+   * decision only changes at the first OID of a view tree family subtree and
+   * at the first OID following such a subtree. Thus, the boundaries of the
+   * view are the subtrees of its families and their next peers. If a family
+   * of the view has a wildcard mask, the successor of <code>oid</code> is
+   * returned.
+   *
+   * @param viewName
+   *    the name of an existing view.
+   * @param oid
+   *    an object instance OID, typically one that is not in the view.
+   * @return
+   *    the first view boundary greater than <code>oid</code> that is in the
+   *    view, the successor of <code>oid</code> if it is in the view, or
+   *    <code>null</code> if no OID greater than <code>oid</code> is in the
+   *    view.
+   * @since 1.4.4
+   */
+  public OID getNextViewBoundary(OctetString viewName, OID oid) {
+    List views = getViews(viewName);
+    if (views.size() == 0) {
+      return null;
+    }
+    if (isAccessAllowed(views, viewName, oid) == VACM.VACM_OK) {
+      return oid.successor();
+    }
+    SortedSet boundaries = new TreeSet();
+    for (Iterator it = views.iterator(); it.hasNext(); ) {
+      MOTableRow row = (MOTableRow) it.next();
+      if (((Integer32)row.getValue(idxVacmViewTreeFamilyRowStatus)).getValue()!=
+          RowStatus.active) {
+        continue;
+      }
+      Variable[] indexValues = vacmViewTreeFamilyIndex.getIndexValues(row);
+      OID subtree = (OID) indexValues[idxVacmViewTreeSubtree];
+      OctetString mask = (OctetString) row.getValue(idxVacmViewTreeFamilyMask);
+      for (int i=0; i<subtree.size(); i++) {
+        if (!isBitSet(i, mask)) {
+          // wildcards cannot be mapped to lexicographic ranges
+          return oid.successor();
+        }
+      }
+      if (subtree.compareTo(oid) > 0) {
+        // copy the cached index value, because the boundary is returned
+        boundaries.add(new OID(subtree));
+      }
+      OID nextSubtree = getNextSubtree(subtree);
+      if ((nextSubtree != null) && (nextSubtree.compareTo(oid) > 0)) {
+        boundaries.add(nextSubtree);
+      }
+    }
+    for (Iterator it = boundaries.iterator(); it.hasNext(); ) {
+      OID boundary = (OID) it.next();
+      if (isAccessAllowed(views, viewName, boundary) == VACM.VACM_OK) {
+        return boundary;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the first OID following all OIDs of the supplied subtree.
+   * @param subtree
+   *    an OID.
+   * @return
+   *    the next peer of <code>subtree</code> or <code>null</code> if there is
+   *    no such OID.
+   */
+  private static OID getNextSubtree(OID subtree) {
+    OID next = new OID(subtree);
+    while (next.size() > 0) {
+      int last = next.last();
+      if (last != -1) {
+        next.set(next.size()-1, last+1);
+        return next;
+      }
+      next.removeLast();
+    }
+    return null;
+  }
+
   /**
    * Adds a security model and name to group name mapping to this VACM. Any
    * already existing mapping for the security name and model will be silently
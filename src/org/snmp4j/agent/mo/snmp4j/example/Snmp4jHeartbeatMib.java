@@ -598,7 +598,8 @@ public class Snmp4jHeartbeatMib
         }
         else {
           cancel();
-          configRow.getSnmp4jAgentHBCtrlRowStatus().setValue(RowStatus.notInService);
+          configRow.setSnmp4jAgentHBCtrlRowStatus(
+              new Integer32(RowStatus.notInService));
         }
       }
       else {
@@ -0,0 +1,400 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - EvictingMOTableSizeLimit.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo.util;
+
+import java.util.*;
+
+import org.snmp4j.PDU;
+import org.snmp4j.agent.mo.*;
+import org.snmp4j.smi.OID;
+
+/**
+ * The <code>EvictingMOTableSizeLimit</code> is a {@link MOTableSizeLimit}
+ * that removes rows from a table when adding rows would exceed its limit.
+ * The rows to remove are chosen by an eviction policy:
+ * <ul>
+ * <li>{@link #EVICT_OLDEST} removes the rows that have been added first.</li>
+ * <li>{@link #EVICT_LRU} removes the rows that have not been read by a GET or
+ * GETNEXT sub-request for the longest time. The instance registers itself as
+ * {@link MOTableRowAccessListener} with the {@link DefaultMOTable}s it
+ * limits.</li>
+ * </ul>
+ * In addition, rows can be given a time to live. Rows older than that (or
+ * not read within that time with {@link #EVICT_LRU}) are removed when a row
+ * is added to the table or when {@link #removeExpiredRows} is called.
+ * <p>
+ * For each table, the rows are kept in a doubly linked list in eviction order
+ * with a hash map from row index to list node. Adding, reading, and removing
+ * a row as well as choosing the next row to evict are thus constant time
+ * operations. Rows are removed through {@link MOTable#removeRow}, so row
+ * listeners and table relations are informed about evicted rows. Rows that
+ * have been added before this listener was registered are not known to the
+ * policy and are removed in index order when there are not enough known rows
+ * to evict.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class EvictingMOTableSizeLimit extends MOTableSizeLimit
+    implements MOTableRowAccessListener
+{
+
+  /**
+   * Evict the rows that have been added first.
+   */
+  public static final int EVICT_OLDEST = 1;
+  /**
+   * Evict the rows that have been read least recently.
+   */
+  public static final int EVICT_LRU = 2;
+
+  private int policy;
+  private long rowTimeToLive;
+  private Map rowLists = new IdentityHashMap();
+
+  /**
+   * Creates a size limit with a maximum number of rows for all tables.
+   *
+   * @param maxNumRows
+   *    the maximum number of rows of a table or zero for no limit.
+   * @param policy
+   *    the eviction policy, {@link #EVICT_OLDEST} or {@link #EVICT_LRU}.
+   */
+  public EvictingMOTableSizeLimit(int maxNumRows, int policy) {
+    super(maxNumRows);
+    setPolicy(policy);
+  }
+
+  /**
+   * Creates a size limit from size limit properties as defined by
+   * {@link MOTableSizeLimit}.
+   *
+   * @param limits
+   *    the size limit properties.
+   * @param policy
+   *    the eviction policy, {@link #EVICT_OLDEST} or {@link #EVICT_LRU}.
+   */
+  public EvictingMOTableSizeLimit(Properties limits, int policy) {
+    super(limits);
+    setPolicy(policy);
+  }
+
+  private void setPolicy(int policy) {
+    if ((policy != EVICT_OLDEST) && (policy != EVICT_LRU)) {
+      throw new IllegalArgumentException("Unknown eviction policy: "+policy);
+    }
+    this.policy = policy;
+  }
+
+  public int getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Sets the time to live of the rows. With {@link #EVICT_OLDEST} the time
+   * is counted from adding a row, with {@link #EVICT_LRU} from reading it.
+   *
+   * @param rowTimeToLive
+   *    the time to live in milliseconds or zero if rows do not expire.
+   */
+  public void setRowTimeToLive(long rowTimeToLive) {
+    this.rowTimeToLive = rowTimeToLive;
+  }
+
+  public long getRowTimeToLive() {
+    return rowTimeToLive;
+  }
+
+  public void rowChanged(MOTableRowEvent event) {
+    switch (event.getType()) {
+      case MOTableRowEvent.ADD: {
+        if (rowTimeToLive > 0) {
+          removeExpiredRows(event.getTable());
+        }
+        super.rowChanged(event);
+        if (event.getVetoStatus() == PDU.noError) {
+          RowList rowList = getRowList(event.getTable(), true);
+          long now = System.currentTimeMillis();
+          synchronized (rowList) {
+            for (Iterator it = event.getRows().iterator(); it.hasNext(); ) {
+              rowList.touch(((MOTableRow) it.next()).getIndex(), now);
+            }
+          }
+        }
+        break;
+      }
+      case MOTableRowEvent.DELETE: {
+        RowList rowList = getRowList(event.getTable(), false);
+        if (rowList != null) {
+          synchronized (rowList) {
+            for (Iterator it = event.getRows().iterator(); it.hasNext(); ) {
+              rowList.remove(((MOTableRow) it.next()).getIndex());
+            }
+          }
+        }
+        break;
+      }
+    }
+  }
+
+  public void rowAccessed(MOTable table, MOTableRow row) {
+    if (policy == EVICT_LRU) {
+      RowList rowList = getRowList(table, false);
+      if (rowList != null) {
+        synchronized (rowList) {
+          rowList.touch(row.getIndex(), System.currentTimeMillis());
+        }
+      }
+    }
+  }
+
+  private RowList getRowList(MOTable table, boolean create) {
+    RowList rowList;
+    synchronized (rowLists) {
+      rowList = (RowList) rowLists.get(table);
+      if ((rowList != null) || (!create)) {
+        return rowList;
+      }
+      rowList = new RowList();
+      rowLists.put(table, rowList);
+    }
+    if ((policy == EVICT_LRU) && (table instanceof DefaultMOTable)) {
+      ((DefaultMOTable)table).addMOTableRowAccessListener(this);
+    }
+    return rowList;
+  }
+
+  /**
+   * Removes the given number of rows chosen by the eviction policy from the
+   * table of the triggering event.
+   *
+   * @param triggeringEvent
+   *    the MOTableRowEvent object that describes the table with exceeding
+   *    row limit.
+   * @param numRows
+   *   the number of rows to remove (if possible).
+   * @return
+   *    <code>true</code> if <code>numRows</code> rows have been removed.
+   */
+  protected boolean removeEldest(MOTableRowEvent triggeringEvent, int numRows) {
+    MOTable table = triggeringEvent.getTable();
+    RowList rowList = getRowList(table, true);
+    int removed = 0;
+    List vetoed = new LinkedList();
+    while (removed < numRows) {
+      OID index;
+      synchronized (rowList) {
+        index = rowList.poll();
+      }
+      if (index == null) {
+        break;
+      }
+      if (evict(table, rowList, index)) {
+        removed++;
+      }
+      else if (table.getModel().getRow(index) != null) {
+        vetoed.add(index);
+      }
+    }
+    if (!vetoed.isEmpty()) {
+      long now = System.currentTimeMillis();
+      synchronized (rowList) {
+        for (Iterator it = vetoed.iterator(); it.hasNext(); ) {
+          rowList.touch((OID) it.next(), now);
+        }
+      }
+    }
+    if (removed < numRows) {
+      // evict rows unknown to the policy in index order
+      List indexes = new ArrayList(numRows - removed);
+      synchronized (table.getModel()) {
+        Iterator it = table.getModel().iterator();
+        while ((indexes.size() < numRows - removed) && it.hasNext()) {
+          indexes.add(((MOTableRow) it.next()).getIndex());
+        }
+      }
+      for (Iterator it = indexes.iterator(); it.hasNext(); ) {
+        if (evict(table, rowList, (OID) it.next())) {
+          removed++;
+        }
+      }
+    }
+    return (removed >= numRows);
+  }
+
+  /**
+   * Removes the rows whose time to live has elapsed from a table. This method
+   * is called when rows are added to a table, but it can also be called
+   * periodically to remove expired rows from tables that do not grow.
+   *
+   * @param table
+   *    a table limited by this size limit.
+   * @return
+   *    the number of removed rows.
+   */
+  public int removeExpiredRows(MOTable table) {
+    RowList rowList = getRowList(table, false);
+    if ((rowList == null) || (rowTimeToLive <= 0)) {
+      return 0;
+    }
+    long expiry = System.currentTimeMillis() - rowTimeToLive;
+    int removed = 0;
+    for (;;) {
+      OID index;
+      synchronized (rowList) {
+        index = rowList.pollOlderThan(expiry);
+      }
+      if (index == null) {
+        break;
+      }
+      if (evict(table, rowList, index)) {
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  private boolean evict(MOTable table, RowList rowList, OID index) {
+    if (table.removeRow(index) != null) {
+      synchronized (rowList) {
+        rowList.evictions++;
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of rows evicted from a table.
+   * @param table
+   *    a table limited by this size limit.
+   * @return
+   *    the number of rows removed to enforce the size limit or the time to
+   *    live.
+   */
+  public long getEvictionCount(MOTable table) {
+    RowList rowList = getRowList(table, false);
+    if (rowList == null) {
+      return 0;
+    }
+    synchronized (rowList) {
+      return rowList.evictions;
+    }
+  }
+
+  /**
+   * Returns the eviction counts of all tables with rows added since this
+   * listener has been registered.
+   * @return
+   *    a <code>SortedMap</code> with the table OIDs as keys and the eviction
+   *    counts as <code>Long</code> values.
+   */
+  public SortedMap getEvictionCounts() {
+    SortedMap counts = new TreeMap();
+    synchronized (rowLists) {
+      for (Iterator it = rowLists.entrySet().iterator(); it.hasNext(); ) {
+        Map.Entry entry = (Map.Entry) it.next();
+        RowList rowList = (RowList) entry.getValue();
+        synchronized (rowList) {
+          counts.put(((MOTable) entry.getKey()).getOID(),
+                     new Long(rowList.evictions));
+        }
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * The row indexes of a table in eviction order.
+   */
+  private static class RowList {
+
+    private Map nodes = new HashMap();
+    private Node head = new Node(null);
+    private long evictions;
+
+    RowList() {
+      head.prev = head;
+      head.next = head;
+    }
+
+    void touch(OID index, long time) {
+      Node node = (Node) nodes.get(index);
+      if (node == null) {
+        node = new Node(index);
+        nodes.put(index, node);
+      }
+      else {
+        unlink(node);
+      }
+      node.time = time;
+      node.prev = head.prev;
+      node.next = head;
+      head.prev.next = node;
+      head.prev = node;
+    }
+
+    void remove(OID index) {
+      Node node = (Node) nodes.remove(index);
+      if (node != null) {
+        unlink(node);
+      }
+    }
+
+    OID poll() {
+      Node node = head.next;
+      if (node == head) {
+        return null;
+      }
+      unlink(node);
+      nodes.remove(node.index);
+      return node.index;
+    }
+
+    OID pollOlderThan(long time) {
+      Node node = head.next;
+      if ((node == head) || (node.time >= time)) {
+        return null;
+      }
+      return poll();
+    }
+
+    private static void unlink(Node node) {
+      node.prev.next = node.next;
+      node.next.prev = node.prev;
+      node.prev = null;
+      node.next = null;
+    }
+  }
+
+  private static class Node {
+
+    private OID index;
+    private long time;
+    private Node prev;
+    private Node next;
+
+    Node(OID index) {
+      this.index = index;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - MOTableRowProvider.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo.util;
+
+import java.util.List;
+
+import org.snmp4j.agent.mo.MOTableRow;
+import org.snmp4j.smi.OID;
+
+/**
+ * The <code>MOTableRowProvider</code> provides the rows of a table from a
+ * data source on demand, for example for a {@link
+ * org.snmp4j.agent.mo.VirtualMOTableModel}. The rows are identified by their
+ * index OID and are returned in lexicographic order of their indexes.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public interface MOTableRowProvider {
+
+  /**
+   * Returns the number of rows of the data source. Implementations that
+   * cannot determine the number of rows efficiently may return an estimate,
+   * but must return zero if, and only if, there are no rows.
+   *
+   * @return
+   *    the number of rows.
+   */
+  int getRowCount();
+
+  /**
+   * Gets the row with the specified index.
+   *
+   * @param index
+   *    the index OID of the row.
+   * @return
+   *    the row with the specified index or <code>null</code> if such a row
+   *    does not exist.
+   */
+  MOTableRow getRow(OID index);
+
+  /**
+   * Gets rows in lexicographic order of their indexes starting at the
+   * specified lower bound.
+   *
+   * @param lowerBound
+   *    the lower bound (inclusive) for the indexes of the returned rows or
+   *    <code>null</code> to start with the first row.
+   * @param maxRows
+   *    the maximum number of rows to return.
+   * @return
+   *    a <code>List</code> of at most <code>maxRows</code> rows. If it
+   *    contains less than <code>maxRows</code> rows, there are no further
+   *    rows.
+   */
+  List getRows(OID lowerBound, int maxRows);
+
+  /**
+   * Gets the row with the lexicographic greatest index.
+   *
+   * @return
+   *    the last row or <code>null</code> if there are no rows.
+   */
+  MOTableRow getLastRow();
+
+}
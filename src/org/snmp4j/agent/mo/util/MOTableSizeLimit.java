@@ -44,7 +44,7 @@ import org.snmp4j.agent.DefaultMOServer;
  * @version 1.4
  * @since 1.1.5
  */
-public class MOTableSizeLimit implements MOTableRowListener {
+public class MOTableSizeLimit implements MOTableRowBatchListener {
 
   /**
    * The property prefix each size limit definition has to start with.
@@ -83,6 +83,18 @@ public class MOTableSizeLimit implements MOTableRowListener {
     }
   }
 
+  /**
+   * Several rows are added by a single operation. The operation is vetoed for
+   * all rows if adding them would exceed the limit and not enough eldest
+   * rows can be removed.
+   *
+   * @param event a <code>MOTableRowEvent</code> describing the event.
+   * @since 1.4.4
+   */
+  public void rowsChanged(MOTableRowEvent event) {
+    rowChanged(event);
+  }
+
   private boolean checkLimits(MOTableRowEvent event) {
     int limit = maxNumRows;
     if ((limits != null) && (!limits.isEmpty())) {
@@ -99,14 +111,15 @@ public class MOTableSizeLimit implements MOTableRowListener {
       }
     }
     int currentSize = 0;
+    int numNewRows = event.getRows().size();
     if (limit > 0) {
       currentSize = event.getTable().getModel().getRowCount();
-      if (currentSize >= limit) {
+      if (currentSize + numNewRows > limit) {
         // remove eldest
-        return removeEldest(event, (currentSize - limit) + 1);
+        return removeEldest(event, (currentSize - limit) + numNewRows);
       }
     }
-    return ((limit <= 0) || (currentSize < limit));
+    return ((limit <= 0) || (currentSize + numNewRows <= limit));
   }
 
   /**
@@ -0,0 +1,137 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - StripedCounter.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo.util;
+
+/**
+ * The <code>StripedCounter</code> is a 64bit counter that can be incremented
+ * by many threads concurrently without contending for a single lock. The
+ * count is spread over a number of cells and each thread increments the cell
+ * selected by its identity hash code. Only threads that map to the same cell
+ * synchronize with each other. The value of the counter is the sum of all
+ * cells, which is computed when the value is read.
+ * <p>
+ * No increment is ever lost, so the counter is exact once concurrent
+ * increments have completed. A value read while other threads increment the
+ * counter includes any subset of those concurrent increments.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class StripedCounter {
+
+  private static final int MAX_CELLS = 64;
+
+  private final Cell[] cells;
+  private final int mask;
+  private volatile long base;
+
+  /**
+   * Creates a counter with a number of cells derived from the number of
+   * available processors.
+   */
+  public StripedCounter() {
+    this(Runtime.getRuntime().availableProcessors() * 2);
+  }
+
+  /**
+   * Creates a counter with the specified number of cells.
+   * @param numCells
+   *    the number of cells, which is rounded up to the next power of two and
+   *    limited to 64.
+   */
+  public StripedCounter(int numCells) {
+    int n = 1;
+    while ((n < numCells) && (n < MAX_CELLS)) {
+      n <<= 1;
+    }
+    cells = new Cell[n];
+    for (int i=0; i<n; i++) {
+      cells[i] = new Cell();
+    }
+    mask = n - 1;
+  }
+
+  /**
+   * Increments the counter by one.
+   */
+  public void increment() {
+    add(1);
+  }
+
+  /**
+   * Adds the specified amount to the counter.
+   * @param delta
+   *    the amount to add.
+   */
+  public void add(long delta) {
+    Cell cell = cells[cellIndex()];
+    synchronized (cell) {
+      cell.value += delta;
+    }
+  }
+
+  /**
+   * Returns the current value of the counter.
+   * @return
+   *    the sum of all increments since creation or the last {@link #set}.
+   */
+  public long get() {
+    long sum = base;
+    for (int i=0; i<cells.length; i++) {
+      sum += cells[i].value;
+    }
+    return sum;
+  }
+
+  /**
+   * Sets the value of the counter. Increments running concurrently with this
+   * method may be lost.
+   * @param value
+   *    the new value.
+   */
+  public synchronized void set(long value) {
+    long sum = 0;
+    for (int i=0; i<cells.length; i++) {
+      sum += cells[i].value;
+    }
+    base = value - sum;
+  }
+
+  private int cellIndex() {
+    int h = System.identityHashCode(Thread.currentThread());
+    // spread the higher bits because identity hash codes are often aligned
+    h ^= (h >>> 16);
+    h ^= (h >>> 7);
+    return h & mask;
+  }
+
+  public String toString() {
+    return Long.toString(get());
+  }
+
+  private static final class Cell {
+    // padding to keep the values of different cells in separate cache lines
+    long p0, p1, p2, p3, p4, p5, p6;
+    volatile long value;
+    long q0, q1, q2, q3, q4, q5, q6;
+  }
+}
@@ -0,0 +1,221 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - VariableInterner.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+
+/**
+ * The <code>VariableInterner</code> maps equal <code>Integer32</code> and
+ * short <code>OctetString</code> values to a single shared instance. When
+ * enabled, table rows created by the standard row factories and values
+ * committed by SET requests are interned, so that the many rows sharing
+ * values like <code>RowStatus</code> active, <code>StorageType</code>
+ * nonVolatile, <code>TruthValue</code>, enumerations, or short descriptors
+ * do not each hold their own copy.
+ * <p>
+ * Interning is disabled by default, because interned values are shared by
+ * many rows and must therefore never be modified in place. Enable it with
+ * {@link #setEnabled} only if no code of the agent modifies row values in
+ * place, for example by calling <code>setValue</code> on the
+ * <code>Integer32</code> returned by a row. A row value has to be changed by
+ * replacing it through
+ * {@link org.snmp4j.agent.mo.MOMutableTableRow#setValue} with a new
+ * instance instead.
+ * <p>
+ * Only instances of exactly the classes <code>Integer32</code> and
+ * <code>OctetString</code> are interned. Counters, gauges, and other
+ * sub-classes are returned unchanged. The number of interned values is
+ * bounded; values beyond that bound are returned unchanged too.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class VariableInterner {
+
+  public static final int DEFAULT_MAX_SIZE = 4096;
+  public static final int DEFAULT_MAX_OCTET_STRING_LENGTH = 32;
+
+  private static final int MIN_CACHED_INTEGER = -1;
+  private static final int MAX_CACHED_INTEGER = 255;
+
+  private static VariableInterner instance = new VariableInterner();
+
+  private final Integer32[] integers =
+      new Integer32[MAX_CACHED_INTEGER - MIN_CACHED_INTEGER + 1];
+  private final Map values = new HashMap();
+  private volatile boolean enabled;
+  private int maxSize = DEFAULT_MAX_SIZE;
+  private int maxOctetStringLength = DEFAULT_MAX_OCTET_STRING_LENGTH;
+
+  /**
+   * Creates a disabled interner.
+   */
+  public VariableInterner() {
+    for (int i=0; i<integers.length; i++) {
+      integers[i] = new Integer32(i + MIN_CACHED_INTEGER);
+    }
+  }
+
+  /**
+   * Returns the interner used by the standard row factories and columns.
+   * @return
+   *    the shared <code>VariableInterner</code>.
+   */
+  public static VariableInterner getInstance() {
+    return instance;
+  }
+
+  /**
+   * Sets the interner used by the standard row factories and columns.
+   * @param interner
+   *    a <code>VariableInterner</code>.
+   */
+  public static void setInstance(VariableInterner interner) {
+    if (interner == null) {
+      throw new NullPointerException();
+    }
+    instance = interner;
+  }
+
+  /**
+   * Returns the shared instance equal to the specified value.
+   *
+   * @param value
+   *    a <code>Variable</code> or <code>null</code>.
+   * @return
+   *    the shared instance that equals <code>value</code>, or
+   *    <code>value</code> itself if it is not interned.
+   */
+  public Variable intern(Variable value) {
+    if ((value == null) || (!enabled)) {
+      return value;
+    }
+    Class c = value.getClass();
+    if (c == Integer32.class) {
+      int i = ((Integer32)value).getValue();
+      if ((i >= MIN_CACHED_INTEGER) && (i <= MAX_CACHED_INTEGER)) {
+        return integers[i - MIN_CACHED_INTEGER];
+      }
+    }
+    else if ((c != OctetString.class) ||
+             (((OctetString)value).length() > maxOctetStringLength)) {
+      return value;
+    }
+    synchronized (values) {
+      Variable shared = (Variable) values.get(value);
+      if (shared == null) {
+        if (values.size() >= maxSize) {
+          return value;
+        }
+        shared = (Variable) value.clone();
+        values.put(shared, shared);
+      }
+      return shared;
+    }
+  }
+
+  /**
+   * Replaces the elements of the specified array by their shared instances.
+   * @param values
+   *    an array of <code>Variable</code> instances, which may contain
+   *    <code>null</code> elements.
+   */
+  public void intern(Variable[] values) {
+    if (enabled) {
+      for (int i=0; i<values.length; i++) {
+        values[i] = intern(values[i]);
+      }
+    }
+  }
+
+  /**
+   * Enables or disables interning. When disabled (default), {@link #intern}
+   * returns its argument.
+   * @param enabled
+   *    <code>true</code> to intern values. Values interned before interning
+   *    is disabled again remain shared by the rows referencing them.
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Sets the maximum number of values interned in addition to the small
+   * integers that are always shared.
+   * @param maxSize
+   *    the maximum number of interned values.
+   */
+  public void setMaxSize(int maxSize) {
+    synchronized (values) {
+      this.maxSize = maxSize;
+    }
+  }
+
+  public int getMaxSize() {
+    synchronized (values) {
+      return maxSize;
+    }
+  }
+
+  /**
+   * Sets the maximum length of <code>OctetString</code> values to intern.
+   * @param maxOctetStringLength
+   *    the maximum length in bytes.
+   */
+  public void setMaxOctetStringLength(int maxOctetStringLength) {
+    this.maxOctetStringLength = maxOctetStringLength;
+  }
+
+  public int getMaxOctetStringLength() {
+    return maxOctetStringLength;
+  }
+
+  /**
+   * Returns the number of interned values besides the small integers.
+   * @return
+   *    the number of interned values.
+   */
+  public int size() {
+    synchronized (values) {
+      return values.size();
+    }
+  }
+
+  /**
+   * Removes all interned values besides the small integers. Rows keep
+   * sharing the instances they already reference.
+   */
+  public void clear() {
+    synchronized (values) {
+      values.clear();
+    }
+  }
+}
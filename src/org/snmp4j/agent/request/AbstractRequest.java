@@ -42,10 +42,30 @@ public abstract class AbstractRequest implements Request {
   protected int repeaterRowSize;
   protected int reprocessCounter = 0;
   protected int transactionID;
+  /**
+   * Indicates whether this request is processed by a single thread at a time
+   * only. A confined request does not synchronize on itself when accessing
+   * its sub-requests and processing user objects. Threads taking turns in
+   * processing a confined request have to hold its monitor instead.
+   * @since 1.4.4
+   */
+  protected boolean confined;
 
   public AbstractRequest() {
   }
 
+  /**
+   * Checks whether this request is confined to a single processing thread at
+   * a time.
+   * @return
+   *    <code>true</code> if this request does not synchronize access to its
+   *    internal state, <code>false</code> otherwise (default).
+   * @since 1.4.4
+   */
+  public boolean isConfined() {
+    return confined;
+  }
+
   public abstract boolean isBulkRequest();
 
   public SubRequest find(OID prefix) {
@@ -58,9 +78,18 @@ public abstract class AbstractRequest implements Request {
     return null;
   }
 
-  protected synchronized void initSubRequests() {
-    if (subrequests == null) {
-      setupSubRequests();
+  protected void initSubRequests() {
+    if (confined) {
+      if (subrequests == null) {
+        setupSubRequests();
+      }
+    }
+    else {
+      synchronized (this) {
+        if (subrequests == null) {
+          setupSubRequests();
+        }
+      }
     }
   }
 
@@ -170,7 +199,18 @@ public abstract class AbstractRequest implements Request {
     }
   }
 
-  public synchronized void resetProcessedStatus() {
+  public void resetProcessedStatus() {
+    if (confined) {
+      resetProcessedStatusUnsynchronized();
+    }
+    else {
+      synchronized (this) {
+        resetProcessedStatusUnsynchronized();
+      }
+    }
+  }
+
+  private void resetProcessedStatusUnsynchronized() {
     for (Iterator it = subrequests.iterator(); it.hasNext(); ) {
       SubRequest sreq = (SubRequest) it.next();
       sreq.getStatus().setProcessed(sreq.getStatus().isPhaseComplete());
@@ -206,6 +246,7 @@ public abstract class AbstractRequest implements Request {
         ",repeaterStartIndex="+repeaterStartIndex+
         ",repeaterRowSize="+repeaterRowSize+
         ",reprocessCounter="+reprocessCounter+
+        ",confined="+confined+
         ",subrequests="+subrequests+"]";
   }
 
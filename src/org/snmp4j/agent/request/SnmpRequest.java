@@ -64,11 +64,45 @@ public class SnmpRequest extends AbstractRequest {
     this.transactionID = nextTransactionID();
   }
 
+  /**
+   * Creates a SNMP request that is optionally confined to a single thread at
+   * a time. A confined request does not synchronize access to its
+   * sub-requests and processing user objects. If processing of a confined
+   * request is continued by another thread (i.e. because a sub-request has
+   * been completed asynchronously), each thread has to hold the monitor of
+   * the request while it accesses the request, as the
+   * {@link org.snmp4j.agent.CommandProcessor} does.
+   *
+   * @param request
+   *    the <code>CommandResponderEvent</code> that initiated the request.
+   * @param cinfo
+   *    optional coexistence information.
+   * @param confined
+   *    <code>true</code> to create a thread confined request.
+   * @since 1.4.4
+   */
+  public SnmpRequest(CommandResponderEvent request, CoexistenceInfo cinfo,
+                     boolean confined) {
+    this(request, cinfo);
+    this.confined = confined;
+  }
+
   public static synchronized int nextTransactionID() {
     return nextTransactionID++;
   }
 
-  protected synchronized void setupSubRequests() {
+  protected void setupSubRequests() {
+    if (confined) {
+      setupSubRequestsUnsynchronized();
+    }
+    else {
+      synchronized (this) {
+        setupSubRequestsUnsynchronized();
+      }
+    }
+  }
+
+  private void setupSubRequestsUnsynchronized() {
     int capacity = requestEvent.getPDU().size();
     int totalRepetitions = (requestEvent.getPDU() instanceof PDUv1) ? 0 :
         repeaterRowSize*requestEvent.getPDU().getMaxRepetitions();
@@ -94,7 +128,16 @@ public class SnmpRequest extends AbstractRequest {
    *    returned by {@link #get(int i)} return true on
    *    {@link SubRequest#isComplete()}.
    */
-  public synchronized int getCompleteRepetitions() {
+  public int getCompleteRepetitions() {
+    if (confined) {
+      return getCompleteRepetitionsUnsynchronized();
+    }
+    synchronized (this) {
+      return getCompleteRepetitionsUnsynchronized();
+    }
+  }
+
+  private int getCompleteRepetitionsUnsynchronized() {
     int i = 0;
     for (Iterator it = subrequests.iterator(); it.hasNext(); i++) {
       SnmpSubRequest sreq = (SnmpSubRequest) it.next();
@@ -311,7 +354,18 @@ public class SnmpRequest extends AbstractRequest {
     }
   }
 
-  protected synchronized void addRepeaterSubRequest() {
+  protected void addRepeaterSubRequest() {
+    if (confined) {
+      addRepeaterSubRequestUnsynchronized();
+    }
+    else {
+      synchronized (this) {
+        addRepeaterSubRequestUnsynchronized();
+      }
+    }
+  }
+
+  private void addRepeaterSubRequestUnsynchronized() {
     int predecessorIndex = subrequests.size() - repeaterRowSize;
     SnmpSubRequest sreq =
         new SnmpSubRequest((SnmpSubRequest)subrequests.get(predecessorIndex),
@@ -403,14 +457,33 @@ public class SnmpRequest extends AbstractRequest {
     return (requestEvent.getPDU().getType() == PDU.GETBULK);
   }
 
-  public synchronized Object getProcessingUserObject(Object key) {
+  public Object getProcessingUserObject(Object key) {
+    if (confined) {
+      return getProcessingUserObjectUnsynchronized(key);
+    }
+    synchronized (this) {
+      return getProcessingUserObjectUnsynchronized(key);
+    }
+  }
+
+  private Object getProcessingUserObjectUnsynchronized(Object key) {
     if (processingUserObjects != null) {
       return processingUserObjects.get(key);
     }
     return null;
   }
 
-  public synchronized Object setProcessingUserObject(Object key, Object value) {
+  public Object setProcessingUserObject(Object key, Object value) {
+    if (confined) {
+      return setProcessingUserObjectUnsynchronized(key, value);
+    }
+    synchronized (this) {
+      return setProcessingUserObjectUnsynchronized(key, value);
+    }
+  }
+
+  private Object setProcessingUserObjectUnsynchronized(Object key,
+                                                       Object value) {
     if (processingUserObjects == null) {
       processingUserObjects = new HashMap(5);
     }
@@ -447,62 +520,69 @@ public class SnmpRequest extends AbstractRequest {
      * @return boolean
      */
     public boolean hasNext() {
+      if (confined) {
+        return hasNextUnsynchronized();
+      }
       synchronized (SnmpRequest.this) {
-        PDU reqPDU = requestEvent.getPDU();
-        if (reqPDU.getType() == PDU.GETBULK) {
-          if (noAppending && (cursor >= subrequests.size())) {
-            return false;
-          }
-          if (cursor < Math.min(reqPDU.size(), reqPDU.getNonRepeaters())) {
-            return true;
-          }
-          else {
-            if (cursor < reqPDU.getNonRepeaters() +
-                reqPDU.getMaxRepetitions() * getRepeaterCount()) {
-              List lastRow = lastRow(cursor);
-              if (lastRow != null) {
-                boolean allEndOfMibView = true;
-                SubRequest sreq = null;
-                for (Iterator it = lastRow.iterator(); it.hasNext(); ) {
-                  sreq = (SubRequest) it.next();
-                  if (sreq.getVariableBinding().getSyntax() !=
-                      SMIConstants.EXCEPTION_END_OF_MIB_VIEW) {
-                    allEndOfMibView = false;
-                    break;
-                  }
+        return hasNextUnsynchronized();
+      }
+    }
+
+    private boolean hasNextUnsynchronized() {
+      PDU reqPDU = requestEvent.getPDU();
+      if (reqPDU.getType() == PDU.GETBULK) {
+        if (noAppending && (cursor >= subrequests.size())) {
+          return false;
+        }
+        if (cursor < Math.min(reqPDU.size(), reqPDU.getNonRepeaters())) {
+          return true;
+        }
+        else {
+          if (cursor < reqPDU.getNonRepeaters() +
+              reqPDU.getMaxRepetitions() * getRepeaterCount()) {
+            List lastRow = lastRow(cursor);
+            if (lastRow != null) {
+              boolean allEndOfMibView = true;
+              SubRequest sreq = null;
+              for (Iterator it = lastRow.iterator(); it.hasNext(); ) {
+                sreq = (SubRequest) it.next();
+                if (sreq.getVariableBinding().getSyntax() !=
+                    SMIConstants.EXCEPTION_END_OF_MIB_VIEW) {
+                  allEndOfMibView = false;
+                  break;
                 }
-                if (allEndOfMibView) {
-                  // truncate request if already more elements are there
-                  if ((sreq != null) &&
-                      (sreq.getIndex() < subrequests.size())) {
-                    int lastElementIndex = sreq.getIndex();
-                    List tail = subrequests.subList(lastElementIndex + 1,
-                        subrequests.size());
-                    tail.clear();
-                    tail = response.getVariableBindings().
-                        subList(lastElementIndex + 1, response.size());
-                    tail.clear();
-                  }
-                  return false;
+              }
+              if (allEndOfMibView) {
+                // truncate request if already more elements are there
+                if ((sreq != null) &&
+                    (sreq.getIndex() < subrequests.size())) {
+                  int lastElementIndex = sreq.getIndex();
+                  List tail = subrequests.subList(lastElementIndex + 1,
+                      subrequests.size());
+                  tail.clear();
+                  tail = response.getVariableBindings().
+                      subList(lastElementIndex + 1, response.size());
+                  tail.clear();
                 }
+                return false;
               }
-              return (response.getBERLength() <
-                      requestEvent.getMaxSizeResponsePDU());
             }
-            else if ((reqPDU.getNonRepeaters() == 0) &&
-                     (reqPDU.getMaxRepetitions() == 0)) {
-              SnmpRequest.this.subrequests.clear();
-              if (response != null) {
-                while (response.size() > 0) {
-                  response.remove(0);
-                }
+            return (response.getBERLength() <
+                    requestEvent.getMaxSizeResponsePDU());
+          }
+          else if ((reqPDU.getNonRepeaters() == 0) &&
+                   (reqPDU.getMaxRepetitions() == 0)) {
+            SnmpRequest.this.subrequests.clear();
+            if (response != null) {
+              while (response.size() > 0) {
+                response.remove(0);
               }
             }
           }
-          return false;
         }
-        return (cursor < reqPDU.size());
+        return false;
       }
+      return (cursor < reqPDU.size());
     }
 
     public SubRequest nextSubRequest() {
@@ -707,6 +787,10 @@ public class SnmpRequest extends AbstractRequest {
       repetitions.next();
       while (repetitions.hasNext()) {
         SnmpSubRequest nsreq = (SnmpSubRequest) repetitions.nextSubRequest();
+        if (nsreq.isComplete()) {
+          // already processed, for example by a BulkManagedObject
+          continue;
+        }
         if ((getStatus().getErrorStatus() == PDU.noError) &&
             (!this.vb.isException())) {
           nsreq.query = null;
@@ -0,0 +1,58 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - NavigableVACM.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.security;
+
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.OID;
+
+/**
+ * The <code>NavigableVACM</code> interface extends the {@link VACM} interface
+ * by a method that determines the next OID that may be in a view following
+ * an OID that is not in that view. The command processor uses this
+ * information during GETNEXT and GETBULK processing to skip over excluded
+ * subtrees instead of checking each excluded object instance separately.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public interface NavigableVACM extends VACM {
+
+  /**
+   * Returns an OID greater than the supplied OID such that no OID between
+   * the supplied OID and the returned OID is in the specified view.
+   * The returned OID itself may be in the view. Implementations that
+   * cannot determine the boundary of an excluded subtree return the
+   * lexicographic successor of <code>oid</code>.
+   *
+   * @param viewName
+   *    the name of an existing view, i.e. that has been retrieved by
+   *    {@link #getViewName} before.
+   * @param oid
+   *    an object instance OID, typically one that is not in the view.
+   * @return
+   *    the (inclusive) lower bound for a search of the next object instance
+   *    in the view, or <code>null</code> if no OID greater than
+   *    <code>oid</code> is in the view.
+   */
+  OID getNextViewBoundary(OctetString viewName, OID oid);
+
+}
@@ -0,0 +1,273 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - CoalescingUpdateStrategyTest.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.snmp4j.agent.mo.MOAccessImpl;
+import org.snmp4j.agent.mo.MOScalar;
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+
+/**
+ * Tests the update interval, the coalescing of concurrent updates, and the
+ * staleness handling of the {@link CoalescingUpdateStrategy}.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class CoalescingUpdateStrategyTest extends TestCase {
+
+  private static final OID SCALAR_OID = new OID("1.3.6.1.4.1.4976.99.4.0");
+  private static final long TIMEOUT = 5000;
+
+  private TestObject mo;
+
+  protected void setUp() throws Exception {
+    mo = new TestObject();
+  }
+
+  public void testMinUpdateInterval() {
+    CoalescingUpdateStrategy strategy =
+        new CoalescingUpdateStrategy(60000, 0);
+    assertTrue(strategy.isUpdateNeeded(null, mo, null));
+    strategy.executeUpdate(null, mo, null);
+    assertEquals(1, mo.getCompleted());
+    assertFalse(strategy.isUpdateNeeded(null, mo, null));
+    strategy.executeUpdate(null, mo, null);
+    assertEquals(1, mo.getCalls());
+    strategy.invalidate(mo);
+    assertTrue(strategy.isUpdateNeeded(null, mo, null));
+    strategy.executeUpdate(null, mo, null);
+    assertEquals(2, mo.getCompleted());
+    // all updates cover the whole object
+    assertEquals(2, mo.getScopes().size());
+    assertNull(mo.getScopes().get(0));
+    assertNull(mo.getScopes().get(1));
+  }
+
+  public void testIntervalElapsed() throws InterruptedException {
+    CoalescingUpdateStrategy strategy = new CoalescingUpdateStrategy(50, 0);
+    strategy.executeUpdate(null, mo, null);
+    Thread.sleep(100);
+    assertTrue(strategy.isUpdateNeeded(null, mo, null));
+    strategy.executeUpdate(null, mo, null);
+    assertEquals(2, mo.getCompleted());
+  }
+
+  public void testCoalescing() throws InterruptedException {
+    CoalescingUpdateStrategy strategy =
+        new CoalescingUpdateStrategy(60000, 0);
+    mo.setBlocked(true);
+    Updater[] updaters = new Updater[5];
+    for (int i=0; i<updaters.length; i++) {
+      updaters[i] = new Updater(strategy);
+      updaters[i].start();
+    }
+    mo.awaitCalls(1);
+    // give the other threads time to wait for the running update
+    Thread.sleep(100);
+    mo.setBlocked(false);
+    for (int i=0; i<updaters.length; i++) {
+      // no thread returns before the update has finished
+      assertEquals(1, updaters[i].getCompletedOnReturn());
+    }
+    assertEquals(1, mo.getCalls());
+  }
+
+  public void testMaxStaleness() throws InterruptedException {
+    CoalescingUpdateStrategy strategy =
+        new CoalescingUpdateStrategy(50, 60000);
+    strategy.executeUpdate(null, mo, null);
+    Thread.sleep(100);
+    mo.setBlocked(true);
+    Updater updater = new Updater(strategy);
+    updater.start();
+    mo.awaitCalls(2);
+    // the previous data is served while the update is running
+    strategy.executeUpdate(null, mo, null);
+    assertEquals(1, mo.getCompleted());
+    mo.setBlocked(false);
+    assertEquals(2, updater.getCompletedOnReturn());
+    assertEquals(2, mo.getCalls());
+  }
+
+  public void testFailedUpdate() {
+    CoalescingUpdateStrategy strategy =
+        new CoalescingUpdateStrategy(60000, 0);
+    mo.setError(new IllegalStateException("test"));
+    try {
+      strategy.executeUpdate(null, mo, null);
+      fail("update error not propagated");
+    }
+    catch (IllegalStateException isex) {
+      // expected
+    }
+    assertTrue(strategy.isUpdateNeeded(null, mo, null));
+    mo.setError(null);
+    strategy.executeUpdate(null, mo, null);
+    assertEquals(1, mo.getCompleted());
+    assertFalse(strategy.isUpdateNeeded(null, mo, null));
+  }
+
+  public void testWaiterRetriesFailedUpdate() throws InterruptedException {
+    CoalescingUpdateStrategy strategy =
+        new CoalescingUpdateStrategy(60000, 0);
+    mo.setError(new IllegalStateException("test"));
+    mo.setBlocked(true);
+    Updater failing = new Updater(strategy);
+    failing.start();
+    mo.awaitCalls(1);
+    mo.setError(null);
+    Updater waiting = new Updater(strategy);
+    waiting.start();
+    Thread.sleep(100);
+    assertEquals(1, mo.getCalls());
+    mo.setBlocked(false);
+    assertEquals(0, failing.getCompletedOnReturn());
+    assertEquals(1, waiting.getCompletedOnReturn());
+    assertEquals(2, mo.getCalls());
+  }
+
+  public void testServerDelegation() throws Exception {
+    CoalescingUpdateStrategy strategy =
+        new CoalescingUpdateStrategy(60000, 0);
+    DefaultMOServer server = new DefaultMOServer();
+    server.setUpdateStrategy(strategy);
+    server.register(mo, null);
+    MOQuery query =
+        new DefaultMOQuery(new DefaultMOContextScope(null, SCALAR_OID, true,
+                                                     SCALAR_OID, true));
+    assertSame(mo, server.lookup(query));
+    assertSame(mo, server.lookup(query));
+    assertEquals(1, mo.getCalls());
+    assertNull(mo.getScopes().get(0));
+  }
+
+  static class TestObject extends MOScalar implements UpdatableManagedObject {
+
+    private List scopes = new ArrayList();
+    private RuntimeException error;
+    private boolean blocked;
+    private int calls;
+    private int completed;
+    private Date lastUpdate;
+
+    TestObject() {
+      super(SCALAR_OID, MOAccessImpl.ACCESS_READ_ONLY, new Integer32(0));
+    }
+
+    public synchronized void update(MOQuery updateScope) {
+      RuntimeException failure = error;
+      scopes.add(updateScope);
+      calls++;
+      notifyAll();
+      // never block forever, a broken test would hang otherwise
+      long timeout = System.currentTimeMillis() + TIMEOUT;
+      try {
+        while (blocked && (System.currentTimeMillis() < timeout)) {
+          wait(TIMEOUT);
+        }
+      }
+      catch (InterruptedException iex) {
+        Thread.currentThread().interrupt();
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      completed++;
+      lastUpdate = new Date();
+    }
+
+    public synchronized Date getLastUpdate() {
+      return lastUpdate;
+    }
+
+    public Object getLastUpdateSource() {
+      return null;
+    }
+
+    synchronized void setError(RuntimeException error) {
+      this.error = error;
+    }
+
+    synchronized void setBlocked(boolean blocked) {
+      this.blocked = blocked;
+      notifyAll();
+    }
+
+    synchronized int getCalls() {
+      return calls;
+    }
+
+    synchronized int getCompleted() {
+      return completed;
+    }
+
+    synchronized List getScopes() {
+      return new ArrayList(scopes);
+    }
+
+    synchronized void awaitCalls(int numCalls) throws InterruptedException {
+      long timeout = System.currentTimeMillis() + TIMEOUT;
+      while (calls < numCalls) {
+        long delay = timeout - System.currentTimeMillis();
+        assertTrue("update not called", delay > 0);
+        wait(delay);
+      }
+    }
+  }
+
+  class Updater extends Thread {
+
+    private CoalescingUpdateStrategy strategy;
+    private int completedOnReturn = -1;
+
+    Updater(CoalescingUpdateStrategy strategy) {
+      this.strategy = strategy;
+    }
+
+    public void run() {
+      try {
+        strategy.executeUpdate(null, mo, null);
+      }
+      catch (RuntimeException rex) {
+        // failed update
+      }
+      synchronized (this) {
+        completedOnReturn = mo.getCompleted();
+      }
+    }
+
+    int getCompletedOnReturn() throws InterruptedException {
+      join(TIMEOUT);
+      assertFalse("updater blocked", isAlive());
+      synchronized (this) {
+        return completedOnReturn;
+      }
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - CachedMOScalarTest.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import junit.framework.TestCase;
+
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.util.ThreadPool;
+
+/**
+ * Tests the caching and the single-flight refresh of the
+ * {@link CachedMOScalar}.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class CachedMOScalarTest extends TestCase {
+
+  private static final OID SCALAR_OID = new OID("1.3.6.1.4.1.4976.99.3.0");
+  private static final Variable INITIAL_VALUE = new Integer32(0);
+  private static final long TIMEOUT = 5000;
+
+  private TestSupplier supplier;
+
+  protected void setUp() throws Exception {
+    supplier = new TestSupplier();
+  }
+
+  private CachedMOScalar scalar(long timeToLive, boolean staleWhileRefresh) {
+    return new CachedMOScalar(SCALAR_OID, MOAccessImpl.ACCESS_READ_ONLY,
+                              INITIAL_VALUE, supplier, timeToLive,
+                              staleWhileRefresh);
+  }
+
+  public void testCachedWithinTimeToLive() {
+    CachedMOScalar scalar = scalar(60000, false);
+    supplier.setValue(new Integer32(1));
+    assertEquals(new Integer32(1), scalar.getValue());
+    supplier.setValue(new Integer32(2));
+    assertEquals(new Integer32(1), scalar.getValue());
+    assertEquals(1, supplier.getCalls());
+    scalar.invalidate();
+    assertEquals(new Integer32(2), scalar.getValue());
+    assertEquals(2, supplier.getCalls());
+  }
+
+  public void testExpiry() throws InterruptedException {
+    CachedMOScalar scalar = scalar(50, false);
+    supplier.setValue(new Integer32(1));
+    assertEquals(new Integer32(1), scalar.getValue());
+    supplier.setValue(new Integer32(2));
+    Thread.sleep(100);
+    assertEquals(new Integer32(2), scalar.getValue());
+    assertEquals(2, supplier.getCalls());
+  }
+
+  public void testInitialValueFallback() {
+    CachedMOScalar scalar = scalar(60000, false);
+    assertEquals(INITIAL_VALUE, scalar.getValue());
+    // nothing has been cached, so the supplier is called again
+    supplier.setError(new IllegalStateException("test"));
+    assertEquals(INITIAL_VALUE, scalar.getValue());
+    assertEquals(2, supplier.getCalls());
+    supplier.setError(null);
+    supplier.setValue(new Integer32(5));
+    assertEquals(new Integer32(5), scalar.getValue());
+    // a failed refresh keeps the previous value
+    scalar.invalidate();
+    supplier.setError(new IllegalStateException("test"));
+    assertEquals(new Integer32(5), scalar.getValue());
+    assertEquals(new Integer32(5), scalar.getCachedValue());
+  }
+
+  public void testSingleFlight() throws InterruptedException {
+    CachedMOScalar scalar = scalar(60000, false);
+    supplier.setValue(new Integer32(1));
+    supplier.setBlocked(true);
+    Reader[] readers = new Reader[5];
+    for (int i=0; i<readers.length; i++) {
+      readers[i] = new Reader(scalar);
+      readers[i].start();
+    }
+    supplier.awaitCalls(1);
+    // give the other readers time to wait for the running computation
+    Thread.sleep(100);
+    supplier.setBlocked(false);
+    for (int i=0; i<readers.length; i++) {
+      assertEquals(new Integer32(1), readers[i].getResult());
+    }
+    assertEquals(1, supplier.getCalls());
+  }
+
+  public void testWaitForRefresh() throws InterruptedException {
+    CachedMOScalar scalar = scalar(60000, false);
+    supplier.setValue(new Integer32(1));
+    scalar.getValue();
+    scalar.invalidate();
+    supplier.setValue(new Integer32(2));
+    supplier.setBlocked(true);
+    Reader refresher = new Reader(scalar);
+    refresher.start();
+    supplier.awaitCalls(2);
+    Reader waiter = new Reader(scalar);
+    waiter.start();
+    Thread.sleep(100);
+    supplier.setBlocked(false);
+    assertEquals(new Integer32(2), refresher.getResult());
+    assertEquals(new Integer32(2), waiter.getResult());
+    assertEquals(2, supplier.getCalls());
+  }
+
+  public void testStaleWhileRefresh() throws InterruptedException {
+    CachedMOScalar scalar = scalar(60000, true);
+    supplier.setValue(new Integer32(1));
+    scalar.getValue();
+    scalar.invalidate();
+    supplier.setValue(new Integer32(2));
+    supplier.setBlocked(true);
+    Reader refresher = new Reader(scalar);
+    refresher.start();
+    supplier.awaitCalls(2);
+    // served immediately while the refresh is blocked
+    assertEquals(new Integer32(1), scalar.getValue());
+    supplier.setBlocked(false);
+    assertEquals(new Integer32(2), refresher.getResult());
+    assertEquals(new Integer32(2), scalar.getValue());
+    assertEquals(2, supplier.getCalls());
+  }
+
+  public void testBackgroundRefresh() throws InterruptedException {
+    ThreadPool pool = ThreadPool.create("CachedMOScalarTest", 1);
+    try {
+      CachedMOScalar scalar = scalar(60000, true);
+      scalar.setRefreshPool(pool);
+      supplier.setValue(new Integer32(1));
+      scalar.getValue();
+      scalar.invalidate();
+      supplier.setValue(new Integer32(2));
+      supplier.setBlocked(true);
+      // the detecting thread does not wait for the computation
+      assertEquals(new Integer32(1), scalar.getValue());
+      supplier.awaitCalls(2);
+      assertEquals(new Integer32(1), scalar.getValue());
+      supplier.setBlocked(false);
+      long timeout = System.currentTimeMillis() + TIMEOUT;
+      while (!new Integer32(2).equals(scalar.getValue())) {
+        assertTrue(System.currentTimeMillis() < timeout);
+        Thread.sleep(10);
+      }
+      assertEquals(2, supplier.getCalls());
+    }
+    finally {
+      supplier.setBlocked(false);
+      pool.cancel();
+    }
+  }
+
+  static class TestSupplier implements MOValueSupplier {
+
+    private Variable value;
+    private RuntimeException error;
+    private boolean blocked;
+    private int calls;
+
+    public synchronized Variable computeValue(OID instanceOID) {
+      assertEquals(SCALAR_OID, instanceOID);
+      calls++;
+      notifyAll();
+      // never block forever, a broken test would hang otherwise
+      long timeout = System.currentTimeMillis() + TIMEOUT;
+      try {
+        while (blocked && (System.currentTimeMillis() < timeout)) {
+          wait(TIMEOUT);
+        }
+      }
+      catch (InterruptedException iex) {
+        Thread.currentThread().interrupt();
+      }
+      if (error != null) {
+        throw error;
+      }
+      return value;
+    }
+
+    synchronized void setValue(Variable value) {
+      this.value = value;
+    }
+
+    synchronized void setError(RuntimeException error) {
+      this.error = error;
+    }
+
+    synchronized void setBlocked(boolean blocked) {
+      this.blocked = blocked;
+      notifyAll();
+    }
+
+    synchronized int getCalls() {
+      return calls;
+    }
+
+    synchronized void awaitCalls(int numCalls) throws InterruptedException {
+      long timeout = System.currentTimeMillis() + TIMEOUT;
+      while (calls < numCalls) {
+        long delay = timeout - System.currentTimeMillis();
+        assertTrue("supplier not called", delay > 0);
+        wait(delay);
+      }
+    }
+  }
+
+  static class Reader extends Thread {
+
+    private CachedMOScalar scalar;
+    private Variable result;
+
+    Reader(CachedMOScalar scalar) {
+      this.scalar = scalar;
+    }
+
+    public void run() {
+      Variable value = scalar.getValue();
+      synchronized (this) {
+        result = value;
+      }
+    }
+
+    Variable getResult() throws InterruptedException {
+      join(TIMEOUT);
+      assertFalse("reader blocked", isAlive());
+      synchronized (this) {
+        return result;
+      }
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - ConcurrentMOTableModelTest.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+
+/**
+ * Tests the persistent AVL tree of the {@link ConcurrentMOTableModel}.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class ConcurrentMOTableModelTest extends TestCase {
+
+  private ConcurrentMOTableModel model;
+
+  protected void setUp() throws Exception {
+    model = new ConcurrentMOTableModel();
+  }
+
+  private static MOTableRow row(int index) {
+    return new DefaultMOTableRow(new OID(new int[] { index }),
+                                 new Variable[] { new Integer32(index) });
+  }
+
+  private static int maxAVLHeight(int size) {
+    // an AVL tree with n nodes is at most 1.44 * log2(n + 2) high
+    return (int) (1.4405 * Math.log(size + 2) / Math.log(2));
+  }
+
+  public void testAscendingInsertStaysBalanced() {
+    for (int i=1; i<=1023; i++) {
+      model.addRow(row(i));
+    }
+    // rotations keep a perfectly balanced tree for 2^k-1 ascending keys
+    assertEquals(10, model.checkTree());
+    assertEquals(1023, model.getRowCount());
+    assertEquals(new OID("1"), model.firstIndex());
+    assertEquals(new OID("1023"), model.lastIndex());
+  }
+
+  public void testDescendingInsertAndDeleteStayBalanced() {
+    for (int i=1000; i>0; i--) {
+      model.addRow(row(i));
+    }
+    assertTrue(model.checkTree() <= maxAVLHeight(1000));
+    // delete inner nodes with two children and leaves alike
+    for (int i=1; i<=1000; i+=3) {
+      assertNotNull(model.removeRow(new OID(new int[] { i })));
+      model.checkTree();
+    }
+    assertEquals(666, model.getRowCount());
+    assertNull(model.getRow(new OID("4")));
+    assertNotNull(model.getRow(new OID("5")));
+  }
+
+  public void testRandomOperationsMatchSortedMap() {
+    Random random = new Random(4711);
+    SortedMap expected = new TreeMap();
+    for (int n=0; n<20000; n++) {
+      int index = random.nextInt(2000);
+      OID oid = new OID(new int[] { index });
+      if (random.nextInt(3) == 0) {
+        Object removed = model.removeRow(oid);
+        assertSame(expected.remove(oid), removed);
+      }
+      else {
+        MOTableRow row = row(index);
+        assertSame(expected.put(oid, row), model.addRow(row));
+      }
+      if (n % 1000 == 0) {
+        assertTrue(model.checkTree() <= maxAVLHeight(expected.size()));
+      }
+    }
+    model.checkTree();
+    assertEquals(expected.size(), model.getRowCount());
+    assertEquals(new ArrayList(expected.values()), toList(model.iterator()));
+    OID bound = new OID("1000.1");
+    assertEquals(new ArrayList(expected.tailMap(bound).values()),
+                 toList(model.tailIterator(bound)));
+  }
+
+  public void testIteratorIsSnapshot() {
+    for (int i=1; i<=10; i++) {
+      model.addRow(row(i));
+    }
+    Iterator it = model.tailIterator(new OID("5"));
+    model.removeRow(new OID("6"));
+    model.addRow(row(11));
+    List rows = toList(it);
+    assertEquals(6, rows.size());
+    assertEquals(new OID("6"), ((MOTableRow)rows.get(1)).getIndex());
+    assertEquals(new OID("10"), ((MOTableRow)rows.get(5)).getIndex());
+  }
+
+  public void testIteratorRemove() {
+    for (int i=1; i<=10; i++) {
+      model.addRow(row(i));
+    }
+    for (Iterator it = model.iterator(); it.hasNext(); ) {
+      MOTableRow row = (MOTableRow) it.next();
+      if (row.getIndex().get(0) % 2 == 0) {
+        it.remove();
+      }
+    }
+    model.checkTree();
+    assertEquals(5, model.getRowCount());
+    assertNull(model.getRow(new OID("10")));
+  }
+
+  public void testRemoveRows() {
+    for (int i=1; i<=100; i++) {
+      model.addRow(row(i));
+    }
+    model.removeRows(new OID("20"), new OID("80"));
+    model.checkTree();
+    assertEquals(40, model.getRowCount());
+    assertNotNull(model.getRow(new OID("19")));
+    assertNull(model.getRow(new OID("20")));
+    assertNull(model.getRow(new OID("79")));
+    assertNotNull(model.getRow(new OID("80")));
+  }
+
+  public void testConditionalOperations() {
+    MOTableRow first = row(1);
+    assertNull(model.addRowIfAbsent(first));
+    MOTableRow second = row(1);
+    assertSame(first, model.addRowIfAbsent(second));
+    assertFalse(model.replaceRow(second, row(1)));
+    assertTrue(model.replaceRow(first, second));
+    assertSame(second, model.getRow(new OID("1")));
+    assertFalse(model.removeRow(first));
+    assertTrue(model.removeRow(second));
+    assertEquals(0, model.getRowCount());
+  }
+
+  private static List toList(Iterator it) {
+    List l = new ArrayList();
+    while (it.hasNext()) {
+      l.add(it.next());
+    }
+    return l;
+  }
+}
@@ -0,0 +1,172 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - DefaultMOMutableTableModelTest.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.SMIConstants;
+import org.snmp4j.smi.Variable;
+
+/**
+ * Tests the merge of {@link DefaultMOMutableTableModel#replaceContents} and
+ * the row events fired by {@link DefaultMOTable#replaceContents}.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class DefaultMOMutableTableModelTest extends TestCase {
+
+  private DefaultMOMutableTableModel model;
+  private List modelEvents;
+
+  protected void setUp() throws Exception {
+    model = new DefaultMOMutableTableModel();
+    model.setRowFactory(new DefaultMOMutableRow2PCFactory());
+    for (int i=1; i<=3; i++) {
+      model.addRow(model.createRow(new OID(new int[] { i }), values(i, "a")));
+    }
+    modelEvents = new ArrayList();
+    model.addMOTableModelListener(new MOTableModelListener() {
+      public void tableModelChanged(MOTableModelEvent event) {
+        modelEvents.add(event);
+      }
+    });
+  }
+
+  private static Variable[] values(int i, String s) {
+    return new Variable[] { new Integer32(i), new OctetString(s) };
+  }
+
+  private static SortedMap contents(int[] indexes, String[] strings) {
+    SortedMap contents = new TreeMap();
+    for (int i=0; i<indexes.length; i++) {
+      contents.put(new OID(new int[] { indexes[i] }),
+                   values(indexes[i], strings[i]));
+    }
+    return contents;
+  }
+
+  public void testMerge() {
+    MOTableRow row2 = model.getRow(new OID("2"));
+    MOTableRow row3 = model.getRow(new OID("3"));
+    MOTableModelEvent event =
+        model.replaceContents(contents(new int[] { 2, 3, 4, 5 },
+                                       new String[] { "a", "b", "a", "a" }));
+    assertEquals(MOTableModelEvent.ROWS_REPLACED, event.getType());
+    assertIndexes(event.getRemovedRows(), new String[] { "1" });
+    assertIndexes(event.getChangedRows(), new String[] { "3" });
+    assertIndexes(event.getAddedRows(), new String[] { "4", "5" });
+    // unchanged and mutable changed rows keep their instances
+    assertSame(row2, model.getRow(new OID("2")));
+    assertSame(row3, model.getRow(new OID("3")));
+    assertEquals(new OctetString("b"), row3.getValue(1));
+    assertIndexes(toList(model.iterator()),
+                  new String[] { "2", "3", "4", "5" });
+    assertEquals(1, modelEvents.size());
+  }
+
+  public void testUnchangedContentsFireNoEvent() {
+    MOTableModelEvent event =
+        model.replaceContents(contents(new int[] { 1, 2, 3 },
+                                       new String[] { "a", "a", "a" }));
+    assertTrue(event.getAddedRows().isEmpty());
+    assertTrue(event.getChangedRows().isEmpty());
+    assertTrue(event.getRemovedRows().isEmpty());
+    assertTrue(modelEvents.isEmpty());
+  }
+
+  public void testEmptyContentsRemoveAllRows() {
+    MOTableModelEvent event = model.replaceContents(new TreeMap());
+    assertEquals(3, event.getRemovedRows().size());
+    assertEquals(0, model.getRowCount());
+    event = model.replaceContents(contents(new int[] { 7 },
+                                           new String[] { "a" }));
+    assertIndexes(event.getAddedRows(), new String[] { "7" });
+    assertEquals(1, model.getRowCount());
+  }
+
+  public void testImmutableRowsAreReplaced() {
+    DefaultMOMutableTableModel immutable = new DefaultMOMutableTableModel();
+    MOTableRow row = new DefaultMOTableRow(new OID("1"), values(1, "a"));
+    immutable.addRow(row);
+    MOTableModelEvent event =
+        immutable.replaceContents(contents(new int[] { 1 },
+                                           new String[] { "b" }));
+    MOTableRow replaced = immutable.getRow(new OID("1"));
+    assertNotSame(row, replaced);
+    assertEquals(new OctetString("b"), replaced.getValue(1));
+    assertEquals(new OctetString("a"), row.getValue(1));
+    assertSame(replaced, event.getChangedRows().get(0));
+  }
+
+  public void testTableFiresRowEvents() {
+    DefaultMOTable table =
+        new DefaultMOTable(new OID("1.3.6.1.4.1.4976.99.1.1"),
+                           new MOTableIndex(new MOTableSubIndex[] {
+                               new MOTableSubIndex(SMIConstants.SYNTAX_INTEGER)
+                           }),
+                           new MOColumn[] {
+                               new MOColumn(1, SMIConstants.SYNTAX_INTEGER,
+                                            MOAccessImpl.ACCESS_READ_ONLY),
+                               new MOColumn(2, SMIConstants.SYNTAX_OCTET_STRING,
+                                            MOAccessImpl.ACCESS_READ_ONLY)
+                           },
+                           model);
+    final StringBuffer events = new StringBuffer();
+    table.addMOTableRowListener(new MOTableRowListener() {
+      public void rowChanged(MOTableRowEvent event) {
+        events.append(event.getType()).append(':');
+        events.append(event.getRow().getIndex()).append(' ');
+      }
+    });
+    table.replaceContents(contents(new int[] { 2, 3, 4 },
+                                   new String[] { "a", "b", "a" }));
+    assertEquals(MOTableRowEvent.DELETE+":1 "+
+                 MOTableRowEvent.ADD+":4 "+
+                 MOTableRowEvent.UPDATED+":3 ", events.toString());
+  }
+
+  private static void assertIndexes(List rows, String[] expected) {
+    assertEquals(expected.length, rows.size());
+    for (int i=0; i<expected.length; i++) {
+      assertEquals(new OID(expected[i]),
+                   ((MOTableRow)rows.get(i)).getIndex());
+    }
+  }
+
+  private static List toList(Iterator it) {
+    List l = new ArrayList();
+    while (it.hasNext()) {
+      l.add(it.next());
+    }
+    return l;
+  }
+}
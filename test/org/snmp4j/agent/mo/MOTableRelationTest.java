@@ -0,0 +1,136 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - MOTableRelationTest.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.snmp4j.PDU;
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.SMIConstants;
+import org.snmp4j.smi.Variable;
+
+/**
+ * Tests that a sparse {@link MOTableRelation} removes the dependent rows it
+ * has added when their base row is removed.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class MOTableRelationTest extends TestCase {
+
+  private DefaultMOTable baseTable;
+  private DefaultMOTable dependentTable;
+  private MOTableRelation relation;
+
+  protected void setUp() throws Exception {
+    baseTable = createTable("1.3.6.1.4.1.4976.99.6.1");
+    dependentTable = createTable("1.3.6.1.4.1.4976.99.7.1");
+    // dependent rows that do not keep their base row
+    ((DefaultMOMutableTableModel) dependentTable.getModel()).setRowFactory(
+        new MOTableRowFactory() {
+      public MOTableRow createRow(OID index, Variable[] values) {
+        return new DefaultMOTableRow(index, values);
+      }
+
+      public void freeRow(MOTableRow row) {
+      }
+    });
+    relation = new MOTableRelation(baseTable, dependentTable) {
+      public OID[] getDependentIndexes(MOTableRow baseRow) {
+        OID index = baseRow.getIndex();
+        return new OID[] { dependentIndex(index.get(0), 1),
+                           dependentIndex(index.get(0), 2) };
+      }
+    };
+    relation.createRelationShip();
+  }
+
+  private static DefaultMOTable createTable(String oid) {
+    return new DefaultMOTable(new OID(oid),
+                              new MOTableIndex(new MOTableSubIndex[] {
+        new MOTableSubIndex(SMIConstants.SYNTAX_INTEGER) }),
+                              new MOColumn[] {
+        new MOColumn(2, SMIConstants.SYNTAX_INTEGER,
+                     MOAccessImpl.ACCESS_READ_ONLY) },
+                              new DefaultMOMutableTableModel());
+  }
+
+  private static OID dependentIndex(int baseIndex, int subIndex) {
+    return new OID(new int[] { baseIndex, subIndex });
+  }
+
+  private void addBaseRows(int numRows) {
+    List rows = new ArrayList(numRows);
+    for (int i=1; i<=numRows; i++) {
+      rows.add(new DefaultMOTableRow(new OID(new int[] { i }),
+                                     new Variable[] { new Integer32(i) }));
+    }
+    assertEquals(numRows, baseTable.addRows(rows));
+  }
+
+  public void testBatchAddWithoutBaseRowReference() {
+    addBaseRows(3);
+    assertEquals(6, dependentTable.getModel().getRowCount());
+    assertTrue(Arrays.equals(new OID[] { dependentIndex(2, 1),
+                                         dependentIndex(2, 2) },
+                             relation.getAddedDependentIndexes(new OID("2"))));
+    baseTable.removeRows(Arrays.asList(new OID[] { new OID("1"),
+                                                   new OID("3") }));
+    assertEquals(2, dependentTable.getModel().getRowCount());
+    assertNull(relation.getAddedDependentIndexes(new OID("1")));
+  }
+
+  public void testDirectlyRemovedDependentRow() {
+    addBaseRows(2);
+    assertNotNull(dependentTable.removeRow(dependentIndex(1, 1)));
+    assertTrue(Arrays.equals(new OID[] { dependentIndex(1, 2) },
+                             relation.getAddedDependentIndexes(new OID("1"))));
+    assertNotNull(baseTable.removeRow(new OID("1")));
+    assertEquals(2, dependentTable.getModel().getRowCount());
+  }
+
+  public void testVetoedDependentDelete() {
+    addBaseRows(2);
+    final OID vetoed = dependentIndex(1, 1);
+    MOTableRowListener vetoListener = new MOTableRowListener() {
+      public void rowChanged(MOTableRowEvent event) {
+        if ((event.getType() == MOTableRowEvent.DELETE) &&
+            vetoed.equals(event.getRow().getIndex())) {
+          event.setVetoStatus(PDU.inconsistentValue);
+        }
+      }
+    };
+    dependentTable.addMOTableRowListener(vetoListener);
+    assertNull(dependentTable.removeRow(vetoed));
+    dependentTable.removeMOTableRowListener(vetoListener);
+    assertEquals(2, relation.getAddedDependentIndexes(new OID("1")).length);
+    // the dependent row whose deletion has been vetoed is not orphaned
+    assertNotNull(baseTable.removeRow(new OID("1")));
+    assertNull(dependentTable.getModel().getRow(vetoed));
+    assertEquals(2, dependentTable.getModel().getRowCount());
+  }
+}
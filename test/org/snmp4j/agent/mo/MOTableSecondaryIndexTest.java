@@ -0,0 +1,221 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - MOTableSecondaryIndexTest.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import junit.framework.TestCase;
+
+import org.snmp4j.CommandResponderEvent;
+import org.snmp4j.MessageDispatcherImpl;
+import org.snmp4j.PDU;
+import org.snmp4j.ScopedPDU;
+import org.snmp4j.mp.StateReference;
+import org.snmp4j.mp.StatusInformation;
+import org.snmp4j.agent.CommandProcessor;
+import org.snmp4j.agent.DefaultMOServer;
+import org.snmp4j.agent.request.SubRequest;
+import org.snmp4j.agent.security.VACM;
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.SMIConstants;
+import org.snmp4j.smi.UdpAddress;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+
+/**
+ * Tests that the secondary indexes of a {@link DefaultMOMutableTableModel}
+ * follow the rows changed by committed and undone SET requests.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class MOTableSecondaryIndexTest extends TestCase {
+
+  private static final OctetString ENGINE_ID = new OctetString("engine");
+  private static final OID TABLE_OID = new OID("1.3.6.1.4.1.4976.99.1.1");
+  private static final OID KEY_COLUMN = new OID("1.3.6.1.4.1.4976.99.1.1.2");
+  private static final OID FAILING_OID = new OID("1.3.6.1.4.1.4976.99.2.0");
+
+  private DefaultMOMutableTableModel model;
+  private MOTableSecondaryIndex index;
+  private CommandProcessor commandProcessor;
+  private ResponseCollector dispatcher;
+
+  protected void setUp() throws Exception {
+    model = new DefaultMOMutableTableModel();
+    model.setRowFactory(new DefaultMOMutableRow2PCFactory());
+    index = model.addSecondaryIndex(
+        new MOTableSecondaryIndex.ColumnKeyFunction(0));
+    DefaultMOTable table =
+        new DefaultMOTable(TABLE_OID,
+                           new MOTableIndex(new MOTableSubIndex[] {
+                               new MOTableSubIndex(SMIConstants.SYNTAX_INTEGER)
+                           }),
+                           new MOColumn[] {
+                               new MOMutableColumn(2,
+                                   SMIConstants.SYNTAX_OCTET_STRING,
+                                   MOAccessImpl.ACCESS_READ_CREATE,
+                                   new OctetString())
+                           },
+                           model);
+    for (int i=1; i<=3; i++) {
+      table.addRow(model.createRow(new OID(new int[] { i }), new Variable[] {
+          new OctetString((i == 3) ? "b" : "a") }));
+    }
+    DefaultMOServer server = new DefaultMOServer();
+    server.register(table, null);
+    server.register(new MOScalar(FAILING_OID, MOAccessImpl.ACCESS_READ_WRITE,
+                                 new Integer32(0)) {
+      public void commit(SubRequest request) {
+        request.setErrorStatus(PDU.commitFailed);
+      }
+
+      public void undo(SubRequest request) {
+        // nothing has been changed, keep the commit error
+        request.getStatus().setPhaseComplete(true);
+      }
+    }, null);
+    commandProcessor = new CommandProcessor(ENGINE_ID);
+    commandProcessor.setVacm(new AllowAllVACM());
+    commandProcessor.addMOServer(server);
+    dispatcher = new ResponseCollector();
+  }
+
+  private PDU set(VariableBinding[] vbs) {
+    ScopedPDU pdu = new ScopedPDU();
+    pdu.setType(PDU.SET);
+    pdu.setContextEngineID(ENGINE_ID);
+    pdu.setContextName(new OctetString());
+    for (int i=0; i<vbs.length; i++) {
+      pdu.add(vbs[i]);
+    }
+    CommandResponderEvent event =
+        new CommandResponderEvent(dispatcher, null,
+                                  new UdpAddress("127.0.0.1/161"), 3, 3,
+                                  "user".getBytes(), 1, null, pdu, 65535,
+                                  new StateReference());
+    dispatcher.response = null;
+    commandProcessor.processPdu(event);
+    assertNotNull(dispatcher.response);
+    return dispatcher.response;
+  }
+
+  private static VariableBinding keyValue(int row, String key) {
+    OID oid = new OID(KEY_COLUMN);
+    oid.append(row);
+    return new VariableBinding(oid, new OctetString(key));
+  }
+
+  private void assertRows(String key, int[] rows) {
+    assertEquals(rows.length, index.getRows(new OctetString(key)).size());
+    for (int i=0; i<rows.length; i++) {
+      MOTableRow row =
+          (MOTableRow) index.getRows(new OctetString(key)).get(i);
+      assertEquals(new OID(new int[] { rows[i] }), row.getIndex());
+      assertSame(model.getRow(row.getIndex()), row);
+    }
+  }
+
+  public void testInitialRowsAreIndexed() {
+    assertRows("a", new int[] { 1, 2 });
+    assertRows("b", new int[] { 3 });
+    assertEquals(new OID("1"), index.getRow(new OctetString("a")).getIndex());
+  }
+
+  public void testCommitMovesRowToNewKey() {
+    assertEquals(PDU.noError,
+                 set(new VariableBinding[] { keyValue(2, "b") })
+                 .getErrorStatus());
+    assertRows("a", new int[] { 1 });
+    assertRows("b", new int[] { 2, 3 });
+  }
+
+  public void testCommitOfNewRowIndexesRow() {
+    assertEquals(PDU.noError,
+                 set(new VariableBinding[] { keyValue(5, "c") })
+                 .getErrorStatus());
+    assertRows("c", new int[] { 5 });
+  }
+
+  public void testUndoRestoresKey() {
+    PDU response = set(new VariableBinding[] {
+        keyValue(1, "b"),
+        new VariableBinding(FAILING_OID, new Integer32(1)) });
+    assertEquals(PDU.commitFailed, response.getErrorStatus());
+    assertEquals(new OctetString("a"),
+                 model.getRow(new OID("1")).getValue(0));
+    assertRows("a", new int[] { 1, 2 });
+    assertRows("b", new int[] { 3 });
+  }
+
+  public void testUndoOfNewRowRemovesItFromIndex() {
+    PDU response = set(new VariableBinding[] {
+        keyValue(5, "c"),
+        new VariableBinding(FAILING_OID, new Integer32(1)) });
+    assertEquals(PDU.commitFailed, response.getErrorStatus());
+    assertNull(model.getRow(new OID("5")));
+    assertFalse(index.containsKey(new OctetString("c")));
+  }
+
+  public void testRemovedRowIsUnindexed() {
+    model.removeRow(new OID("3"));
+    assertFalse(index.containsKey(new OctetString("b")));
+    model.clear();
+    assertTrue(index.getKeys().isEmpty());
+  }
+
+  static class ResponseCollector extends MessageDispatcherImpl {
+    private PDU response;
+
+    public int returnResponsePdu(int messageProcessingModel,
+                                 int securityModel,
+                                 byte[] securityName,
+                                 int securityLevel,
+                                 PDU pdu,
+                                 int maxSizeResponseScopedPDU,
+                                 StateReference stateReference,
+                                 StatusInformation statusInformation) {
+      response = pdu;
+      return 0;
+    }
+  }
+
+  static class AllowAllVACM implements VACM {
+
+    public int isAccessAllowed(OctetString context, OctetString securityName,
+                               int securityModel, int securityLevel,
+                               int viewType, OID oid) {
+      return VACM_OK;
+    }
+
+    public int isAccessAllowed(OctetString viewName, OID oid) {
+      return VACM_OK;
+    }
+
+    public OctetString getViewName(OctetString context,
+                                   OctetString securityName,
+                                   int securityModel, int securityLevel,
+                                   int viewType) {
+      return new OctetString("all");
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - NumericIndexKeysTest.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import junit.framework.TestCase;
+
+import org.snmp4j.smi.OID;
+
+/**
+ * Tests the key mapping and the searches of {@link NumericIndexKeys}.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class NumericIndexKeysTest extends TestCase {
+
+  private static long key(String index, int indexLength) {
+    return NumericIndexKeys.toKey(new OID(index), indexLength);
+  }
+
+  private static long[] keys(String[] indexes, int indexLength) {
+    long[] keys = new long[indexes.length + 4];
+    for (int i=0; i<indexes.length; i++) {
+      keys[i] = key(indexes[i], indexLength);
+    }
+    return keys;
+  }
+
+  public void testBiasKeepsUnsignedOrder() {
+    // sub-identifiers above 2^31-1 are negative as int
+    assertTrue(key("0", 1) < key("1", 1));
+    assertTrue(key("2147483647", 1) < key("2147483648", 1));
+    assertTrue(key("5", 1) < key("4294967295", 1));
+    assertTrue(key("1.4294967295", 2) < key("2.0", 2));
+    assertTrue(key("4294967295.0", 2) > key("2147483647.4294967295", 2));
+  }
+
+  public void testToIndexIsInverseOfToKey() {
+    String[] indexes =
+        { "0.0", "1.4294967295", "2147483648.7", "4294967295.4294967295" };
+    for (int i=0; i<indexes.length; i++) {
+      assertEquals(new OID(indexes[i]),
+                   NumericIndexKeys.toIndex(key(indexes[i], 2), 2));
+    }
+    assertEquals(new OID("4294967295"),
+                 NumericIndexKeys.toIndex(key("4294967295", 1), 1));
+  }
+
+  public void testInvalidIndex() {
+    try {
+      key("1.2", 1);
+      fail("IllegalArgumentException expected");
+    }
+    catch (IllegalArgumentException iaex) {
+      // expected
+    }
+    assertFalse(NumericIndexKeys.isValidIndex(new OID("1"), 2));
+    assertFalse(NumericIndexKeys.isValidIndex(null, 1));
+    try {
+      NumericIndexKeys.checkIndexLength(3);
+      fail("IllegalArgumentException expected");
+    }
+    catch (IllegalArgumentException iaex) {
+      // expected
+    }
+  }
+
+  public void testSearch() {
+    long[] keys = keys(new String[] { "1", "3", "4294967295" }, 1);
+    assertEquals(1, NumericIndexKeys.search(keys, 3, key("3", 1)));
+    assertEquals(2, NumericIndexKeys.search(keys, 3, key("4294967295", 1)));
+    assertEquals(-1, NumericIndexKeys.search(keys, 3, key("0", 1)));
+    assertEquals(-2, NumericIndexKeys.search(keys, 3, key("2", 1)));
+    // keys beyond size are ignored
+    assertEquals(-3, NumericIndexKeys.search(keys, 2, key("4294967295", 1)));
+    assertEquals(-1, NumericIndexKeys.search(keys, 0, key("1", 1)));
+  }
+
+  public void testCeilingSingleSubIdentifier() {
+    long[] keys = keys(new String[] { "1", "3", "5" }, 1);
+    assertEquals(0, NumericIndexKeys.ceiling(keys, 3, new OID(), 1));
+    assertEquals(1, NumericIndexKeys.ceiling(keys, 3, new OID("3"), 1));
+    // a longer bound is greater than the index equal to its prefix
+    assertEquals(2, NumericIndexKeys.ceiling(keys, 3, new OID("3.0"), 1));
+    assertEquals(1, NumericIndexKeys.ceiling(keys, 3, new OID("2.5"), 1));
+    assertEquals(2, NumericIndexKeys.ceiling(keys, 3, new OID("4"), 1));
+    assertEquals(3, NumericIndexKeys.ceiling(keys, 3, new OID("6"), 1));
+  }
+
+  public void testCeilingTwoSubIdentifiers() {
+    long[] keys = keys(new String[] { "1.0", "1.3", "2.0" }, 2);
+    // a shorter bound is less than the index padded with zeros
+    assertEquals(0, NumericIndexKeys.ceiling(keys, 3, new OID("1"), 2));
+    assertEquals(1, NumericIndexKeys.ceiling(keys, 3, new OID("1.1"), 2));
+    assertEquals(1, NumericIndexKeys.ceiling(keys, 3, new OID("1.3"), 2));
+    assertEquals(2, NumericIndexKeys.ceiling(keys, 3, new OID("1.3.1"), 2));
+    assertEquals(2, NumericIndexKeys.ceiling(keys, 3, new OID("2"), 2));
+    assertEquals(3, NumericIndexKeys.ceiling(keys, 3, new OID("2.0.0"), 2));
+    assertEquals(3, NumericIndexKeys.ceiling(keys, 3, new OID("3"), 2));
+  }
+}
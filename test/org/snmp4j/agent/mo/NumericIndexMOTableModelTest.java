@@ -0,0 +1,91 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - NumericIndexMOTableModelTest.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo;
+
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+
+/**
+ * Tests the {@link NumericIndexMOTableModel}.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class NumericIndexMOTableModelTest extends TestCase {
+
+  private NumericIndexMOTableModel model;
+
+  protected void setUp() throws Exception {
+    model = new NumericIndexMOTableModel();
+    model.setColumnCount(1);
+    // added out of order to move the array entries
+    int[] indexes = { 5, 1, -1, 3 };
+    for (int i=0; i<indexes.length; i++) {
+      model.addRow(model.createRow(new OID(new int[] { indexes[i] }),
+                                   new Variable[] { new Integer32(i) }));
+    }
+  }
+
+  public void testCreateRowWithoutRowFactory() {
+    MOTableRow row =
+        model.createRow(new OID("7"), new Variable[] { new Integer32(7) });
+    assertTrue(row instanceof DefaultMOMutableRow2PC);
+    assertEquals(new OID("7"), row.getIndex());
+    try {
+      model.createRow(new OID("7.1"), new Variable[] { new Integer32(7) });
+      fail("UnsupportedOperationException expected");
+    }
+    catch (UnsupportedOperationException uoex) {
+      // expected
+    }
+  }
+
+  public void testTailIterator() {
+    assertIndexes(model.tailIterator(new OID("2")),
+                  new String[] { "3", "5", "4294967295" });
+    assertIndexes(model.tailIterator(new OID("3.1")),
+                  new String[] { "5", "4294967295" });
+    assertIndexes(model.tailIterator(new OID()),
+                  new String[] { "1", "3", "5", "4294967295" });
+    assertFalse(model.tailIterator(new OID("4294967295.0")).hasNext());
+  }
+
+  public void testRemoveRow() {
+    assertNotNull(model.removeRow(new OID("3")));
+    assertNull(model.removeRow(new OID("3")));
+    assertEquals(3, model.getRowCount());
+    assertIndexes(model.iterator(), new String[] { "1", "5", "4294967295" });
+  }
+
+  private static void assertIndexes(Iterator it, String[] expected) {
+    for (int i=0; i<expected.length; i++) {
+      assertTrue(it.hasNext());
+      assertEquals(new OID(expected[i]), ((MOTableRow)it.next()).getIndex());
+    }
+    assertFalse(it.hasNext());
+  }
+}
@@ -0,0 +1,94 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - RowStatusTest.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo.snmp;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import junit.framework.TestCase;
+
+import org.snmp4j.agent.mo.*;
+import org.snmp4j.agent.mo.util.VariableInterner;
+import org.snmp4j.agent.request.SubRequest;
+import org.snmp4j.smi.*;
+
+/**
+ * Tests that the {@link RowStatus} column does not modify shared row values
+ * when it changes the status of a row.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class RowStatusTest extends TestCase {
+
+  private static final OID TABLE_OID = new OID("1.3.6.1.4.1.4976.99.5.1");
+
+  private VariableInterner previousInterner;
+  private VariableInterner interner;
+  private RowStatus rowStatus;
+
+  protected void setUp() throws Exception {
+    previousInterner = VariableInterner.getInstance();
+    interner = new VariableInterner();
+    interner.setEnabled(true);
+    VariableInterner.setInstance(interner);
+    rowStatus = new RowStatus(2);
+    new DefaultMOTable(TABLE_OID,
+                       new MOTableIndex(new MOTableSubIndex[] {
+        new MOTableSubIndex(SMIConstants.SYNTAX_INTEGER) }),
+                       new MOColumn[] { rowStatus },
+                       new DefaultMOMutableTableModel());
+  }
+
+  protected void tearDown() throws Exception {
+    VariableInterner.setInstance(previousInterner);
+  }
+
+  public void testGetReplacesSharedValue() {
+    Integer32 notReady =
+        (Integer32) interner.intern(new Integer32(RowStatus.notReady));
+    MOMutableTableRow row =
+        new DefaultMOMutableRow2PC(new OID("1"), new Variable[] { notReady });
+    VariableBinding vb = new VariableBinding();
+    // the row has become ready, because it has no mandatory columns
+    rowStatus.get(createSubRequest(vb), row, 0);
+    assertEquals(new Integer32(RowStatus.notInService), vb.getVariable());
+    assertEquals(new Integer32(RowStatus.notInService), row.getValue(0));
+    assertEquals(RowStatus.notReady, notReady.getValue());
+    assertSame(notReady,
+               interner.intern(new Integer32(RowStatus.notReady)));
+  }
+
+  private static SubRequest createSubRequest(final VariableBinding vb) {
+    return (SubRequest) Proxy.newProxyInstance(
+        SubRequest.class.getClassLoader(), new Class[] { SubRequest.class },
+        new InvocationHandler() {
+      public Object invoke(Object proxy, Method method, Object[] args) {
+        if ("getVariableBinding".equals(method.getName())) {
+          return vb;
+        }
+        return null;
+      }
+    });
+  }
+}
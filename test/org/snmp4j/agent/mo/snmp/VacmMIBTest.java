@@ -0,0 +1,102 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - VacmMIBTest.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo.snmp;
+
+import junit.framework.TestCase;
+
+import org.snmp4j.agent.MOServer;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+
+/**
+ * Tests the view boundaries of the {@link VacmMIB} used to skip excluded
+ * subtrees during GETNEXT and GETBULK.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class VacmMIBTest extends TestCase {
+
+  private static final OctetString VIEW = new OctetString("view");
+
+  private VacmMIB vacm;
+
+  protected void setUp() throws Exception {
+    vacm = new VacmMIB(new MOServer[0]);
+    // mib-2 without the interfaces group, but with ifDescr
+    addFamily(VIEW, "1.3.6.1.2.1", new OctetString(), VacmMIB.vacmViewIncluded);
+    addFamily(VIEW, "1.3.6.1.2.1.2", new OctetString(),
+              VacmMIB.vacmViewExcluded);
+    addFamily(VIEW, "1.3.6.1.2.1.2.2.1.2", new OctetString(),
+              VacmMIB.vacmViewIncluded);
+  }
+
+  private void addFamily(OctetString viewName, String subtree,
+                         OctetString mask, int type) {
+    vacm.addViewTreeFamily(viewName, new OID(subtree), mask, type,
+                           StorageType.nonVolatile);
+  }
+
+  public void testInViewReturnsSuccessor() {
+    OID oid = new OID("1.3.6.1.2.1.1.1.0");
+    assertEquals(oid.successor(), vacm.getNextViewBoundary(VIEW, oid));
+  }
+
+  public void testBeforeViewReturnsFirstSubtree() {
+    assertEquals(new OID("1.3.6.1.2.1"),
+                 vacm.getNextViewBoundary(VIEW, new OID("1.3.6.1.1.5")));
+  }
+
+  public void testExcludedSubtreeIsSkipped() {
+    assertEquals(new OID("1.3.6.1.2.1.2.2.1.2"),
+                 vacm.getNextViewBoundary(VIEW, new OID("1.3.6.1.2.1.2.1.0")));
+    assertEquals(new OID("1.3.6.1.2.1.3"),
+                 vacm.getNextViewBoundary(VIEW,
+                                          new OID("1.3.6.1.2.1.2.2.1.3.1")));
+  }
+
+  public void testAfterViewReturnsNull() {
+    assertNull(vacm.getNextViewBoundary(VIEW, new OID("1.3.6.1.2.2")));
+  }
+
+  public void testUnknownViewReturnsNull() {
+    assertNull(vacm.getNextViewBoundary(new OctetString("unknown"),
+                                        new OID("1.3.6.1.2.1.1.1.0")));
+  }
+
+  public void testReturnedBoundaryIsACopy() {
+    OID boundary = vacm.getNextViewBoundary(VIEW, new OID("1.3.6.1.1"));
+    boundary.append(1);
+    assertEquals(new OID("1.3.6.1.2.1"),
+                 vacm.getNextViewBoundary(VIEW, new OID("1.3.6.1.1")));
+  }
+
+  public void testWildcardMaskReturnsSuccessor() {
+    OctetString wildcard = new OctetString("wildcard");
+    // the tenth sub-identifier (ifEntry column) is a wildcard
+    addFamily(wildcard, "1.3.6.1.2.1.2.2.1.1.1",
+              new OctetString(new byte[] { (byte)0xFF, (byte)0xBF }),
+              VacmMIB.vacmViewIncluded);
+    OID oid = new OID("1.3.6.1.2.1.1.1.0");
+    assertEquals(oid.successor(), vacm.getNextViewBoundary(wildcard, oid));
+  }
+}
@@ -0,0 +1,253 @@
+/*_############################################################################
+  _##
+  _##  SNMP4J-Agent - EvictingMOTableSizeLimitTest.java
+  _##
+  _##  Copyright (C) 2005-2009  Frank Fock (SNMP4J.org)
+  _##
+  _##  Licensed under the Apache License, Version 2.0 (the "License");
+  _##  you may not use this file except in compliance with the License.
+  _##  You may obtain a copy of the License at
+  _##
+  _##      http://www.apache.org/licenses/LICENSE-2.0
+  _##
+  _##  Unless required by applicable law or agreed to in writing, software
+  _##  distributed under the License is distributed on an "AS IS" BASIS,
+  _##  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  _##  See the License for the specific language governing permissions and
+  _##  limitations under the License.
+  _##
+  _##########################################################################*/
+
+package org.snmp4j.agent.mo.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.snmp4j.PDU;
+import org.snmp4j.agent.DefaultMOScope;
+import org.snmp4j.agent.mo.*;
+import org.snmp4j.agent.request.SubRequest;
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.SMIConstants;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+
+/**
+ * Tests the eviction order and the row time to live of the
+ * {@link EvictingMOTableSizeLimit}.
+ *
+ * @author Frank Fock
+ * @version 1.4.4
+ * @since 1.4.4
+ */
+public class EvictingMOTableSizeLimitTest extends TestCase {
+
+  private static final OID TABLE_OID = new OID("1.3.6.1.4.1.4976.99.1.1");
+
+  private DefaultMOTable table;
+  private EvictingMOTableSizeLimit limit;
+
+  protected void setUp() throws Exception {
+    table = new DefaultMOTable(TABLE_OID,
+                               new MOTableIndex(new MOTableSubIndex[] {
+        new MOTableSubIndex(SMIConstants.SYNTAX_INTEGER) }),
+                               new MOColumn[] {
+        new MOColumn(2, SMIConstants.SYNTAX_INTEGER,
+                     MOAccessImpl.ACCESS_READ_ONLY) },
+                               new DefaultMOMutableTableModel());
+  }
+
+  private EvictingMOTableSizeLimit limit(int maxNumRows, int policy) {
+    limit = new EvictingMOTableSizeLimit(maxNumRows, policy);
+    table.addMOTableRowListener(limit);
+    return limit;
+  }
+
+  private static MOTableRow row(int index) {
+    return new DefaultMOTableRow(new OID(new int[] { index }),
+                                 new Variable[] { new Integer32(index) });
+  }
+
+  private void addRows(int first, int last) {
+    for (int i=first; i<=last; i++) {
+      assertTrue(table.addRow(row(i)));
+    }
+  }
+
+  private void assertRows(int[] expected) {
+    List indexes = new ArrayList();
+    for (Iterator it = table.getModel().iterator(); it.hasNext(); ) {
+      indexes.add(((MOTableRow) it.next()).getIndex());
+    }
+    assertEquals(expected.length, indexes.size());
+    for (int i=0; i<expected.length; i++) {
+      assertEquals(new OID(new int[] { expected[i] }), indexes.get(i));
+    }
+  }
+
+  private void access(int index) {
+    OID oid = new OID(new int[] { index });
+    limit.rowAccessed(table, table.getModel().getRow(oid));
+  }
+
+  public void testEvictOldest() {
+    EvictingMOTableSizeLimit limit =
+        limit(3, EvictingMOTableSizeLimit.EVICT_OLDEST);
+    addRows(1, 3);
+    access(1);
+    addRows(4, 5);
+    // reading rows does not change the order of EVICT_OLDEST
+    assertRows(new int[] { 3, 4, 5 });
+    assertEquals(2, limit.getEvictionCount(table));
+    assertEquals(new Long(2), limit.getEvictionCounts().get(TABLE_OID));
+  }
+
+  public void testEvictLeastRecentlyUsed() {
+    EvictingMOTableSizeLimit limit =
+        limit(3, EvictingMOTableSizeLimit.EVICT_LRU);
+    addRows(1, 3);
+    access(1);
+    access(2);
+    access(1);
+    addRows(4, 4);
+    assertRows(new int[] { 1, 2, 4 });
+    addRows(5, 5);
+    assertRows(new int[] { 1, 4, 5 });
+    assertEquals(2, limit.getEvictionCount(table));
+  }
+
+  public void testRowsReadByBulkBatch() {
+    limit(3, EvictingMOTableSizeLimit.EVICT_LRU);
+    addRows(1, 3);
+    // reads rows 1 and 2 like a GETBULK repeater with two repetitions
+    SubRequest[] repetitions = new SubRequest[] {
+        createSubRequest(columnOID()), createSubRequest(null) };
+    assertEquals(2, table.nextBatch(repetitions));
+    addRows(4, 4);
+    assertRows(new int[] { 1, 2, 4 });
+  }
+
+  public void testRowReadByBulkRow() {
+    limit(3, EvictingMOTableSizeLimit.EVICT_LRU);
+    addRows(1, 3);
+    // reads row 1 like the repeaters of a GETBULK repetition
+    SubRequest[] repeaters = new SubRequest[] {
+        createSubRequest(columnOID()) };
+    assertEquals(1, table.nextRow(repeaters));
+    addRows(4, 4);
+    assertRows(new int[] { 1, 3, 4 });
+  }
+
+  private static OID columnOID() {
+    OID oid = new OID(TABLE_OID);
+    oid.append(2);
+    return oid;
+  }
+
+  /**
+   * Creates a sub-request searching the successor of the supplied lower
+   * bound, which is not part of any request.
+   */
+  private static SubRequest createSubRequest(OID lowerBound) {
+    final DefaultMOScope scope =
+        new DefaultMOScope(lowerBound, false, null, false);
+    final VariableBinding vb = new VariableBinding();
+    return (SubRequest) Proxy.newProxyInstance(
+        SubRequest.class.getClassLoader(), new Class[] { SubRequest.class },
+        new InvocationHandler() {
+      public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        if ("getScope".equals(name)) {
+          return scope;
+        }
+        else if ("getVariableBinding".equals(name)) {
+          return vb;
+        }
+        else if (method.getReturnType() == Boolean.TYPE) {
+          return Boolean.FALSE;
+        }
+        else if (method.getReturnType() == Integer.TYPE) {
+          return new Integer(0);
+        }
+        return null;
+      }
+    });
+  }
+
+  public void testRemovedRowsAreForgotten() {
+    limit(3, EvictingMOTableSizeLimit.EVICT_OLDEST);
+    addRows(1, 3);
+    table.removeRow(new OID("1"));
+    addRows(4, 5);
+    assertRows(new int[] { 3, 4, 5 });
+  }
+
+  public void testVetoedEvictionKeepsRow() {
+    table.addMOTableRowListener(new MOTableRowListener() {
+      public void rowChanged(MOTableRowEvent event) {
+        if ((event.getType() == MOTableRowEvent.DELETE) &&
+            (event.getRow().getIndex().equals(new OID("1")))) {
+          event.setVetoStatus(PDU.inconsistentValue);
+        }
+      }
+    });
+    limit(3, EvictingMOTableSizeLimit.EVICT_OLDEST);
+    addRows(1, 4);
+    assertRows(new int[] { 1, 3, 4 });
+    // the vetoed row has been moved to the end of the eviction order
+    addRows(5, 5);
+    assertRows(new int[] { 1, 4, 5 });
+  }
+
+  public void testUnknownRowsAreEvictedInIndexOrder() {
+    DefaultMOMutableTableModel model =
+        (DefaultMOMutableTableModel) table.getModel();
+    // rows added to the model directly are not known to the policy
+    model.addRow(row(10));
+    model.addRow(row(11));
+    limit(2, EvictingMOTableSizeLimit.EVICT_OLDEST);
+    addRows(1, 1);
+    assertRows(new int[] { 1, 11 });
+  }
+
+  public void testBatchAdd() {
+    limit(3, EvictingMOTableSizeLimit.EVICT_OLDEST);
+    addRows(1, 2);
+    List rows = new ArrayList();
+    rows.add(row(4));
+    rows.add(row(3));
+    assertEquals(2, table.addRows(rows));
+    assertRows(new int[] { 2, 3, 4 });
+  }
+
+  public void testRowTimeToLive() throws InterruptedException {
+    EvictingMOTableSizeLimit limit =
+        limit(10, EvictingMOTableSizeLimit.EVICT_LRU);
+    limit.setRowTimeToLive(400);
+    addRows(1, 2);
+    Thread.sleep(200);
+    access(1);
+    Thread.sleep(300);
+    // row 2 has expired, row 1 has been read recently
+    addRows(3, 3);
+    assertRows(new int[] { 1, 3 });
+    Thread.sleep(500);
+    assertEquals(2, limit.removeExpiredRows(table));
+    assertRows(new int[0]);
+    assertEquals(3, limit.getEvictionCount(table));
+  }
+
+  public void testLimitWithoutEviction() {
+    table.addMOTableRowListener(new MOTableSizeLimit(2));
+    addRows(1, 2);
+    assertFalse(table.addRow(row(3)));
+    assertRows(new int[] { 1, 2 });
+  }
+}